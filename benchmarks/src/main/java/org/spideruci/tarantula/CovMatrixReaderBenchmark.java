@@ -0,0 +1,178 @@
+package org.spideruci.tarantula;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads a cov_matrix.gz written by {@link TarantulaData#writeExternal1} with
+ * the {@link CovMatrixReader} and with the reader that readExternal used
+ * before it, which buffers the whole file in a StringBuffer and tokenizes it.
+ * Raise numTests and numStmts with -p for large files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CovMatrixReaderBenchmark {
+
+  @Param({"2000"})
+  public int numTests;
+
+  @Param({"20000"})
+  public int numStmts;
+
+  @Param({"0.05"})
+  public double density;
+
+  private File directory;
+  private File covMatrixFile;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    Random random = new Random(42L);
+    boolean[][] M = new boolean[numTests][numStmts];
+    boolean[] F = new boolean[numTests];
+    for (int i = 0; i < numTests; i += 1) {
+      for (int j = 0; j < numStmts; j += 1) {
+        M[i][j] = random.nextDouble() < density;
+      }
+      F[i] = random.nextDouble() < 0.05;
+    }
+    boolean[] C = new boolean[numStmts];
+    for (int j = 0; j < numStmts; j += 1) {
+      C[j] = random.nextDouble() < 0.9;
+    }
+
+    directory = File.createTempFile("cov_matrix", "");
+    directory.delete();
+    directory.mkdir();
+    TarantulaData data = new TarantulaData(M);
+    data.setF(F);
+    data.setC(C);
+    data.setS(new int[numStmts]);
+    data.setDirectory(directory.getPath());
+    data.writeExternal1(null);
+    covMatrixFile = new File(directory, "cov_matrix.gz");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    covMatrixFile.delete();
+    directory.delete();
+  }
+
+  private InputStream open() throws IOException {
+    return new GZIPInputStream(
+        new BufferedInputStream(new FileInputStream(covMatrixFile)));
+  }
+
+  @Benchmark
+  public TarantulaData streamingDense() throws IOException {
+    InputStream in = open();
+    try {
+      return new CovMatrixReader(in).read(CoverageLayout.DENSE);
+    } finally {
+      in.close();
+    }
+  }
+
+  @Benchmark
+  public TarantulaData streamingBitPacked() throws IOException {
+    InputStream in = open();
+    try {
+      return new CovMatrixReader(in).read(CoverageLayout.BIT_PACKED);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * The decoding of the former readExternal, records 1 to 4 and 7.
+   */
+  @Benchmark
+  public boolean[][] legacy() throws IOException {
+    final int BUFFER = 2048;
+    boolean[][] M = null;
+    int numStmts = 0;
+
+    InputStream in = open();
+    StringBuffer strBuf = new StringBuffer();
+    while (true) {
+      byte[] b = new byte[BUFFER];
+      int returnVal = in.read(b, 0, BUFFER);
+      String newStr = new String(b);
+      int index = newStr.indexOf('\0');
+      String newerStr = null;
+      if (index == -1)
+        newerStr = newStr;
+      else
+        newerStr = newStr.substring(0, index);
+      strBuf.append(newerStr);
+      if (returnVal == -1)
+        break;
+    }
+    in.close();
+
+    String covMatrixStr = strBuf.toString();
+    StringTokenizer lineTokenizer = new StringTokenizer(covMatrixStr, "\n");
+    while (lineTokenizer.hasMoreTokens()) {
+      String line = lineTokenizer.nextToken();
+      StringTokenizer t = new StringTokenizer(line, " ");
+      if (!t.hasMoreTokens())
+        continue;
+      int recordID = Integer.parseInt(t.nextToken());
+      switch (recordID) {
+      case 1:
+        M = new boolean[Integer.parseInt(t.nextToken())][];
+        break;
+      case 2:
+        t.nextToken();
+        numStmts = Integer.parseInt(t.nextToken());
+        break;
+      case 3:
+        int testCaseNum = Integer.parseInt(t.nextToken());
+        M[testCaseNum] = new boolean[numStmts];
+        char[] covVector = t.nextToken().toCharArray();
+        for (int i = 0; i < covVector.length; i++) {
+          M[testCaseNum][i] = (covVector[i] == '1') ? true : false;
+        }
+        break;
+      case 4:
+      case 7:
+        char[] vector = t.nextToken().toCharArray();
+        boolean[] decoded = new boolean[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+          decoded[i] = (vector[i] == '1') ? true : false;
+        }
+        break;
+      default:
+        break;
+      }
+    }
+    return M;
+  }
+
+}
@@ -0,0 +1,86 @@
+package org.spideruci.tarantula;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link TarantulaFaultLocalizer#compute} and each of its stages.
+ * Run with {@code -prof gc} to also report the allocation rate, e.g.
+ * {@code java -jar target/benchmarks.jar FaultLocalizerBenchmark -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FaultLocalizerBenchmark {
+
+  private final TarantulaFaultLocalizer localizer =
+      new TarantulaFaultLocalizer();
+  private final FusedFaultLocalizer fusedLocalizer = new FusedFaultLocalizer();
+  private final ParallelFaultLocalizer parallelLocalizer =
+      new ParallelFaultLocalizer();
+
+  @TearDown
+  public void tearDown() {
+    parallelLocalizer.close();
+  }
+
+  @Benchmark
+  public double[][] compute(MatrixState state) {
+    return localizer.compute(state.data, false);
+  }
+
+  @Benchmark
+  public double[][] computeFused(MatrixState state) {
+    return fusedLocalizer.compute(state.data, false);
+  }
+
+  @Benchmark
+  public double[][] computeParallel(MatrixState state) {
+    return parallelLocalizer.compute(state.data, false);
+  }
+
+  @Benchmark
+  public boolean[] calculateBadTestCoverage(MatrixState state) {
+    return localizer.calculateBadTestCoverage(state.M);
+  }
+
+  @Benchmark
+  public IntPassFailPair calculateTotalLiveFailAndPass(MatrixState state) {
+    return localizer.calculateTotalLiveFailAndPass(
+        state.numTests, state.B, state.L, state.F);
+  }
+
+  @Benchmark
+  public IntArrayPassFailPair calculatePassOnStmtAndFailOnStmt(
+      MatrixState state) {
+    return localizer.calculateTestsOnStmtProfiles(
+        state.numStmts, state.B, state.L, state.C, state.M, state.F);
+  }
+
+  @Benchmark
+  public DoubleArrayPassFailPair calculatePassRatioAndFailRatio(
+      MatrixState state) {
+    return localizer.calculateTestRatiosOnStmts(
+        state.numStmts, state.totalLiveTests, state.testsOnStmtProfiles);
+  }
+
+  @Benchmark
+  public double[][] calculateSuspiciousnessAndConfidence(MatrixState state) {
+    return localizer.calculateSuspiciousnessAndConfidence(
+        state.numStmts, state.totalLiveTests, state.testRatiosOnStmts);
+  }
+
+}
@@ -0,0 +1,93 @@
+package org.spideruci.tarantula;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A randomly generated coverage matrix of a parameterized shape, together with
+ * the intermediate results of every stage, so that each stage can be measured
+ * on its own.
+ */
+@State(Scope.Benchmark)
+public class MatrixState {
+
+  @Param({"2000"})
+  public int numTests;
+
+  @Param({"20000"})
+  public int numStmts;
+
+  /**
+   * fraction of covered cells in M
+   */
+  @Param({"0.02", "0.2"})
+  public double density;
+
+  /**
+   * fraction of failing test cases
+   */
+  @Param({"0.05"})
+  public double failRatio;
+
+  /**
+   * fraction of live test cases
+   */
+  @Param({"1.0"})
+  public double liveRatio;
+
+  @Param({"DENSE", "BIT_PACKED", "STMT_MAJOR", "SPARSE", "SPARSE_COLUMN"})
+  public CoverageLayout layout;
+
+  TarantulaData data;
+  TarantulaMatrix M;
+  boolean[] B;
+  boolean[] C;
+  boolean[] F;
+  boolean[] L;
+  IntPassFailPair totalLiveTests;
+  IntArrayPassFailPair testsOnStmtProfiles;
+  DoubleArrayPassFailPair testRatiosOnStmts;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42L);
+    boolean[][] matrix = new boolean[numTests][numStmts];
+    for (int i = 0; i < numTests; i += 1) {
+      for (int j = 0; j < numStmts; j += 1) {
+        matrix[i][j] = random.nextDouble() < density;
+      }
+    }
+    M = layout.fromBooleanMatrix(matrix);
+
+    C = new boolean[numStmts];
+    for (int j = 0; j < numStmts; j += 1) {
+      C[j] = random.nextDouble() < 0.9;
+    }
+    F = new boolean[numTests];
+    L = new boolean[numTests];
+    for (int i = 0; i < numTests; i += 1) {
+      F[i] = random.nextDouble() < failRatio;
+      L[i] = random.nextDouble() < liveRatio;
+    }
+
+    data = new TarantulaData(M);
+    data.setC(C);
+    data.setF(F);
+    data.setL(L);
+
+    TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
+    B = localizer.calculateBadTestCoverage(M);
+    data.setB(B);
+    totalLiveTests = localizer.calculateTotalLiveFailAndPass(numTests, B, L, F);
+    testsOnStmtProfiles =
+        localizer.calculateTestsOnStmtProfiles(numStmts, B, L, C, M, F);
+    testRatiosOnStmts = localizer.calculateTestRatiosOnStmts(
+        numStmts, totalLiveTests, testsOnStmtProfiles);
+  }
+
+}
@@ -0,0 +1,91 @@
+package org.spideruci.tarantula;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the live-test totals in a boxed {@code PassFailPair<Integer>} with
+ * the {@link IntPassFailPair} that the localizer now returns. Both run the
+ * loop of {@link TarantulaFaultLocalizer#calculateTotalLiveFailAndPass}, so
+ * only the pair differs. With {@code -prof gc}, gc.alloc.rate.norm shows the
+ * bytes allocated per call; counts beyond the Integer cache cost two extra
+ * objects in the boxed pair.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PassFailPairBenchmark {
+
+  @Param({"40000"})
+  public int numTests;
+
+  private boolean[] B;
+  private boolean[] L;
+  private boolean[] F;
+
+  @Setup
+  public void setUp() {
+    B = new boolean[numTests];
+    L = new boolean[numTests];
+    F = new boolean[numTests];
+    for (int i = 0; i < numTests; i += 1) {
+      L[i] = true;
+      F[i] = i % 10 == 0;
+    }
+  }
+
+  @Benchmark
+  public void boxedTotals(Blackhole blackhole) {
+    int totalLiveFail = 0;
+    int totalLivePass = 0;
+    for (int i = 0; i < numTests; i++) {
+      if(!L[i]) continue;
+      if(B[i]) continue;
+      if (F[i]) {
+        totalLiveFail++;
+      }
+      else {
+        totalLivePass++;
+      }
+    }
+    PassFailPair<Integer> pair =
+        new PassFailPair<Integer>(totalLivePass, totalLiveFail);
+    blackhole.consume(pair);
+    blackhole.consume(pair.pass() + pair.fail());
+  }
+
+  @Benchmark
+  public void primitiveTotals(Blackhole blackhole) {
+    int totalLiveFail = 0;
+    int totalLivePass = 0;
+    for (int i = 0; i < numTests; i++) {
+      if(!L[i]) continue;
+      if(B[i]) continue;
+      if (F[i]) {
+        totalLiveFail++;
+      }
+      else {
+        totalLivePass++;
+      }
+    }
+    IntPassFailPair pair = new IntPassFailPair(totalLivePass, totalLiveFail);
+    blackhole.consume(pair);
+    blackhole.consume(pair.pass() + pair.fail());
+  }
+
+}
@@ -0,0 +1,141 @@
+package org.spideruci.tarantula;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the per-statement kernels that turn the counts into ratios,
+ * suspiciousness and confidence with the loops they replaced, which branched
+ * on the zero totals and the -1 sentinel for every statement. A fifth of the
+ * statements are uncovered, so the branches of the former loops mispredict,
+ * and they keep the JIT from vectorizing the loops.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RatioKernelBenchmark {
+
+  @Param({"1000000", "4000000"})
+  public int numStmts;
+
+  private final int totalLivePass = 900;
+  private final int totalLiveFail = 100;
+
+  private int[] passOnStmt;
+  private int[] failOnStmt;
+  private double[] passRatio;
+  private double[] failRatio;
+  private double[] suspiciousness;
+  private double[] confidence;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(19L);
+    passOnStmt = new int[numStmts];
+    failOnStmt = new int[numStmts];
+    for (int j = 0; j < numStmts; j += 1) {
+      if (random.nextInt(5) == 0) continue;
+      passOnStmt[j] = random.nextInt(totalLivePass + 1);
+      failOnStmt[j] = random.nextInt(totalLiveFail + 1);
+    }
+    passRatio = new double[numStmts];
+    failRatio = new double[numStmts];
+    suspiciousness = new double[numStmts];
+    confidence = new double[numStmts];
+    TarantulaFaultLocalizer.calculatePassRatioAndFailRatio(0, numStmts,
+        totalLivePass, totalLiveFail, passOnStmt, failOnStmt,
+        passRatio, failRatio);
+  }
+
+  @Benchmark
+  public double[] branchingRatios() {
+    for (int i = 0; i < numStmts; i++) {
+      if (totalLivePass == 0) {
+        passRatio[i] = 0d;
+      } else {
+        passRatio[i] = (double) passOnStmt[i] / (double) totalLivePass;
+      }
+      if (totalLiveFail == 0) {
+        failRatio[i] = 0d;
+      } else {
+        failRatio[i] = (double) failOnStmt[i] / (double) totalLiveFail;
+      }
+    }
+    return failRatio;
+  }
+
+  @Benchmark
+  public double[] ratios() {
+    TarantulaFaultLocalizer.calculatePassRatioAndFailRatio(0, numStmts,
+        totalLivePass, totalLiveFail, passOnStmt, failOnStmt,
+        passRatio, failRatio);
+    return failRatio;
+  }
+
+  @Benchmark
+  public double[] branchingSuspiciousness() {
+    for (int i = 0; i < numStmts; i++) {
+      if ((totalLiveFail == 0) && (totalLivePass == 0)) {
+        suspiciousness[i] = -1d;
+        confidence[i] = -1d;
+      } else if ((failRatio[i] == 0d) && (passRatio[i] == 0d)) {
+        suspiciousness[i] = -1d;
+        confidence[i] = -1d;
+      } else {
+        suspiciousness[i] = failRatio[i] / (failRatio[i] + passRatio[i]);
+        confidence[i] = Math.max(failRatio[i], passRatio[i]);
+      }
+    }
+    return suspiciousness;
+  }
+
+  @Benchmark
+  public double[] suspiciousness() {
+    TarantulaFaultLocalizer.calculateSuspiciousnessAndConfidence(0, numStmts,
+        totalLivePass, totalLiveFail, passRatio, failRatio,
+        suspiciousness, confidence);
+    return suspiciousness;
+  }
+
+  @Benchmark
+  public double[] branchingFusedSuspiciousness() {
+    for (int i = 0; i < numStmts; i++) {
+      final double passRatio = totalLivePass == 0 ? 0d
+          : (double) passOnStmt[i] / (double) totalLivePass;
+      final double failRatio = totalLiveFail == 0 ? 0d
+          : (double) failOnStmt[i] / (double) totalLiveFail;
+      if ((failRatio == 0d) && (passRatio == 0d)) {
+        suspiciousness[i] = -1d;
+        confidence[i] = -1d;
+      } else {
+        suspiciousness[i] = failRatio / (failRatio + passRatio);
+        confidence[i] = Math.max(failRatio, passRatio);
+      }
+    }
+    return suspiciousness;
+  }
+
+  @Benchmark
+  public double[] fusedSuspiciousness() {
+    TarantulaFaultLocalizer.scoreCounts(0, numStmts,
+        totalLivePass, totalLiveFail, passOnStmt, failOnStmt,
+        suspiciousness, confidence);
+    return suspiciousness;
+  }
+
+}
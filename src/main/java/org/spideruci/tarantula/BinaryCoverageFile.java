@@ -0,0 +1,202 @@
+package org.spideruci.tarantula;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A binary alternative to the text cov_matrix format of
+ * {@link TarantulaData#writeExternal}, which can be memory-mapped. All values
+ * are little-endian:
+ *
+ * <pre>
+ * int    magic ("TRNT"), version, numTests, numStmts, numFaults, flags
+ * long[] F -- [test], packed
+ * long[] L -- [test], packed
+ * long[] C -- [stmt], packed
+ * int[]  S -- [stmt], only if flags has HAS_S, padded to a multiple of 8 bytes
+ * long[] M -- [test][stmt], one packed row per test case
+ * </pre>
+ *
+ * Packed vectors are laid out as described in {@link BitVectors}. F, L, C and S
+ * are decoded onto the heap when the file is mapped; M is read in place by a
+ * {@link MappedCoverageMatrix}.
+ */
+public final class BinaryCoverageFile {
+
+  static final int MAGIC = 0x544e5254; // "TRNT", little-endian
+  static final int VERSION = 1;
+  static final int HAS_S = 1;
+
+  private static final int HEADER_BYTES = 24;
+  private static final int BUFFER_BYTES = 1 << 16;
+
+  private BinaryCoverageFile() {
+  }
+
+  public static void write(TarantulaData data, File file) throws IOException {
+    final int numTests = data.getOrigNumTests();
+    final int numStmts = data.getNumStmts();
+    final TarantulaMatrix M = data.getCoverage();
+    final int[] S = data.getS();
+
+    RandomAccessFile out = new RandomAccessFile(file, "rw");
+    try {
+      out.setLength(0L);
+      FileChannel channel = out.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES)
+          .order(ByteOrder.LITTLE_ENDIAN);
+
+      buffer.putInt(MAGIC).putInt(VERSION);
+      buffer.putInt(numTests).putInt(numStmts).putInt(data.getNumFaults());
+      buffer.putInt(S == null ? 0 : HAS_S);
+
+      putWords(channel, buffer, BitVectors.pack(data.getF()), numTests);
+      putWords(channel, buffer, BitVectors.pack(data.getL()), numTests);
+      putWords(channel, buffer, BitVectors.pack(data.getC()), numStmts);
+      if (S != null) {
+        for (int j = 0; j < numStmts; j += 1) {
+          ensureRemaining(channel, buffer, 4);
+          buffer.putInt(S[j]);
+        }
+        if (numStmts % 2 != 0) {
+          ensureRemaining(channel, buffer, 4);
+          buffer.putInt(0);
+        }
+      }
+
+      long[] row = new long[BitVectors.wordCount(numStmts)];
+      for (int i = 0; i < numTests; i += 1) {
+        M.getRow(i, row);
+        putWords(channel, buffer, row, numStmts);
+      }
+      flush(channel, buffer);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Puts the words of a packed vector of {@code numBits} bits.
+   */
+  private static void putWords(FileChannel channel, ByteBuffer buffer,
+      long[] words, int numBits) throws IOException {
+    final int count = BitVectors.wordCount(numBits);
+    for (int w = 0; w < count; w += 1) {
+      ensureRemaining(channel, buffer, 8);
+      buffer.putLong(words[w]);
+    }
+  }
+
+  private static void ensureRemaining(FileChannel channel, ByteBuffer buffer,
+      int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush(channel, buffer);
+    }
+  }
+
+  private static void flush(FileChannel channel, ByteBuffer buffer)
+      throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Maps the file read-only. The mapping stays valid after this method
+   * returns, until the returned data is garbage collected.
+   * @return the data, with M backed by the mapped file
+   */
+  public static TarantulaData map(File file) throws IOException {
+    RandomAccessFile in = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = in.getChannel();
+      ByteBuffer header = channel.map(MapMode.READ_ONLY, 0L, HEADER_BYTES)
+          .order(ByteOrder.LITTLE_ENDIAN);
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Not a binary coverage matrix: " + file);
+      }
+      final int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException(
+            "Unsupported binary coverage matrix version: " + version);
+      }
+      final int numTests = header.getInt();
+      final int numStmts = header.getInt();
+      header.getInt(); // numFaults, recounted from S
+      final int flags = header.getInt();
+
+      final int testWords = BitVectors.wordCount(numTests);
+      final int stmtWords = BitVectors.wordCount(numStmts);
+      long vectorBytes = 8L * (2 * testWords + stmtWords);
+      if ((flags & HAS_S) != 0) {
+        vectorBytes += 8L * ((numStmts + 1) / 2);
+      }
+      ByteBuffer vectors = channel.map(
+          MapMode.READ_ONLY, HEADER_BYTES, vectorBytes)
+          .order(ByteOrder.LITTLE_ENDIAN);
+
+      long[] F = getWords(vectors, testWords);
+      long[] L = getWords(vectors, testWords);
+      long[] C = getWords(vectors, stmtWords);
+      int[] S = null;
+      if ((flags & HAS_S) != 0) {
+        S = new int[numStmts];
+        vectors.asIntBuffer().get(S);
+      }
+
+      if (channel.size() < HEADER_BYTES + vectorBytes
+          + 8L * stmtWords * numTests) {
+        throw new IOException("Truncated binary coverage matrix: " + file);
+      }
+      MappedCoverageMatrix M = mapRows(channel,
+          HEADER_BYTES + vectorBytes, numTests, numStmts);
+
+      TarantulaData data = new TarantulaData(M);
+      data.setF(BitVectors.unpack(F, numTests));
+      data.setL(BitVectors.unpack(L, numTests));
+      data.setC(BitVectors.unpack(C, numStmts));
+      if (S != null) {
+        data.setS(S);
+      }
+      data.calculateOrigFailAndPass();
+      return data;
+    } finally {
+      in.close();
+    }
+  }
+
+  private static MappedCoverageMatrix mapRows(FileChannel channel,
+      long position, int numTests, int numStmts) throws IOException {
+    final int wordsPerRow = BitVectors.wordCount(numStmts);
+    final int rowsPerSegment = wordsPerRow == 0 ? Math.max(1, numTests)
+        : Math.max(1, (Integer.MAX_VALUE / 8) / wordsPerRow);
+    final int numSegments = (numTests + rowsPerSegment - 1) / rowsPerSegment;
+
+    LongBuffer[] segments = new LongBuffer[numSegments];
+    for (int k = 0; k < numSegments; k += 1) {
+      final int rows = Math.min(rowsPerSegment, numTests - k * rowsPerSegment);
+      final long bytes = 8L * wordsPerRow * rows;
+      segments[k] = channel.map(MapMode.READ_ONLY, position, bytes)
+          .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+      position += bytes;
+    }
+    return new MappedCoverageMatrix(
+        numTests, numStmts, rowsPerSegment, segments);
+  }
+
+  private static long[] getWords(ByteBuffer buffer, int count) {
+    long[] words = new long[count];
+    buffer.asLongBuffer().get(words);
+    buffer.position(buffer.position() + 8 * count);
+    return words;
+  }
+
+}
@@ -0,0 +1,132 @@
+package org.spideruci.tarantula;
+
+/**
+ * Coverage matrix M -- [test][stmt] with every test case's coverage vector
+ * packed 64 statements to a long word (see {@link BitVectors}), so whole words
+ * can be tested and masked at once.
+ */
+public class BitPackedCoverageMatrix implements TarantulaMatrix {
+
+  private final int numTests;
+  private final int numStmts;
+  private final long[][] rows;
+
+  public BitPackedCoverageMatrix(int numTests, int numStmts) {
+    this.numTests = numTests;
+    this.numStmts = numStmts;
+    this.rows = new long[numTests][BitVectors.wordCount(numStmts)];
+  }
+
+  /**
+   * Wraps packed rows of {@link BitVectors#wordCount}(numStmts) words each;
+   * the matrix takes them over as its own storage.
+   */
+  BitPackedCoverageMatrix(int numStmts, long[][] rows) {
+    this.numTests = rows.length;
+    this.numStmts = numStmts;
+    this.rows = rows;
+  }
+
+  public static BitPackedCoverageMatrix fromBooleanMatrix(boolean[][] M) {
+    final int numTests = M.length;
+    final int numStmts = numTests == 0 ? 0 : M[0].length;
+    BitPackedCoverageMatrix matrix =
+        new BitPackedCoverageMatrix(numTests, numStmts);
+    for (int i = 0; i < numTests; i += 1) {
+      BitVectors.pack(M[i], matrix.rows[i]);
+    }
+    return matrix;
+  }
+
+  public void set(int test, int stmt, boolean covered) {
+    BitVectors.set(rows[test], stmt, covered);
+  }
+
+  /**
+   * @return the packed coverage vector of test case {@code test}; the array is
+   * the matrix's own storage, not a copy.
+   */
+  public long[] getRow(int test) {
+    return rows[test];
+  }
+
+  @Override
+  public void getRow(int test, long[] row) {
+    System.arraycopy(rows[test], 0, row, 0, rows[test].length);
+  }
+
+  @Override
+  public int getTestCount() {
+    return numTests;
+  }
+
+  @Override
+  public int getStmtCount() {
+    return numStmts;
+  }
+
+  @Override
+  public boolean isCovered(int test, int stmt) {
+    return BitVectors.get(rows[test], stmt);
+  }
+
+  @Override
+  public void findTestsWithoutCoverage(int fromTest, int toTest, boolean[] B) {
+    for (int i = fromTest; i < toTest; i += 1) {
+      B[i] = BitVectors.isEmpty(rows[i]);
+    }
+  }
+
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    countTestsOnStmts(fromTest, toTest, B, L, C, BitVectors.pack(C), F,
+        passOnStmt, failOnStmt);
+  }
+
+  /**
+   * Reads only the packed C.
+   */
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, long[] coverable, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    for (int i = fromTest; i < toTest; i += 1) {
+      if (B[i]) continue;
+      if (!L[i]) continue;
+      int[] onStmt = F[i] ? failOnStmt : passOnStmt;
+      long[] row = rows[i];
+      for (int w = 0; w < row.length; w += 1) {
+        long word = row[w] & coverable[w];
+        while (word != 0L) {
+          onStmt[(w << 6) + Long.numberOfTrailingZeros(word)]++;
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean[][] toBooleanMatrix() {
+    boolean[][] M = new boolean[numTests][numStmts];
+    for (int i = 0; i < numTests; i += 1) {
+      for (int j = 0; j < numStmts; j += 1) {
+        M[i][j] = isCovered(i, j);
+      }
+    }
+    return M;
+  }
+
+  @Override
+  public CoverageLayout getLayout() {
+    return CoverageLayout.BIT_PACKED;
+  }
+
+  @Override
+  public long getFootprint() {
+    return getLayout().estimateFootprint(
+        getTestCount(), getStmtCount(), 0L);
+  }
+
+}
@@ -0,0 +1,90 @@
+package org.spideruci.tarantula;
+
+/**
+ * Helpers for the bit vectors of the packed coverage layouts: bit i of a
+ * vector lives in bit (i % 64) of word (i / 64), and the unused high bits of
+ * the last word are always zero.
+ */
+final class BitVectors {
+
+  private BitVectors() {
+  }
+
+  static int wordCount(int numBits) {
+    return (numBits + 63) >>> 6;
+  }
+
+  static long[] pack(boolean[] vector) {
+    long[] words = new long[wordCount(vector.length)];
+    pack(vector, words);
+    return words;
+  }
+
+  static void pack(boolean[] vector, long[] words) {
+    for (int i = 0; i < vector.length; i += 1) {
+      if (vector[i]) {
+        words[i >>> 6] |= 1L << i;
+      }
+    }
+  }
+
+  static boolean[] unpack(long[] words, int numBits) {
+    boolean[] vector = new boolean[numBits];
+    for (int i = 0; i < numBits; i += 1) {
+      vector[i] = get(words, i);
+    }
+    return vector;
+  }
+
+  /**
+   * @return the ascending indices of the set bits
+   */
+  static int[] indices(long[] words) {
+    int count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    int[] indices = new int[count];
+    count = 0;
+    for (int w = 0; w < words.length; w += 1) {
+      long word = words[w];
+      while (word != 0L) {
+        indices[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+      }
+    }
+    return indices;
+  }
+
+  static boolean get(long[] words, int i) {
+    return (words[i >>> 6] & (1L << i)) != 0;
+  }
+
+  static void set(long[] words, int i, boolean value) {
+    if (value) {
+      words[i >>> 6] |= 1L << i;
+    } else {
+      words[i >>> 6] &= ~(1L << i);
+    }
+  }
+
+  static boolean isEmpty(long[] words) {
+    for (long word : words) {
+      if (word != 0L) return false;
+    }
+    return true;
+  }
+
+  static int countAnd(long[] a, long[] b) {
+    return countAnd(a, b, 0, a.length);
+  }
+
+  static int countAnd(long[] a, long[] b, int fromWord, int toWord) {
+    int count = 0;
+    for (int w = fromWord; w < toWord; w += 1) {
+      count += Long.bitCount(a[w] & b[w]);
+    }
+    return count;
+  }
+
+}
@@ -0,0 +1,95 @@
+package org.spideruci.tarantula;
+
+import java.util.Arrays;
+
+/**
+ * The original dense layout: one boolean per cell of M -- [test][stmt].
+ */
+public class BooleanCoverageMatrix implements TarantulaMatrix {
+
+  private final boolean[][] M;
+
+  public BooleanCoverageMatrix(boolean[][] M) {
+    this.M = M;
+  }
+
+  @Override
+  public int getTestCount() {
+    return M.length;
+  }
+
+  @Override
+  public int getStmtCount() {
+    return M.length == 0 ? 0 : M[0].length;
+  }
+
+  @Override
+  public boolean isCovered(int test, int stmt) {
+    return M[test][stmt];
+  }
+
+  @Override
+  public void getRow(int test, long[] row) {
+    Arrays.fill(row, 0L);
+    BitVectors.pack(M[test], row);
+  }
+
+  @Override
+  public void findTestsWithoutCoverage(int fromTest, int toTest, boolean[] B) {
+    for (int i = fromTest; i < toTest; i++) {
+      B[i] = true;
+      boolean[] row = M[i];
+      for (int j = 0; j < row.length; j++) {
+        if (!row[j]) continue;
+        // there is a statement covered for this test case
+        B[i] = false;
+        break; // no need to look further at this test case
+      }
+    }
+  }
+
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    final int numStmts = passOnStmt.length;
+    for (int i = fromTest; i < toTest; i++) {
+      if (B[i]) continue; // if this is a dead test case (seg fault)
+      if (!L[i]) continue; // if this test case is not live
+      boolean[] row = M[i];
+      int[] onStmt = F[i] ? failOnStmt : passOnStmt;
+      for (int j = 0; j < numStmts; j++) {
+        if (!C[j]) continue;
+        if (!row[j]) continue;
+        onStmt[j]++;
+      }
+    }
+  }
+
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, long[] coverable, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    countTestsOnStmts(fromTest, toTest, B, L, C, F, passOnStmt, failOnStmt);
+  }
+
+  /**
+   * @return the backing matrix itself, not a copy.
+   */
+  @Override
+  public boolean[][] toBooleanMatrix() {
+    return M;
+  }
+
+  @Override
+  public CoverageLayout getLayout() {
+    return CoverageLayout.DENSE;
+  }
+
+  @Override
+  public long getFootprint() {
+    return getLayout().estimateFootprint(
+        getTestCount(), getStmtCount(), 0L);
+  }
+
+}
@@ -0,0 +1,97 @@
+package org.spideruci.tarantula;
+
+import java.io.IOException;
+
+/**
+ * A {@link TarantulaFaultLocalizer} that consults a {@link ResultCache} before
+ * computing. The key is a {@link ContentHash} of M, F, L and C, and of B if
+ * the caller supplies it, so a hit costs a hash of the packed rows of M
+ * instead of counting them, and any change to the inputs is a miss. A B that
+ * is not supplied follows from M, so it is left out of the key; it is still
+ * found and set on the data on a hit, in one more pass over the rows, so the
+ * data is left as the given localizer would leave it. Misses are computed by
+ * the given localizer and stored. A cache that cannot be read or written is
+ * reported and treated as a miss; the results are the localizer's either way.
+ *
+ * Only {@link #compute(TarantulaData, boolean)} is cached. The other
+ * computations are delegated to the given localizer as they are, and bypass
+ * the cache.
+ */
+public class CachedFaultLocalizer extends TarantulaFaultLocalizer {
+
+  private final TarantulaFaultLocalizer localizer;
+  private final ResultCache cache;
+
+  public CachedFaultLocalizer(TarantulaFaultLocalizer localizer,
+      ResultCache cache) {
+    this.localizer = localizer;
+    this.cache = cache;
+  }
+
+  @Override
+  public double[][] compute(TarantulaData data, boolean isBCalculated) {
+    final String key = getKey(data, isBCalculated);
+    try {
+      double[][] cached = cache.get(key);
+      if (cached != null) {
+        if (!isBCalculated) {
+          data.setB(localizer.calculateBadTestCoverage(data.getCoverage()));
+        }
+        return cached;
+      }
+    } catch (IOException e) {
+      System.err.println("Warning: result cache not read: " + e.getMessage());
+    }
+
+    double[][] suspiciousnessAndConfidence =
+        localizer.compute(data, isBCalculated);
+    try {
+      cache.put(key, suspiciousnessAndConfidence);
+    } catch (IOException e) {
+      System.err.println("Warning: result cache not written: " + e.getMessage());
+    }
+    return suspiciousnessAndConfidence;
+  }
+
+  /**
+   * @param isBSupplied whether the key covers the caller's B as well
+   */
+  static String getKey(TarantulaData data, boolean isBSupplied) {
+    ContentHash hash = new ContentHash()
+        .add(data.getCoverage())
+        .add(data.getF())
+        .add(data.getL())
+        .add(data.getC());
+    if (isBSupplied) {
+      hash.add(1L).add(data.getB());
+    }
+    return hash.toHex();
+  }
+
+  /**
+   * Not cached.
+   */
+  @Override
+  public double[][] compute(WeightedTarantulaData data) {
+    return localizer.compute(data);
+  }
+
+  /**
+   * Not cached.
+   */
+  @Override
+  public double[][] computeScores(TarantulaData data, boolean isBCalculated,
+      SuspiciousnessFormula... formulas) {
+    return localizer.computeScores(data, isBCalculated, formulas);
+  }
+
+  /**
+   * Not cached.
+   */
+  @Override
+  public double[][][] computeSourceFiles(TarantulaData data,
+      boolean isBCalculated, int... files) {
+    return localizer.computeSourceFiles(data, isBCalculated, files);
+  }
+
+}
@@ -0,0 +1,88 @@
+package org.spideruci.tarantula;
+
+/**
+ * A fast, non-cryptographic 128-bit hash of long words: two differently
+ * seeded multiply-rotate lanes, finished with the MurmurHash3 64-bit mixer.
+ * Coverage data is not adversarial, so it only has to make accidental
+ * collisions unlikely, and it hashes the bit-packed words of M rather than
+ * its cells.
+ */
+final class ContentHash {
+
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  private long h1 = 0x9e3779b97f4a7c15L;
+  private long h2 = 0xc2b2ae3d27d4eb4fL;
+  private long length;
+
+  ContentHash add(long word) {
+    h1 = Long.rotateLeft(h1 ^ (word * C1), 31) * C2;
+    h2 = Long.rotateLeft(h2 ^ (word * C2), 27) * C1 + h1;
+    length += 1;
+    return this;
+  }
+
+  ContentHash add(long[] words) {
+    for (long word : words) {
+      add(word);
+    }
+    return this;
+  }
+
+  /**
+   * Adds the length of the vector and its packed bits.
+   */
+  ContentHash add(boolean[] vector) {
+    if (vector == null) {
+      return add(-1L);
+    }
+    add(vector.length);
+    return add(BitVectors.pack(vector));
+  }
+
+  /**
+   * Adds the dimensions of M and the packed rows of every test case, so that
+   * every layout of the same matrix hashes alike.
+   */
+  ContentHash add(TarantulaMatrix M) {
+    add(M.getTestCount());
+    add(M.getStmtCount());
+    long[] row = new long[BitVectors.wordCount(M.getStmtCount())];
+    for (int i = 0; i < M.getTestCount(); i += 1) {
+      M.getRow(i, row);
+      add(row);
+    }
+    return this;
+  }
+
+  /**
+   * @return the 128 bits of the hash as 32 hex digits.
+   */
+  String toHex() {
+    long a = h1 ^ length;
+    long b = h2 ^ length;
+    a += b;
+    b += a;
+    a = mix(a);
+    b = mix(b);
+    a += b;
+    b += a;
+    return toHex(a) + toHex(b);
+  }
+
+  private static long mix(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+  private static String toHex(long value) {
+    String hex = Long.toHexString(value);
+    return "0000000000000000".substring(hex.length()) + hex;
+  }
+
+}
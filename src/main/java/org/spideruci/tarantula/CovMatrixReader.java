@@ -0,0 +1,463 @@
+package org.spideruci.tarantula;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming reader of the text cov_matrix format written by
+ * {@link TarantulaData#writeExternal} (record types 0 to 8). Bytes are decoded
+ * straight from a fixed-size buffer into the coverage matrix and the F, L, S
+ * and C vectors, so apart from the matrix itself memory stays bounded no matter
+ * how large the file is. The stream is not closed.
+ */
+public class CovMatrixReader {
+
+  private static final int BUFFER_BYTES = 1 << 16;
+
+  /**
+   * Receives the coverage vectors in place of M, see
+   * {@link CovMatrixReader#readInto(TarantulaData, RowHandler)}.
+   */
+  interface RowHandler {
+    /**
+     * @return the packed row to decode the vector of the test case into, or
+     * null to skip the vector.
+     */
+    long[] getRow(int test, int numStmts) throws IOException;
+  }
+
+  private final InputStream in;
+  private final byte[] buffer = new byte[BUFFER_BYTES];
+  private int position;
+  private int limit;
+
+  private int numOrigTests;
+  private int numStmts;
+  private boolean[][] denseRows;
+  private BitPackedCoverageMatrix packedRows;
+  private boolean[] F;
+  private boolean[] L;
+  private int[] S;
+  private boolean[] C;
+  private final SourceFileRanges sourceFiles = new SourceFileRanges();
+
+  // the source files to keep, and their ranges before and after selection
+  private String[] keptNames;
+  private SourceFileRanges keptFiles;
+  private int[] keptFrom;
+  private int[] keptTo;
+  private int[] keptOffset;
+  private long[] keptRow;
+
+  /**
+   * @param in the uncompressed cov_matrix stream; wrap cov_matrix.gz in a
+   * {@link java.util.zip.GZIPInputStream}.
+   */
+  public CovMatrixReader(InputStream in) {
+    this.in = in;
+  }
+
+  /**
+   * @param layout {@link CoverageLayout#DENSE} or
+   * {@link CoverageLayout#BIT_PACKED}, which rows are decoded into directly.
+   */
+  public TarantulaData read(CoverageLayout layout) throws IOException {
+    TarantulaData data = new TarantulaData();
+    readInto(data, layout);
+    return data;
+  }
+
+  /**
+   * Keeps only the statements of the named source files, in the order of
+   * their record-2 entries. Every coverage vector is decoded straight into the
+   * kept statements, so M, C and S never have the other statements.
+   * @throws IOException if a source file is not in the stream
+   */
+  public TarantulaData readSourceFiles(CoverageLayout layout, String... names)
+      throws IOException {
+    keptNames = names;
+    return read(layout);
+  }
+
+  void readInto(TarantulaData data, CoverageLayout layout) throws IOException {
+    if (layout != CoverageLayout.DENSE
+        && layout != CoverageLayout.BIT_PACKED) {
+      throw new IllegalArgumentException(
+          "Rows can only be decoded into DENSE or BIT_PACKED: " + layout);
+    }
+    readInto(data, layout, null);
+  }
+
+  /**
+   * Hands every coverage vector to the handler instead of building M, so data
+   * gets F, L, S and C but no coverage.
+   */
+  void readInto(TarantulaData data, RowHandler rows) throws IOException {
+    readInto(data, null, rows);
+  }
+
+  /**
+   * @return the number of test cases of record 1 of the stream read.
+   */
+  int getTestCount() {
+    return numOrigTests;
+  }
+
+  /**
+   * @return the number of statements of record 2 of the stream read.
+   */
+  int getStmtCount() {
+    return numStmts;
+  }
+
+  private void readInto(TarantulaData data, CoverageLayout layout,
+      RowHandler rows) throws IOException {
+    int numFaults = 0;
+    int recordID;
+    while ((recordID = readRecordID()) != -1) {
+      switch (recordID) {
+      case 0:
+        break;
+      case 1:
+        numOrigTests = readInt();
+        readInt(); // number of source files
+        numFaults = readInt();
+        break;
+      case 2:
+        final String sourceFile = readToken();
+        final int fileStmts = readInt();
+        sourceFiles.add(sourceFile, fileStmts);
+        numStmts += fileStmts;
+        break;
+      case 3:
+        final int test = readIndex(numOrigTests, "test case");
+        if (rows == null) {
+          readCoverageVector(test, layout);
+        } else {
+          long[] row = rows.getRow(test, numStmts);
+          if (row != null) {
+            skipSpaces();
+            readPackedVector(row);
+          }
+        }
+        break;
+      case 4:
+        F = readBoolVector(new boolean[numOrigTests]);
+        break;
+      case 5:
+        L = readBoolVector(new boolean[numOrigTests]);
+        break;
+      case 6:
+        S = readFaultNums(new int[numStmts]);
+        break;
+      case 7:
+        C = readBoolVector(new boolean[numStmts]);
+        break;
+      case 8:
+        if (S == null) {
+          S = new int[numStmts];
+        }
+        final int stmt = readIndex(numStmts, "statement");
+        S[stmt] = readInt();
+        break;
+      default:
+        System.err.println(
+            "Warning: Don't know record type, ignoring: " + recordID);
+        break;
+      }
+      skipLine();
+    }
+
+    if (rows == null) {
+      ensureKeptFiles();
+      ensureRows(layout);
+      if (layout == CoverageLayout.DENSE) {
+        for (int i = 0; i < numOrigTests; i += 1) {
+          if (denseRows[i] == null) {
+            denseRows[i] = new boolean[getRowLength()];
+          }
+        }
+        data.setCoverage(new BooleanCoverageMatrix(denseRows));
+      } else {
+        data.setCoverage(packedRows);
+      }
+    }
+
+    if (keptFiles != null) {
+      if (C != null) {
+        C = keep(C);
+      }
+      if (S != null) {
+        S = keep(S);
+      }
+      data.setSourceFiles(keptFiles);
+    } else if (sourceFiles.getFileCount() != 0) {
+      data.setSourceFiles(sourceFiles);
+    }
+
+    if (F != null) {
+      data.setF(F);
+      data.calculateOrigFailAndPass();
+    }
+    if (L != null) {
+      data.setL(L);
+    }
+    if (S != null) {
+      data.setS(S);
+    }
+    data.setNumFaults(numFaults);
+    if (C != null) {
+      data.setC(C);
+    }
+  }
+
+  private boolean fill() throws IOException {
+    if (position < limit) return true;
+    limit = in.read(buffer, 0, BUFFER_BYTES);
+    position = 0;
+    if (limit <= 0) {
+      limit = 0;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return the record id of the next non-empty line, or -1 at the end of the
+   * stream.
+   */
+  private int readRecordID() throws IOException {
+    while (fill()) {
+      final byte b = buffer[position];
+      if (b == '\n' || b == ' ') {
+        position += 1;
+        continue;
+      }
+      return readInt();
+    }
+    return -1;
+  }
+
+  private void skipSpaces() throws IOException {
+    while (fill() && buffer[position] == ' ') {
+      position += 1;
+    }
+  }
+
+  private int readInt() throws IOException {
+    skipSpaces();
+    int value = 0;
+    int digits = 0;
+    while (fill()) {
+      final int digit = buffer[position] - '0';
+      if (digit < 0 || digit > 9) break;
+      value = value * 10 + digit;
+      digits += 1;
+      position += 1;
+    }
+    if (digits == 0) {
+      throw new IOException("Malformed cov_matrix: number expected");
+    }
+    return value;
+  }
+
+  /**
+   * @return a number that is below {@code bound}, the size of what it indexes.
+   */
+  private int readIndex(int bound, String name) throws IOException {
+    final int index = readInt();
+    if (index >= bound) {
+      throw new IOException("Malformed cov_matrix: " + name + " " + index
+          + " out of " + bound);
+    }
+    return index;
+  }
+
+  private String readToken() throws IOException {
+    skipSpaces();
+    ByteArrayOutputStream token = new ByteArrayOutputStream();
+    while (fill()) {
+      final byte b = buffer[position];
+      if (b == ' ' || b == '\n') break;
+      token.write(b);
+      position += 1;
+    }
+    return token.toString("UTF-8");
+  }
+
+  private void skipLine() throws IOException {
+    while (fill()) {
+      if (buffer[position++] == '\n') break;
+    }
+  }
+
+  private void ensureRows(CoverageLayout layout) {
+    if (layout == CoverageLayout.DENSE) {
+      if (denseRows == null) {
+        denseRows = new boolean[numOrigTests][];
+      }
+    } else if (packedRows == null) {
+      packedRows = new BitPackedCoverageMatrix(numOrigTests, getRowLength());
+    }
+  }
+
+  /**
+   * @return the number of statements kept of every vector.
+   */
+  private int getRowLength() {
+    return keptFiles == null ? numStmts : keptFiles.getStmtCount();
+  }
+
+  /**
+   * Resolves the names of the source files to keep, once all of the record-2
+   * entries are read.
+   */
+  private void ensureKeptFiles() throws IOException {
+    if (keptNames == null || keptFiles != null) return;
+
+    int[] files = new int[keptNames.length];
+    for (int f = 0; f < files.length; f += 1) {
+      files[f] = sourceFiles.indexOf(keptNames[f]);
+      if (files[f] == -1) {
+        throw new IOException("No source file in cov_matrix: " + keptNames[f]);
+      }
+    }
+    Arrays.sort(files);
+    int numFiles = 0;
+    for (int f = 0; f < files.length; f += 1) {
+      if (f == 0 || files[f] != files[f - 1]) {
+        files[numFiles++] = files[f];
+      }
+    }
+    files = Arrays.copyOf(files, numFiles);
+
+    keptFiles = sourceFiles.select(files);
+    keptFrom = new int[numFiles];
+    keptTo = new int[numFiles];
+    keptOffset = new int[numFiles];
+    for (int f = 0; f < numFiles; f += 1) {
+      keptFrom[f] = sourceFiles.getFromStmt(files[f]);
+      keptTo[f] = sourceFiles.getToStmt(files[f]);
+      keptOffset[f] = keptFiles.getFromStmt(f);
+    }
+  }
+
+  private boolean[] keep(boolean[] vector) {
+    boolean[] kept = new boolean[getRowLength()];
+    for (int f = 0; f < keptFrom.length; f += 1) {
+      System.arraycopy(vector, keptFrom[f], kept, keptOffset[f],
+          keptTo[f] - keptFrom[f]);
+    }
+    return kept;
+  }
+
+  private int[] keep(int[] vector) {
+    int[] kept = new int[getRowLength()];
+    for (int f = 0; f < keptFrom.length; f += 1) {
+      System.arraycopy(vector, keptFrom[f], kept, keptOffset[f],
+          keptTo[f] - keptFrom[f]);
+    }
+    return kept;
+  }
+
+  private void readCoverageVector(int test, CoverageLayout layout)
+      throws IOException {
+    ensureKeptFiles();
+    ensureRows(layout);
+    skipSpaces();
+    if (keptFiles != null) {
+      if (layout == CoverageLayout.DENSE) {
+        if (keptRow == null) {
+          keptRow = new long[BitVectors.wordCount(getRowLength())];
+        } else {
+          Arrays.fill(keptRow, 0L);
+        }
+        readKeptVector(keptRow);
+        denseRows[test] = BitVectors.unpack(keptRow, getRowLength());
+      } else {
+        readKeptVector(packedRows.getRow(test));
+      }
+      return;
+    }
+    if (layout == CoverageLayout.DENSE) {
+      denseRows[test] = readBoolVector(new boolean[numStmts]);
+      return;
+    }
+
+    readPackedVector(packedRows.getRow(test));
+  }
+
+  private void readPackedVector(long[] row) throws IOException {
+    int j = 0;
+    while (fill()) {
+      final byte b = buffer[position];
+      if (b == '\n' || b == ' ') break;
+      if (j == numStmts) throw vectorTooLong();
+      if (b == '1') {
+        row[j >>> 6] |= 1L << j;
+      }
+      j += 1;
+      position += 1;
+    }
+  }
+
+  /**
+   * Decodes only the statements of the kept source files, renumbered.
+   */
+  private void readKeptVector(long[] row) throws IOException {
+    int j = 0;
+    int f = 0;
+    while (fill()) {
+      final byte b = buffer[position];
+      if (b == '\n' || b == ' ') break;
+      if (j == numStmts) throw vectorTooLong();
+      while (f < keptTo.length && j >= keptTo[f]) {
+        f += 1;
+      }
+      if (b == '1' && f < keptTo.length && j >= keptFrom[f]) {
+        final int k = keptOffset[f] + j - keptFrom[f];
+        row[k >>> 6] |= 1L << k;
+      }
+      j += 1;
+      position += 1;
+    }
+  }
+
+  private boolean[] readBoolVector(boolean[] vector) throws IOException {
+    skipSpaces();
+    int i = 0;
+    while (fill()) {
+      final byte b = buffer[position];
+      if (b == '\n' || b == ' ') break;
+      if (i == vector.length) throw vectorTooLong();
+      vector[i++] = b == '1';
+      position += 1;
+    }
+    return vector;
+  }
+
+  private int[] readFaultNums(int[] faultNums) throws IOException {
+    skipSpaces();
+    int i = 0;
+    while (fill()) {
+      final byte b = buffer[position];
+      if (b == '\n' || b == ' ') break;
+      if (i == faultNums.length) throw vectorTooLong();
+      final int faultNum = Character.digit(b, 16);
+      if (faultNum == -1) {
+        throw new IOException("Malformed cov_matrix: fault number expected");
+      }
+      faultNums[i++] = faultNum;
+      position += 1;
+    }
+    return faultNums;
+  }
+
+  private static IOException vectorTooLong() {
+    return new IOException(
+        "Malformed cov_matrix: vector longer than its declared size");
+  }
+
+}
@@ -0,0 +1,212 @@
+package org.spideruci.tarantula;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Writes the text cov_matrix format read by {@link CovMatrixReader}. Records
+ * are encoded byte by byte into one reusable buffer, and whole buffers are
+ * handed to the stream, so a matrix costs a write per 64 KB instead of a write
+ * and an allocation per cell. The stream is flushed, not closed.
+ *
+ * Fault numbers are written as the single hex digits of record type 6 while
+ * they fit, so such files stay readable by older readers; beyond fault 15,
+ * every faulty statement gets a record of type 8 instead.
+ *
+ * Every source file of {@link TarantulaData#getSourceFiles} gets a record of
+ * type 2, in the order of its statement range.
+ */
+public class CovMatrixWriter {
+
+  private static final int BUFFER_BYTES = 1 << 16;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final byte[] HEADER = (
+      "0 Coverage matrix file\n"
+      + "0 Record descriptions:\n"
+      + "0      0 comment\n"
+      + "0      1 <number of test cases> <number of sourcefiles> <number of bugs>\n"
+      + "0      2 <source file name> <number of statements>\n"
+      + "0      3 <test case num (0-based)> <coverage vector> (1=covered, 0=uncovered)\n"
+      + "0      4 <vector of pass/fail info (1=failed, 0=passed)\n"
+      + "0      5 <vector of liveness of test cases (1=live, 0=dead)\n"
+      + "0      6 <vector of fault numbers (0=nonfaulty, 1,2,3...F=fault numbers up to 15; higher fault numbers go in records of type 8)\n"
+      + "0      7 <vector of coverability of statements (1=coverable, 0=uncoverable)\n"
+      ).getBytes(Charset.forName("US-ASCII"));
+
+  private static final byte[] SPARSE_FAULTS_HEADER = (
+      "0      8 <statement num (0-based)> <fault number>, one per faulty statement (when there are more than 15 faults)\n"
+      ).getBytes(Charset.forName("US-ASCII"));
+
+  /**
+   * Fault numbers up to this one fit the single hex digit per statement of
+   * record type 6.
+   */
+  static final int MAX_HEX_FAULT = 15;
+
+  private static final byte[] HEX_DIGITS = {
+    '0', '1', '2', '3', '4', '5', '6', '7',
+    '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+  };
+
+  private final OutputStream out;
+  private final byte[] buffer = new byte[BUFFER_BYTES];
+  private int position;
+
+  public CovMatrixWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  public void write(TarantulaData data) throws IOException {
+    final int numOrigTests = data.getOrigNumTests();
+    final int numStmts = data.getNumStmts();
+    final TarantulaMatrix M = data.getCoverage();
+    final int[] S = data.getS() == null ? new int[numStmts] : data.getS();
+    final boolean isHexFaults = getMaxFault(S) <= MAX_HEX_FAULT;
+    final SourceFileRanges sourceFiles = data.getSourceFiles();
+    checkSourceFiles(sourceFiles, numStmts);
+
+    // write a comment that describes the file format
+    putBytes(HEADER);
+    if (!isHexFaults) {
+      putBytes(SPARSE_FAULTS_HEADER);
+    }
+    putByte('0');
+    putByte('\n');
+
+    // write the number test cases, number of source files, number of bugs
+    putRecordID(1);
+    putInt(numOrigTests);
+    putByte(' ');
+    putInt(sourceFiles.getFileCount());
+    putByte(' ');
+    putInt(data.getNumFaults());
+    putByte('\n');
+
+    // write every source file's name and number of statements
+    for (int f = 0; f < sourceFiles.getFileCount(); f += 1) {
+      putRecordID(2);
+      putBytes(sourceFiles.getName(f).getBytes(UTF_8));
+      putByte(' ');
+      putInt(sourceFiles.getStmtCount(f));
+      putByte('\n');
+    }
+
+    // write the coverage matrix
+    long[] row = new long[BitVectors.wordCount(numStmts)];
+    for (int i = 0; i < numOrigTests; i += 1) {
+      M.getRow(i, row);
+      putRecordID(3);
+      putInt(i);
+      putByte(' ');
+      for (int j = 0; j < numStmts; j += 1) {
+        putByte((row[j >>> 6] & (1L << j)) != 0 ? '1' : '0');
+      }
+      putByte('\n');
+    }
+
+    putRecordID(4);
+    putBoolVector(data.getF());
+    putRecordID(5);
+    putBoolVector(data.getL());
+    if (isHexFaults) {
+      putRecordID(6);
+      putHexFaultNums(S);
+    } else {
+      putSparseFaultNums(S);
+    }
+    putRecordID(7);
+    putBoolVector(data.getC());
+
+    flush();
+  }
+
+  private static void checkSourceFiles(SourceFileRanges sourceFiles,
+      int numStmts) throws IOException {
+    if (sourceFiles.getStmtCount() != numStmts) {
+      throw new IOException("Source files have " + sourceFiles.getStmtCount()
+          + " statements, the matrix " + numStmts);
+    }
+    for (int f = 0; f < sourceFiles.getFileCount(); f += 1) {
+      final String name = sourceFiles.getName(f);
+      if (name.isEmpty() || name.indexOf(' ') != -1
+          || name.indexOf('\n') != -1) {
+        throw new IOException("Source file name is not one token: " + name);
+      }
+    }
+  }
+
+  private void flush() throws IOException {
+    out.write(buffer, 0, position);
+    position = 0;
+    out.flush();
+  }
+
+  private void putByte(int b) throws IOException {
+    if (position == BUFFER_BYTES) {
+      out.write(buffer, 0, position);
+      position = 0;
+    }
+    buffer[position++] = (byte) b;
+  }
+
+  private void putBytes(byte[] bytes) throws IOException {
+    for (byte b : bytes) {
+      putByte(b);
+    }
+  }
+
+  private void putRecordID(int recordID) throws IOException {
+    putByte('0' + recordID);
+    putByte(' ');
+  }
+
+  private void putInt(int value) throws IOException {
+    int divisor = 1;
+    while (value / divisor >= 10) {
+      divisor *= 10;
+    }
+    for (; divisor > 0; divisor /= 10) {
+      putByte('0' + (value / divisor) % 10);
+    }
+  }
+
+  private void putBoolVector(boolean[] vector) throws IOException {
+    for (int i = 0; i < vector.length; i += 1) {
+      putByte(vector[i] ? '1' : '0');
+    }
+    putByte('\n');
+  }
+
+  private static int getMaxFault(int[] S) throws IOException {
+    int maxFault = 0;
+    for (int i = 0; i < S.length; i += 1) {
+      if (S[i] < 0) {
+        throw new IOException("Bug number out of range: " + S[i]);
+      }
+      maxFault = Math.max(maxFault, S[i]);
+    }
+    return maxFault;
+  }
+
+  private void putHexFaultNums(int[] S) throws IOException {
+    for (int i = 0; i < S.length; i += 1) {
+      putByte(HEX_DIGITS[S[i]]);
+    }
+    putByte('\n');
+  }
+
+  private void putSparseFaultNums(int[] S) throws IOException {
+    for (int i = 0; i < S.length; i += 1) {
+      if (S[i] == 0) continue;
+      putRecordID(8);
+      putInt(i);
+      putByte(' ');
+      putInt(S[i]);
+      putByte('\n');
+    }
+  }
+
+}
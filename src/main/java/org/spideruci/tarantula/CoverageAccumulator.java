@@ -0,0 +1,162 @@
+package org.spideruci.tarantula;
+
+import java.util.Arrays;
+
+/**
+ * Computes suspiciousness and confidence from a stream of per-test coverage
+ * records, without ever holding the coverage matrix M. Every record is folded
+ * into p(s) and f(s) as it arrives, so memory is proportional to the number
+ * of statements, not to tests x statements.
+ *
+ * A test case that covers no statement is treated as bad coverage, and a test
+ * case that is not live is only counted in {@link #getTestCount()}, exactly
+ * as the B and L arrays are used by {@link TarantulaFaultLocalizer}. The
+ * statement space grows to cover the largest statement seen.
+ */
+public class CoverageAccumulator {
+
+  private int numStmts;
+  private int[] passOnStmt;
+  private int[] failOnStmt;
+  private int numTests;
+  private int numBadTests;
+  private int totalLivePass;
+  private int totalLiveFail;
+
+  public CoverageAccumulator() {
+    this(0);
+  }
+
+  public CoverageAccumulator(int numStmts) {
+    this.numStmts = numStmts;
+    this.passOnStmt = new int[Math.max(16, numStmts)];
+    this.failOnStmt = new int[passOnStmt.length];
+  }
+
+  /**
+   * @param coveredStmts statements covered by the test case
+   * @param failed whether the test case failed
+   */
+  public void addTest(int[] coveredStmts, boolean failed) {
+    addTest(coveredStmts, coveredStmts.length, failed, true);
+  }
+
+  /**
+   * @param coveredStmts statements covered by the test case, in its first
+   * {@code count} elements
+   * @param failed whether the test case failed
+   * @param live whether the test case is live
+   */
+  public void addTest(
+      int[] coveredStmts, int count, boolean failed, boolean live) {
+    numTests += 1;
+    if (count == 0) {
+      numBadTests += 1;
+      return;
+    }
+    if (!live) return;
+
+    int maxStmt = -1;
+    for (int k = 0; k < count; k += 1) {
+      maxStmt = Math.max(maxStmt, coveredStmts[k]);
+    }
+    ensureStmtCount(maxStmt + 1);
+
+    int[] onStmt = countLiveTest(failed);
+    for (int k = 0; k < count; k += 1) {
+      onStmt[coveredStmts[k]]++;
+    }
+  }
+
+  /**
+   * @param coverage coverage vector of the test case -- [stmt]
+   * @param failed whether the test case failed
+   */
+  public void addTest(boolean[] coverage, boolean failed) {
+    numTests += 1;
+    ensureStmtCount(coverage.length);
+    int[] onStmt = failed ? failOnStmt : passOnStmt;
+    boolean isBad = true;
+    for (int j = 0; j < coverage.length; j += 1) {
+      if (!coverage[j]) continue;
+      onStmt[j]++;
+      isBad = false;
+    }
+
+    if (isBad) {
+      numBadTests += 1;
+    } else {
+      countLiveTest(failed);
+    }
+  }
+
+  private int[] countLiveTest(boolean failed) {
+    if (failed) {
+      totalLiveFail += 1;
+      return failOnStmt;
+    }
+    totalLivePass += 1;
+    return passOnStmt;
+  }
+
+  private void ensureStmtCount(int count) {
+    if (count > passOnStmt.length) {
+      int length = Math.max(count, passOnStmt.length * 2);
+      passOnStmt = Arrays.copyOf(passOnStmt, length);
+      failOnStmt = Arrays.copyOf(failOnStmt, length);
+    }
+    numStmts = Math.max(numStmts, count);
+  }
+
+  public int getStmtCount() {
+    return numStmts;
+  }
+
+  public int getTestCount() {
+    return numTests;
+  }
+
+  public int getBadTestCount() {
+    return numBadTests;
+  }
+
+  public IntPassFailPair getTotalLiveTests() {
+    return new IntPassFailPair(totalLivePass, totalLiveFail);
+  }
+
+  /**
+   * @return p(s) and f(s) of every statement, ignoring coverability.
+   */
+  public IntArrayPassFailPair getTestsOnStmtProfiles() {
+    return new IntArrayPassFailPair(
+        Arrays.copyOf(passOnStmt, numStmts),
+        Arrays.copyOf(failOnStmt, numStmts));
+  }
+
+  /**
+   * @param C coverable statements -- [stmt]; null if all statements are
+   * coverable.
+   * @return suspiciousness and confidence -- [stmt], indexed by
+   * {@link TarantulaFaultLocalizer#SUSPICIOUSNESS} and
+   * {@link TarantulaFaultLocalizer#CONFIDENCE}.
+   */
+  public double[][] computeSuspiciousnessAndConfidence(boolean[] C) {
+    final int length = C == null ? numStmts : C.length;
+    int[] pass = Arrays.copyOf(passOnStmt, length);
+    int[] fail = Arrays.copyOf(failOnStmt, length);
+    if (C != null) {
+      for (int j = 0; j < length; j += 1) {
+        if (C[j]) continue;
+        pass[j] = 0;
+        fail[j] = 0;
+      }
+    }
+
+    double[] suspiciousness = new double[length];
+    double[] confidence = new double[length];
+    TarantulaFaultLocalizer.scoreCounts(0, length,
+        totalLivePass, totalLiveFail, pass, fail, suspiciousness, confidence);
+    return new double[][] { suspiciousness, confidence };
+  }
+
+}
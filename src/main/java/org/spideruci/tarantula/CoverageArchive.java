@@ -0,0 +1,474 @@
+package org.spideruci.tarantula;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A block-compressed coverage matrix file. The rows of M are bit-packed as in
+ * {@link BitPackedCoverageMatrix} and deflated in independent blocks of
+ * {@code testsPerBlock} test cases, so that blocks can be compressed and
+ * inflated in parallel, and a single test case's coverage vector can be read
+ * by inflating only its own block. All values are little-endian:
+ *
+ * <pre>
+ * int    magic ("TRNA"), version, numTests, numStmts, testsPerBlock, flags
+ * long[] block offsets -- [block + 1], the last one is the end of the file
+ * long[] F, L -- [test], packed
+ * long[] C -- [stmt], packed
+ * int[]  S -- [stmt], only if flags has HAS_S, padded to a multiple of 8 bytes
+ * byte[] deflated blocks
+ * </pre>
+ */
+public class CoverageArchive implements Closeable {
+
+  static final int MAGIC = 0x414e5254; // "TRNA", little-endian
+  static final int VERSION = 1;
+  static final int HAS_S = 1;
+
+  public static final int DEFAULT_TESTS_PER_BLOCK = 256;
+
+  private static final int HEADER_BYTES = 24;
+
+  private final RandomAccessFile file;
+  private final FileChannel channel;
+  private final int numTests;
+  private final int numStmts;
+  private final int testsPerBlock;
+  private final long[] blockOffsets;
+  private final boolean[] F;
+  private final boolean[] L;
+  private final boolean[] C;
+  private final int[] S;
+
+  private CoverageArchive(RandomAccessFile file, int numTests, int numStmts,
+      int testsPerBlock, long[] blockOffsets,
+      boolean[] F, boolean[] L, boolean[] C, int[] S) {
+    this.file = file;
+    this.channel = file.getChannel();
+    this.numTests = numTests;
+    this.numStmts = numStmts;
+    this.testsPerBlock = testsPerBlock;
+    this.blockOffsets = blockOffsets;
+    this.F = F;
+    this.L = L;
+    this.C = C;
+    this.S = S;
+  }
+
+  /**
+   * Writes the archive with {@link #DEFAULT_TESTS_PER_BLOCK}, compressing on
+   * one thread per available processor.
+   */
+  public static void write(TarantulaData data, File file) throws IOException {
+    ExecutorService executor = newExecutor();
+    try {
+      write(data, file, DEFAULT_TESTS_PER_BLOCK, executor);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public static void write(TarantulaData data, File file,
+      final int testsPerBlock, ExecutorService executor) throws IOException {
+    if (testsPerBlock <= 0) {
+      throw new IllegalArgumentException("testsPerBlock: " + testsPerBlock);
+    }
+    final TarantulaMatrix M = data.getCoverage();
+    final int numTests = data.getOrigNumTests();
+    final int numStmts = data.getNumStmts();
+    final int numBlocks = blockCount(numTests, testsPerBlock);
+    final int[] S = data.getS();
+
+    ByteBuffer head = ByteBuffer.allocate(
+        HEADER_BYTES + 8 * (numBlocks + 1) + vectorBytes(numTests, numStmts, S != null))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    head.putInt(MAGIC).putInt(VERSION);
+    head.putInt(numTests).putInt(numStmts).putInt(testsPerBlock);
+    head.putInt(S == null ? 0 : HAS_S);
+    final int indexPosition = head.position();
+    head.position(indexPosition + 8 * (numBlocks + 1));
+    putWords(head, BitVectors.pack(data.getF()));
+    putWords(head, BitVectors.pack(data.getL()));
+    putWords(head, BitVectors.pack(data.getC()));
+    if (S != null) {
+      for (int j = 0; j < numStmts; j += 1) {
+        head.putInt(S[j]);
+      }
+      if (numStmts % 2 != 0) {
+        head.putInt(0);
+      }
+    }
+
+    RandomAccessFile out = new RandomAccessFile(file, "rw");
+    try {
+      out.setLength(0L);
+      FileChannel channel = out.getChannel();
+      long position = head.capacity();
+      channel.position(position);
+
+      // keep a bounded window of blocks in flight, written back in order
+      final int window = 4 * Runtime.getRuntime().availableProcessors();
+      List<Future<byte[]>> blocks = new ArrayList<Future<byte[]>>();
+      boolean isWritten = false;
+      try {
+        for (int b = 0; b < numBlocks; b += 1) {
+          while (blocks.size() < Math.min(numBlocks, b + window)) {
+            final int block = blocks.size();
+            blocks.add(executor.submit(new Callable<byte[]>() {
+              @Override
+              public byte[] call() {
+                return deflateBlock(M, block, testsPerBlock);
+              }
+            }));
+          }
+
+          byte[] compressed = get(blocks.get(b));
+          blocks.set(b, null);
+          head.putLong(indexPosition + 8 * b, position);
+          ByteBuffer bytes = ByteBuffer.wrap(compressed);
+          while (bytes.hasRemaining()) {
+            channel.write(bytes);
+          }
+          position += compressed.length;
+        }
+        isWritten = true;
+      } finally {
+        if (!isWritten) {
+          // stop deflating the blocks that will never be written
+          cancel(blocks);
+        }
+      }
+      head.putLong(indexPosition + 8 * numBlocks, position);
+
+      head.clear();
+      channel.position(0L);
+      while (head.hasRemaining()) {
+        channel.write(head);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  private static byte[] deflateBlock(
+      TarantulaMatrix M, int block, int testsPerBlock) {
+    final int fromTest = block * testsPerBlock;
+    final int toTest = Math.min(M.getTestCount(), fromTest + testsPerBlock);
+    final int wordsPerRow = BitVectors.wordCount(M.getStmtCount());
+
+    ByteBuffer raw = ByteBuffer.allocate(8 * wordsPerRow * (toTest - fromTest))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    long[] row = new long[wordsPerRow];
+    for (int i = fromTest; i < toTest; i += 1) {
+      M.getRow(i, row);
+      putWords(raw, row);
+    }
+
+    Deflater deflater = new Deflater();
+    try {
+      deflater.setInput(raw.array());
+      deflater.finish();
+      byte[] compressed = new byte[Math.max(64, raw.capacity() / 4)];
+      int length = 0;
+      while (!deflater.finished()) {
+        if (length == compressed.length) {
+          compressed = Arrays.copyOf(compressed, length * 2);
+        }
+        length += deflater.deflate(compressed, length, compressed.length - length);
+      }
+      return Arrays.copyOf(compressed, length);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Reads the header, the block index and the F, L, C and S vectors; the
+   * blocks are read on demand.
+   */
+  public static CoverageArchive open(File path) throws IOException {
+    RandomAccessFile file = new RandomAccessFile(path, "r");
+    try {
+      FileChannel channel = file.getChannel();
+      ByteBuffer header = read(channel, 0L, HEADER_BYTES);
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Not a coverage archive: " + path);
+      }
+      final int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported coverage archive version: " + version);
+      }
+      final int numTests = header.getInt();
+      final int numStmts = header.getInt();
+      final int testsPerBlock = header.getInt();
+      final boolean hasS = (header.getInt() & HAS_S) != 0;
+
+      final int numBlocks = blockCount(numTests, testsPerBlock);
+      ByteBuffer rest = read(channel, HEADER_BYTES,
+          8 * (numBlocks + 1) + vectorBytes(numTests, numStmts, hasS));
+      long[] blockOffsets = getWords(rest, numBlocks + 1);
+      boolean[] F = BitVectors.unpack(
+          getWords(rest, BitVectors.wordCount(numTests)), numTests);
+      boolean[] L = BitVectors.unpack(
+          getWords(rest, BitVectors.wordCount(numTests)), numTests);
+      boolean[] C = BitVectors.unpack(
+          getWords(rest, BitVectors.wordCount(numStmts)), numStmts);
+      int[] S = null;
+      if (hasS) {
+        S = new int[numStmts];
+        rest.asIntBuffer().get(S);
+      }
+      return new CoverageArchive(file, numTests, numStmts, testsPerBlock,
+          blockOffsets, F, L, C, S);
+    } catch (IOException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  public int getTestCount() {
+    return numTests;
+  }
+
+  public int getStmtCount() {
+    return numStmts;
+  }
+
+  int getTestsPerBlock() {
+    return testsPerBlock;
+  }
+
+  /**
+   * @return F, L and C; the arrays are the archive's own, not copies.
+   */
+  boolean[] getF() {
+    return F;
+  }
+
+  boolean[] getL() {
+    return L;
+  }
+
+  boolean[] getC() {
+    return C;
+  }
+
+  /**
+   * Inflates only the block that holds the test case.
+   * @return coverage vector of test case {@code test} -- [stmt]
+   */
+  public boolean[] getCoverage(int test) throws IOException {
+    if (test < 0 || test >= numTests) {
+      throw new IndexOutOfBoundsException("test: " + test);
+    }
+    final int block = test / testsPerBlock;
+    ByteBuffer raw = inflateBlock(block);
+    final int wordsPerRow = BitVectors.wordCount(numStmts);
+    raw.position(8 * wordsPerRow * (test - block * testsPerBlock));
+    return BitVectors.unpack(getWords(raw, wordsPerRow), numStmts);
+  }
+
+  /**
+   * Inflates every block, one thread per available processor.
+   * @return the data, with M in the bit-packed layout
+   */
+  public TarantulaData read() throws IOException {
+    ExecutorService executor = newExecutor();
+    try {
+      return read(executor);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public TarantulaData read(ExecutorService executor) throws IOException {
+    final BitPackedCoverageMatrix M =
+        new BitPackedCoverageMatrix(numTests, numStmts);
+    final int numBlocks = blockOffsets.length - 1;
+    List<Future<Void>> blocks = new ArrayList<Future<Void>>(numBlocks);
+    for (int b = 0; b < numBlocks; b += 1) {
+      final int block = b;
+      blocks.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws IOException {
+          readBlock(block, M, block * testsPerBlock);
+          return null;
+        }
+      }));
+    }
+    boolean isRead = false;
+    try {
+      for (Future<Void> block : blocks) {
+        get(block);
+      }
+      isRead = true;
+    } finally {
+      if (!isRead) {
+        cancel(blocks);
+      }
+    }
+
+    TarantulaData data = new TarantulaData(M);
+    data.setF(F.clone());
+    data.setL(L.clone());
+    data.setC(C.clone());
+    if (S != null) {
+      data.setS(S.clone());
+    }
+    data.calculateOrigFailAndPass();
+    return data;
+  }
+
+  /**
+   * Inflates the rows of the block into rows [offset, offset + the number of
+   * test cases in the block) of M.
+   */
+  void readBlock(int block, BitPackedCoverageMatrix M, int offset)
+      throws IOException {
+    LongBuffer rows = inflateBlock(block).asLongBuffer();
+    final int fromTest = block * testsPerBlock;
+    final int toTest = Math.min(numTests, fromTest + testsPerBlock);
+    for (int i = fromTest; i < toTest; i += 1) {
+      rows.get(M.getRow(offset + i - fromTest));
+    }
+  }
+
+  private ByteBuffer inflateBlock(int block) throws IOException {
+    final long from = blockOffsets[block];
+    final int length = (int) (blockOffsets[block + 1] - from);
+    ByteBuffer compressed = read(channel, from, length);
+
+    final int fromTest = block * testsPerBlock;
+    final int rows = Math.min(numTests, fromTest + testsPerBlock) - fromTest;
+    byte[] raw = new byte[8 * BitVectors.wordCount(numStmts) * rows];
+    inflate(compressed.array(), raw, block);
+    return ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Inflates the block until raw is full. A block that ends early, or that
+   * asks for a preset dictionary, which the archive never uses, is corrupt.
+   */
+  static void inflate(byte[] compressed, byte[] raw, int block)
+      throws IOException {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+      int inflated = 0;
+      while (inflated < raw.length) {
+        final int n = inflater.inflate(raw, inflated, raw.length - inflated);
+        if (n == 0) {
+          if (inflater.needsDictionary()) {
+            throw new IOException("Corrupt block " + block
+                + ": preset dictionary");
+          }
+          if (inflater.finished() || inflater.needsInput()) {
+            throw new IOException("Truncated block " + block);
+          }
+        }
+        inflated += n;
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt block " + block, e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+  private static ExecutorService newExecutor() {
+    return Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  private static int blockCount(int numTests, int testsPerBlock) {
+    return (numTests + testsPerBlock - 1) / testsPerBlock;
+  }
+
+  private static int vectorBytes(int numTests, int numStmts, boolean hasS) {
+    int bytes = 8 * (2 * BitVectors.wordCount(numTests)
+        + BitVectors.wordCount(numStmts));
+    if (hasS) {
+      bytes += 8 * ((numStmts + 1) / 2);
+    }
+    return bytes;
+  }
+
+  /**
+   * Reads with positional reads only, so that blocks can be read
+   * concurrently.
+   */
+  private static ByteBuffer read(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Truncated coverage archive");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private static void putWords(ByteBuffer buffer, long[] words) {
+    for (long word : words) {
+      buffer.putLong(word);
+    }
+  }
+
+  private static long[] getWords(ByteBuffer buffer, int count) {
+    long[] words = new long[count];
+    buffer.asLongBuffer().get(words);
+    buffer.position(buffer.position() + 8 * count);
+    return words;
+  }
+
+  /**
+   * Cancels the blocks still in flight; tasks that have started are left to
+   * finish.
+   */
+  private static void cancel(List<? extends Future<?>> blocks) {
+    for (Future<?> block : blocks) {
+      if (block != null) {
+        block.cancel(false);
+      }
+    }
+  }
+
+  private static <T> T get(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+}
@@ -0,0 +1,62 @@
+package org.spideruci.tarantula;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Tells the coverage file formats apart by their leading bytes: the
+ * little-endian int magic of {@link BinaryCoverageFile} and
+ * {@link CoverageArchive}, and the two-byte gzip magic of a gzipped
+ * cov_matrix.
+ */
+final class CoverageFiles {
+
+  private static final int BUFFER_BYTES = 1 << 16;
+
+  private CoverageFiles() {
+  }
+
+  /**
+   * @return the first four bytes of the file, little-endian, or 0.
+   */
+  static int readMagic(File file) throws IOException {
+    RandomAccessFile in = new RandomAccessFile(file, "r");
+    try {
+      return in.length() < 4 ? 0 : Integer.reverseBytes(in.readInt());
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * @param magic as returned by {@link #readMagic}
+   */
+  static boolean isGzip(int magic) {
+    return (magic & 0xffff) == GZIPInputStream.GZIP_MAGIC;
+  }
+
+  /**
+   * @return a buffered stream of the text cov_matrix, gunzipped if the file
+   * is gzipped.
+   */
+  static InputStream openCovMatrix(File file) throws IOException {
+    final boolean isGzip = isGzip(readMagic(file));
+    InputStream in = new BufferedInputStream(
+        new FileInputStream(file), BUFFER_BYTES);
+    if (!isGzip) {
+      return in;
+    }
+    try {
+      return new GZIPInputStream(in, BUFFER_BYTES);
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+}
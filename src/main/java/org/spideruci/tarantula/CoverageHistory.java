@@ -0,0 +1,512 @@
+package org.spideruci.tarantula;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The coverage of consecutive builds of one program, stored as a base version
+ * and one delta per later version. A delta holds only the packed rows of the
+ * test cases whose coverage changed or that are new, and the entries of F, L
+ * and C that changed. Test case numbers are stable: a version may add test
+ * cases, but not drop them, as a test case that is gone is made dead instead.
+ * A new test case is taken to have passed and to be live, unless its delta
+ * says otherwise.
+ *
+ * Rows are never modified once stored, so versions share them. A version is
+ * reconstructed by picking its rows from the base and the deltas up to it
+ * and copying every one into a new M, in O(tests * words) plus the size of
+ * those deltas; {@link #feed} applies the deltas to an
+ * {@link IncrementalFaultLocalizer} instead, so a build is localized without
+ * scanning M again. All values of the file are little-endian:
+ *
+ * <pre>
+ * int    magic ("TRNV"), version, numStmts, numVersions
+ * base:  int    numTests, padding
+ *        long[] F -- [test], L -- [test], C -- [stmt], packed
+ *        long[] M -- [test][stmt], one packed row per test case
+ * delta: int    numTests, numRows, then the count of each of
+ *               setF, clearedF, setL, clearedL, setC, clearedC
+ *        int[]  tests of the rows, then the entries of each list,
+ *               padded to a multiple of 8 bytes
+ *        long[] rows, packed
+ * </pre>
+ */
+public class CoverageHistory {
+
+  static final int MAGIC = 0x564e5254; // "TRNV", little-endian
+  static final int VERSION = 1;
+
+  private static final int BUFFER_BYTES = 1 << 16;
+  private static final int SET = 0;
+  private static final int CLEARED = 1;
+
+  private final int numStmts;
+  private final long[][] baseRows;
+  private final boolean[] baseF;
+  private final boolean[] baseL;
+  private final boolean[] baseC;
+  private final List<Delta> deltas = new ArrayList<Delta>();
+
+  // the latest version, to diff the next one against
+  private long[][] rows;
+  private boolean[] F;
+  private boolean[] L;
+  private boolean[] C;
+
+  private static final class Delta {
+    final int numTests;
+    final int[] tests;
+    final long[][] rows;
+    // [SET|CLEARED][k]
+    final int[][] F;
+    final int[][] L;
+    final int[][] C;
+
+    Delta(int numTests, int[] tests, long[][] rows,
+        int[][] F, int[][] L, int[][] C) {
+      this.numTests = numTests;
+      this.tests = tests;
+      this.rows = rows;
+      this.F = F;
+      this.L = L;
+      this.C = C;
+    }
+  }
+
+  /**
+   * @param base version 0, with its F, L and C set
+   */
+  public CoverageHistory(TarantulaData base) {
+    this(base.getNumStmts(), getRows(base.getCoverage()),
+        Arrays.copyOf(base.getF(), base.getOrigNumTests()),
+        Arrays.copyOf(base.getL(), base.getOrigNumTests()),
+        Arrays.copyOf(base.getC(), base.getNumStmts()));
+  }
+
+  private CoverageHistory(int numStmts, long[][] rows,
+      boolean[] F, boolean[] L, boolean[] C) {
+    this.numStmts = numStmts;
+    this.baseRows = rows;
+    this.baseF = F;
+    this.baseL = L;
+    this.baseC = C;
+    this.rows = rows;
+    this.F = F;
+    this.L = L;
+    this.C = C;
+  }
+
+  private static long[][] getRows(TarantulaMatrix M) {
+    final int numTests = M.getTestCount();
+    final int words = BitVectors.wordCount(M.getStmtCount());
+    long[][] rows = new long[numTests][];
+    for (int i = 0; i < numTests; i += 1) {
+      rows[i] = new long[words];
+      M.getRow(i, rows[i]);
+    }
+    return rows;
+  }
+
+  /**
+   * Stores the next version as a delta against the latest one.
+   * @param data the coverage of the next build, with its F, L and C set, and
+   * at least as many test cases as the latest version
+   * @return the number of the new version
+   */
+  public int commit(TarantulaData data) {
+    final int numTests = data.getOrigNumTests();
+    final int lastNumTests = rows.length;
+    if (data.getNumStmts() != numStmts) {
+      throw new IllegalArgumentException("Expected " + numStmts
+          + " statements, got " + data.getNumStmts());
+    }
+    if (numTests < lastNumTests) {
+      throw new IllegalArgumentException("Expected at least " + lastNumTests
+          + " test cases, got " + numTests);
+    }
+
+    TarantulaMatrix M = data.getCoverage();
+    long[][] nextRows = Arrays.copyOf(rows, numTests);
+    int[] tests = new int[16];
+    int numChanged = 0;
+    long[] row = new long[BitVectors.wordCount(numStmts)];
+    for (int i = 0; i < numTests; i += 1) {
+      M.getRow(i, row);
+      if (i < lastNumTests && Arrays.equals(row, rows[i])) continue;
+      if (numChanged == tests.length) {
+        tests = Arrays.copyOf(tests, 2 * numChanged);
+      }
+      tests[numChanged++] = i;
+      nextRows[i] = row.clone();
+    }
+    tests = Arrays.copyOf(tests, numChanged);
+    long[][] changedRows = new long[numChanged][];
+    for (int k = 0; k < numChanged; k += 1) {
+      changedRows[k] = nextRows[tests[k]];
+    }
+
+    boolean[] nextF = Arrays.copyOf(data.getF(), numTests);
+    boolean[] nextL = Arrays.copyOf(data.getL(), numTests);
+    boolean[] nextC = Arrays.copyOf(data.getC(), numStmts);
+    deltas.add(new Delta(numTests, tests, changedRows,
+        diff(grow(F, numTests, false), nextF),
+        diff(grow(L, numTests, true), nextL),
+        diff(C, nextC)));
+    rows = nextRows;
+    F = nextF;
+    L = nextL;
+    C = nextC;
+    return deltas.size();
+  }
+
+  private static boolean[] grow(boolean[] vector, int length, boolean value) {
+    boolean[] grown = Arrays.copyOf(vector, length);
+    Arrays.fill(grown, vector.length, length, value);
+    return grown;
+  }
+
+  /**
+   * @return the entries that became true and those that became false --
+   * [SET|CLEARED][k]
+   */
+  private static int[][] diff(boolean[] from, boolean[] to) {
+    int numSet = 0;
+    int numCleared = 0;
+    for (int i = 0; i < to.length; i += 1) {
+      if (from[i] == to[i]) continue;
+      if (to[i]) {
+        numSet += 1;
+      } else {
+        numCleared += 1;
+      }
+    }
+    int[][] changes = { new int[numSet], new int[numCleared] };
+    numSet = 0;
+    numCleared = 0;
+    for (int i = 0; i < to.length; i += 1) {
+      if (from[i] == to[i]) continue;
+      if (to[i]) {
+        changes[SET][numSet++] = i;
+      } else {
+        changes[CLEARED][numCleared++] = i;
+      }
+    }
+    return changes;
+  }
+
+  private static void apply(int[][] changes, boolean[] vector) {
+    for (int i : changes[SET]) {
+      vector[i] = true;
+    }
+    for (int i : changes[CLEARED]) {
+      vector[i] = false;
+    }
+  }
+
+  /**
+   * @return the number of versions, counting the base.
+   */
+  public int getVersionCount() {
+    return deltas.size() + 1;
+  }
+
+  public int getStmtCount() {
+    return numStmts;
+  }
+
+  public int getTestCount(int version) {
+    checkVersion(version);
+    return version == 0 ? baseRows.length : deltas.get(version - 1).numTests;
+  }
+
+  /**
+   * @return the number of rows stored by the delta of the version, or by the
+   * base for version 0.
+   */
+  public int getChangedTestCount(int version) {
+    checkVersion(version);
+    return version == 0 ? baseRows.length : deltas.get(version - 1).tests.length;
+  }
+
+  /**
+   * @return a copy of the coverage of the version, with a bit-packed M.
+   * Every row of the version is copied, so this takes O(tests * words).
+   */
+  public TarantulaData reconstruct(int version) {
+    checkVersion(version);
+    final int numTests = getTestCount(version);
+    long[][] versionRows = Arrays.copyOf(baseRows, numTests);
+    boolean[] versionF = grow(baseF, numTests, false);
+    boolean[] versionL = grow(baseL, numTests, true);
+    boolean[] versionC = baseC.clone();
+    for (int v = 0; v < version; v += 1) {
+      Delta delta = deltas.get(v);
+      for (int k = 0; k < delta.tests.length; k += 1) {
+        versionRows[delta.tests[k]] = delta.rows[k];
+      }
+      apply(delta.F, versionF);
+      apply(delta.L, versionL);
+      apply(delta.C, versionC);
+    }
+
+    BitPackedCoverageMatrix M = new BitPackedCoverageMatrix(numTests, numStmts);
+    for (int i = 0; i < numTests; i += 1) {
+      System.arraycopy(versionRows[i], 0, M.getRow(i), 0, versionRows[i].length);
+    }
+    TarantulaData data = new TarantulaData(M);
+    data.setF(versionF);
+    data.setL(versionL);
+    data.setC(versionC);
+    data.calculateOrigFailAndPass();
+    return data;
+  }
+
+  /**
+   * Applies the deltas of versions (from, to] to a localizer that holds
+   * version {@code from}, e.g. one created on {@code reconstruct(from)}, in
+   * O(coverage of the changed rows), plus a lookup in every row per changed
+   * entry of C.
+   */
+  public void feed(int from, int to, IncrementalFaultLocalizer localizer) {
+    checkVersion(from);
+    checkVersion(to);
+    if (from > to) {
+      throw new IllegalArgumentException("from " + from + " > to " + to);
+    }
+    if (localizer.getTestCount() != getTestCount(from)
+        || localizer.getStmtCount() != numStmts) {
+      throw new IllegalArgumentException(
+          "The localizer does not hold version " + from);
+    }
+
+    for (int v = from; v < to; v += 1) {
+      Delta delta = deltas.get(v);
+      for (int k = 0; k < delta.tests.length; k += 1) {
+        final int test = delta.tests[k];
+        int[] covered = BitVectors.indices(delta.rows[k]);
+        if (test < localizer.getTestCount()) {
+          localizer.updateTest(test, covered);
+        } else {
+          localizer.addTest(covered, false);
+        }
+      }
+      for (int i : delta.F[SET]) {
+        localizer.setFailed(i, true);
+      }
+      for (int i : delta.F[CLEARED]) {
+        localizer.setFailed(i, false);
+      }
+      for (int i : delta.L[SET]) {
+        localizer.setLive(i, true);
+      }
+      for (int i : delta.L[CLEARED]) {
+        localizer.setLive(i, false);
+      }
+      for (int j : delta.C[SET]) {
+        localizer.setC(j, true);
+      }
+      for (int j : delta.C[CLEARED]) {
+        localizer.setC(j, false);
+      }
+    }
+  }
+
+  private void checkVersion(int version) {
+    if (version < 0 || version > deltas.size()) {
+      throw new IndexOutOfBoundsException("version: " + version);
+    }
+  }
+
+  public void write(File file) throws IOException {
+    RandomAccessFile out = new RandomAccessFile(file, "rw");
+    try {
+      out.setLength(0L);
+      FileChannel channel = out.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES)
+          .order(ByteOrder.LITTLE_ENDIAN);
+
+      buffer.putInt(MAGIC).putInt(VERSION);
+      buffer.putInt(numStmts).putInt(getVersionCount());
+      buffer.putInt(baseRows.length).putInt(0);
+      putWords(channel, buffer, BitVectors.pack(baseF));
+      putWords(channel, buffer, BitVectors.pack(baseL));
+      putWords(channel, buffer, BitVectors.pack(baseC));
+      for (long[] row : baseRows) {
+        putWords(channel, buffer, row);
+      }
+
+      for (Delta delta : deltas) {
+        int[][] lists = {
+            delta.tests, delta.F[SET], delta.F[CLEARED],
+            delta.L[SET], delta.L[CLEARED], delta.C[SET], delta.C[CLEARED] };
+        ensureRemaining(channel, buffer, 32);
+        buffer.putInt(delta.numTests);
+        int numInts = 0;
+        for (int[] list : lists) {
+          buffer.putInt(list.length);
+          numInts += list.length;
+        }
+        for (int[] list : lists) {
+          for (int i : list) {
+            ensureRemaining(channel, buffer, 4);
+            buffer.putInt(i);
+          }
+        }
+        if (numInts % 2 != 0) {
+          ensureRemaining(channel, buffer, 4);
+          buffer.putInt(0);
+        }
+        for (long[] row : delta.rows) {
+          putWords(channel, buffer, row);
+        }
+      }
+      flush(channel, buffer);
+    } finally {
+      out.close();
+    }
+  }
+
+  public static CoverageHistory read(File file) throws IOException {
+    RandomAccessFile in = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = in.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES)
+          .order(ByteOrder.LITTLE_ENDIAN);
+      buffer.flip();
+
+      fill(channel, buffer, 24);
+      if (buffer.getInt() != MAGIC) {
+        throw new IOException("Not a coverage history: " + file);
+      }
+      final int version = buffer.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported coverage history version: "
+            + version);
+      }
+      final int numStmts = buffer.getInt();
+      final int numVersions = buffer.getInt();
+      final int numTests = buffer.getInt();
+      buffer.getInt();
+
+      final int testWords = BitVectors.wordCount(numTests);
+      final int stmtWords = BitVectors.wordCount(numStmts);
+      boolean[] F = BitVectors.unpack(
+          getWords(channel, buffer, testWords), numTests);
+      boolean[] L = BitVectors.unpack(
+          getWords(channel, buffer, testWords), numTests);
+      boolean[] C = BitVectors.unpack(
+          getWords(channel, buffer, stmtWords), numStmts);
+      long[][] rows = new long[numTests][];
+      for (int i = 0; i < numTests; i += 1) {
+        rows[i] = getWords(channel, buffer, stmtWords);
+      }
+      CoverageHistory history = new CoverageHistory(numStmts, rows, F, L, C);
+
+      for (int v = 1; v < numVersions; v += 1) {
+        fill(channel, buffer, 32);
+        final int deltaNumTests = buffer.getInt();
+        int[][] lists = new int[7][];
+        int numInts = 0;
+        for (int n = 0; n < lists.length; n += 1) {
+          lists[n] = new int[buffer.getInt()];
+          numInts += lists[n].length;
+        }
+        for (int[] list : lists) {
+          for (int k = 0; k < list.length; k += 1) {
+            fill(channel, buffer, 4);
+            list[k] = buffer.getInt();
+          }
+        }
+        if (numInts % 2 != 0) {
+          fill(channel, buffer, 4);
+          buffer.getInt();
+        }
+        long[][] deltaRows = new long[lists[0].length][];
+        for (int k = 0; k < deltaRows.length; k += 1) {
+          deltaRows[k] = getWords(channel, buffer, stmtWords);
+        }
+        history.append(new Delta(deltaNumTests, lists[0], deltaRows,
+            new int[][] { lists[1], lists[2] },
+            new int[][] { lists[3], lists[4] },
+            new int[][] { lists[5], lists[6] }));
+      }
+      return history;
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Appends a delta that was read back, and moves the latest version to it.
+   */
+  private void append(Delta delta) {
+    rows = Arrays.copyOf(rows, delta.numTests);
+    F = grow(F, delta.numTests, false);
+    L = grow(L, delta.numTests, true);
+    C = C.clone();
+    for (int k = 0; k < delta.tests.length; k += 1) {
+      rows[delta.tests[k]] = delta.rows[k];
+    }
+    apply(delta.F, F);
+    apply(delta.L, L);
+    apply(delta.C, C);
+    deltas.add(delta);
+  }
+
+  private static void putWords(FileChannel channel, ByteBuffer buffer,
+      long[] words) throws IOException {
+    for (long word : words) {
+      ensureRemaining(channel, buffer, 8);
+      buffer.putLong(word);
+    }
+  }
+
+  private static void ensureRemaining(FileChannel channel, ByteBuffer buffer,
+      int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush(channel, buffer);
+    }
+  }
+
+  private static void flush(FileChannel channel, ByteBuffer buffer)
+      throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private static long[] getWords(FileChannel channel, ByteBuffer buffer,
+      int count) throws IOException {
+    long[] words = new long[count];
+    for (int w = 0; w < count; w += 1) {
+      fill(channel, buffer, 8);
+      words[w] = buffer.getLong();
+    }
+    return words;
+  }
+
+  /**
+   * Reads on until at least {@code bytes} bytes remain in the buffer.
+   */
+  private static void fill(FileChannel channel, ByteBuffer buffer, int bytes)
+      throws IOException {
+    if (buffer.remaining() >= bytes) return;
+    buffer.compact();
+    while (buffer.position() < bytes) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Truncated coverage history");
+      }
+    }
+    buffer.flip();
+  }
+
+}
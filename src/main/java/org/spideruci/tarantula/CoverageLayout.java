@@ -0,0 +1,121 @@
+package org.spideruci.tarantula;
+
+/**
+ * The storage layouts of the coverage matrix M -- [test][stmt], with a rough
+ * estimate of the heap each one needs (compressed references, 16 byte array
+ * headers).
+ */
+public enum CoverageLayout {
+
+  DENSE {
+    @Override
+    public long estimateFootprint(
+        int numTests, int numStmts, long coveredCells) {
+      return refArray(numTests) + numTests * array(numStmts);
+    }
+
+    @Override
+    TarantulaMatrix fromBooleanMatrix(boolean[][] M) {
+      return new BooleanCoverageMatrix(M);
+    }
+  },
+
+  BIT_PACKED {
+    @Override
+    public long estimateFootprint(
+        int numTests, int numStmts, long coveredCells) {
+      return refArray(numTests)
+          + numTests * array(8L * BitVectors.wordCount(numStmts));
+    }
+
+    @Override
+    TarantulaMatrix fromBooleanMatrix(boolean[][] M) {
+      return BitPackedCoverageMatrix.fromBooleanMatrix(M);
+    }
+  },
+
+  STMT_MAJOR {
+    @Override
+    public long estimateFootprint(
+        int numTests, int numStmts, long coveredCells) {
+      return refArray(numStmts)
+          + numStmts * array(8L * BitVectors.wordCount(numTests));
+    }
+
+    @Override
+    TarantulaMatrix fromBooleanMatrix(boolean[][] M) {
+      return StmtMajorCoverageMatrix.fromBooleanMatrix(M);
+    }
+  },
+
+  SPARSE {
+    @Override
+    public long estimateFootprint(
+        int numTests, int numStmts, long coveredCells) {
+      return array(4L * (numTests + 1)) + array(4L * coveredCells);
+    }
+
+    @Override
+    TarantulaMatrix fromBooleanMatrix(boolean[][] M) {
+      return SparseCoverageMatrix.fromBooleanMatrix(M);
+    }
+  },
+
+  /**
+   * As large as {@link #SPARSE}, so {@link #choose} never picks it; it is
+   * there for callers that count a few statements, or scan by statement.
+   */
+  SPARSE_COLUMN {
+    @Override
+    public long estimateFootprint(
+        int numTests, int numStmts, long coveredCells) {
+      return array(4L * (numStmts + 1)) + array(4L * coveredCells);
+    }
+
+    @Override
+    TarantulaMatrix fromBooleanMatrix(boolean[][] M) {
+      return SparseColumnCoverageMatrix.fromBooleanMatrix(M);
+    }
+  };
+
+  /**
+   * Matrices whose dense footprint stays under this many bytes are kept in the
+   * dense layout, the only one {@link TarantulaData#getM()} hands out.
+   */
+  static final long SMALL_MATRIX_BYTES = 1L << 20;
+
+  private static final long ARRAY_HEADER_BYTES = 16L;
+
+  public abstract long estimateFootprint(
+      int numTests, int numStmts, long coveredCells);
+
+  abstract TarantulaMatrix fromBooleanMatrix(boolean[][] M);
+
+  /**
+   * Picks the dense layout for small matrices, and otherwise whichever of the
+   * bit-packed and sparse layouts is estimated to be smaller.
+   * @param density fraction of covered cells, between 0 and 1.
+   */
+  public static CoverageLayout choose(
+      int numTests, int numStmts, double density) {
+    final long coveredCells =
+        (long) Math.ceil(density * numTests * (double) numStmts);
+    if (DENSE.estimateFootprint(numTests, numStmts, coveredCells)
+        <= SMALL_MATRIX_BYTES) {
+      return DENSE;
+    }
+
+    long packed = BIT_PACKED.estimateFootprint(numTests, numStmts, coveredCells);
+    long sparse = SPARSE.estimateFootprint(numTests, numStmts, coveredCells);
+    return sparse < packed ? SPARSE : BIT_PACKED;
+  }
+
+  private static long array(long payloadBytes) {
+    return (ARRAY_HEADER_BYTES + payloadBytes + 7L) & ~7L;
+  }
+
+  private static long refArray(int length) {
+    return array(4L * length);
+  }
+
+}
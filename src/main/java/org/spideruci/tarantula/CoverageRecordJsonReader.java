@@ -0,0 +1,90 @@
+package org.spideruci.tarantula;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Streams per-test coverage records from JSON straight into a
+ * {@link CoverageAccumulator}, one record at a time, so that coverage files
+ * larger than the heap can be localized. The input is an array of records:
+ * 
+ * <pre>
+ * [
+ *   {"test": "testFoo", "failed": false, "stmts": [0, 5, 17]},
+ *   {"test": "testBar", "failed": true, "live": false, "stmts": [5]},
+ *   ...
+ * ]
+ * </pre>
+ * 
+ * "stmts" lists the covered statements, "live" defaults to true, and any
+ * other member is skipped.
+ *
+ * This is not the coverage JSON that tacoco writes: tacoco's own files are
+ * read whole by its CoverageJsonReader. These records are written by
+ * {@link CoverageRecordJsonWriter}, which a test runner can call as each test
+ * case finishes, or by {@code Tarantula --to-records}, which converts a
+ * tacoco JSON file, a cov_matrix or a binary coverage file once.
+ */
+public class CoverageRecordJsonReader {
+
+  private final JsonReader reader;
+  private int[] coveredStmts = new int[64];
+
+  public CoverageRecordJsonReader(JsonReader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Reads all records into the accumulator.
+   * @return the accumulator.
+   */
+  public CoverageAccumulator read(CoverageAccumulator accumulator)
+      throws IOException {
+    reader.beginArray();
+    while (reader.hasNext()) {
+      readRecord(accumulator);
+    }
+    reader.endArray();
+    return accumulator;
+  }
+
+  private void readRecord(CoverageAccumulator accumulator) throws IOException {
+    boolean failed = false;
+    boolean live = true;
+    int count = 0;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if ("failed".equals(name)) {
+        failed = reader.nextBoolean();
+      } else if ("live".equals(name)) {
+        live = reader.nextBoolean();
+      } else if ("stmts".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+        count = readStmts();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    accumulator.addTest(coveredStmts, count, failed, live);
+  }
+
+  private int readStmts() throws IOException {
+    int count = 0;
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (count == coveredStmts.length) {
+        coveredStmts = Arrays.copyOf(coveredStmts, count * 2);
+      }
+      coveredStmts[count++] = reader.nextInt();
+    }
+    reader.endArray();
+    return count;
+  }
+
+}
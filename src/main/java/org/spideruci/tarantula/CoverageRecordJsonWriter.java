@@ -0,0 +1,84 @@
+package org.spideruci.tarantula;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes the per-test coverage records that {@link CoverageRecordJsonReader}
+ * streams. A test runner can write each test case's record as soon as the
+ * test case finishes, so neither side ever holds the coverage matrix.
+ * {@link #write(TarantulaData)} converts coverage that was already read from
+ * one of the other formats.
+ */
+public class CoverageRecordJsonWriter implements Closeable {
+
+  private final JsonWriter writer;
+
+  public CoverageRecordJsonWriter(Writer out) throws IOException {
+    this.writer = new JsonWriter(out);
+    writer.beginArray();
+  }
+
+  /**
+   * @param test the name of the test case
+   * @param coveredStmts statements covered by the test case, in its first
+   * {@code count} entries
+   */
+  public void write(String test, boolean failed, boolean live,
+      int[] coveredStmts, int count) throws IOException {
+    writer.beginObject();
+    writer.name("test").value(test);
+    writer.name("failed").value(failed);
+    if (!live) {
+      writer.name("live").value(false);
+    }
+    writer.name("stmts").beginArray();
+    for (int k = 0; k < count; k += 1) {
+      writer.value(coveredStmts[k]);
+    }
+    writer.endArray();
+    writer.endObject();
+  }
+
+  /**
+   * Writes a record for every test case of the data, named by its number.
+   */
+  public void write(TarantulaData data) throws IOException {
+    final TarantulaMatrix M = data.getCoverage();
+    final int numTests = data.getOrigNumTests();
+    final boolean[] F = data.getF();
+    final boolean[] L = data.getL();
+
+    long[] row = new long[BitVectors.wordCount(data.getNumStmts())];
+    int[] coveredStmts = new int[64];
+    for (int i = 0; i < numTests; i += 1) {
+      M.getRow(i, row);
+      int count = 0;
+      for (int w = 0; w < row.length; w += 1) {
+        long word = row[w];
+        while (word != 0L) {
+          if (count == coveredStmts.length) {
+            coveredStmts = Arrays.copyOf(coveredStmts, 2 * count);
+          }
+          coveredStmts[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+          word &= word - 1;
+        }
+      }
+      write(String.valueOf(i), F[i], L[i], coveredStmts, count);
+    }
+  }
+
+  /**
+   * Ends the array of records and closes the underlying writer.
+   */
+  @Override
+  public void close() throws IOException {
+    writer.endArray();
+    writer.close();
+  }
+
+}
@@ -0,0 +1,25 @@
+package org.spideruci.tarantula;
+
+/**
+ * The primitive counterpart of {@link PassFailPair} for {@code double[]}
+ * values; it is not a subtype of it.
+ */
+public final class DoubleArrayPassFailPair {
+  
+  private final double[] pass;
+  private final double[] fail;
+  
+  public DoubleArrayPassFailPair(double[] pass, double[] fail) {
+    this.pass = pass;
+    this.fail = fail;
+  }
+  
+  public double[] pass() {
+    return pass;
+  }
+  
+  public double[] fail() {
+    return fail;
+  }
+  
+}
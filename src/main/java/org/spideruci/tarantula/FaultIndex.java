@@ -0,0 +1,77 @@
+package org.spideruci.tarantula;
+
+import java.util.Arrays;
+
+/**
+ * The inverse of the fault numbers S -- [stmt]: the faulty statements of every
+ * fault, grouped by a counting sort, so that looking up the statements of one
+ * fault costs only as much as there are statements in it. Fault numbers start
+ * at 1; 0 marks a non-faulty statement.
+ */
+public class FaultIndex {
+
+  private final int numFaults;
+  private final int[] faultStart;
+  private final int[] faultyStmts;
+
+  /**
+   * @param S fault numbers -- [stmt]
+   */
+  public FaultIndex(int[] S) {
+    int maxFault = 0;
+    for (int j = 0; j < S.length; j += 1) {
+      if (S[j] < 0) {
+        throw new IllegalArgumentException(
+            "Negative fault number " + S[j] + " at stmt " + j);
+      }
+      maxFault = Math.max(maxFault, S[j]);
+    }
+    numFaults = maxFault;
+
+    // faultStart[f] .. faultStart[f + 1] are the statements of fault f
+    faultStart = new int[numFaults + 2];
+    for (int j = 0; j < S.length; j += 1) {
+      if (S[j] != 0) {
+        faultStart[S[j] + 1] += 1;
+      }
+    }
+    for (int f = 1; f <= numFaults; f += 1) {
+      faultStart[f + 1] += faultStart[f];
+    }
+
+    faultyStmts = new int[faultStart[numFaults + 1]];
+    int[] next = Arrays.copyOf(faultStart, numFaults + 1);
+    for (int j = 0; j < S.length; j += 1) {
+      if (S[j] != 0) {
+        faultyStmts[next[S[j]]++] = j;
+      }
+    }
+  }
+
+  /**
+   * @return the highest fault number
+   */
+  public int getFaultCount() {
+    return numFaults;
+  }
+
+  /**
+   * @return number of statements that carry a non-zero fault number
+   */
+  public int getFaultyStmtCount() {
+    return faultyStmts.length;
+  }
+
+  /**
+   * @return the ascending statements of fault {@code fault}; empty for fault
+   * numbers that are not used.
+   */
+  public int[] getFaultyStmts(int fault) {
+    if (fault < 1 || fault > numFaults) {
+      return new int[0];
+    }
+    return Arrays.copyOfRange(
+        faultyStmts, faultStart[fault], faultStart[fault + 1]);
+  }
+
+}
@@ -0,0 +1,81 @@
+package org.spideruci.tarantula;
+
+/**
+ * A {@link TarantulaFaultLocalizer} that fuses the stages of the computation
+ * into two sweeps: one over the test cases of M, which detects bad tests,
+ * totals the live passing and failing tests and counts them on every
+ * statement; and one over the statements, which turns those counts straight
+ * into suspiciousness and confidence. No ratio arrays are allocated and no
+ * totals are boxed. The arithmetic per statement is that of the staged
+ * computation, so the results are identical to it.
+ */
+public class FusedFaultLocalizer extends TarantulaFaultLocalizer {
+
+  @Override
+  public double[][] compute(TarantulaData data, boolean isBCalculated) {
+    final int numStmts = data.getNumStmts();
+    final int numOrigTests = data.getOrigNumTests();
+    final TarantulaMatrix M = data.getCoverage();
+    final boolean[] L = data.getL();
+    final boolean[] C = data.getC();
+    final boolean[] F = data.getF();
+
+    final long[] coverable = BitVectors.pack(C);
+
+    boolean[] B = isBCalculated ? data.getB() : new boolean[numOrigTests];
+    int[] passOnStmt = new int[numStmts];
+    int[] failOnStmt = new int[numStmts];
+    int totalLivePass = 0;
+    int totalLiveFail = 0;
+
+    final int testsPerSweep = testsPerSweep(M);
+    for (int from = 0; from < numOrigTests; from += testsPerSweep) {
+      final int to = Math.min(numOrigTests, from + testsPerSweep);
+      if (!isBCalculated) {
+        M.findTestsWithoutCoverage(from, to, B);
+      }
+      for (int i = from; i < to; i += 1) {
+        if (!L[i]) continue;
+        if (B[i]) continue;
+        if (F[i]) {
+          totalLiveFail++;
+        } else {
+          totalLivePass++;
+        }
+      }
+      M.countTestsOnStmts(from, to, B, L, C, coverable, F,
+          passOnStmt, failOnStmt);
+    }
+
+    if (!isBCalculated) {
+      data.setB(B);
+    }
+
+    double[] suspiciousness = new double[numStmts];
+    double[] confidence = new double[numStmts];
+    scoreCounts(0, numStmts, totalLivePass, totalLiveFail,
+        passOnStmt, failOnStmt, suspiciousness, confidence);
+    return new double[][] { suspiciousness, confidence };
+  }
+
+  /**
+   * The dense and sparse layouts are swept one test case at a time, so that
+   * the row is still in cache when it is counted right after the bad coverage
+   * check. The bit-packed layouts count against C packed once per compute,
+   * and their rows are cheap to scan, so they are swept 64 test cases at a
+   * time to spread the cost of the calls. The statement-major and sparse
+   * column layouts read every column per call, so they are swept whole.
+   */
+  static int testsPerSweep(TarantulaMatrix M) {
+    switch (M.getLayout()) {
+    case BIT_PACKED:
+      return 64;
+    case STMT_MAJOR:
+    case SPARSE_COLUMN:
+      return Math.max(1, M.getTestCount());
+    default:
+      return 1;
+    }
+  }
+
+}
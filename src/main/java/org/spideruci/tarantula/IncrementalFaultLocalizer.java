@@ -0,0 +1,333 @@
+package org.spideruci.tarantula;
+
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the suspiciousness and confidence of a {@link TarantulaData} up to
+ * date while individual test cases are added, removed, re-run or re-judged.
+ * M is scanned once, when the localizer is created; after that every change
+ * retracts the old row of the test case from p(s), f(s) and the live totals
+ * and admits the new one, in O(covered statements of that test case).
+ *
+ * Suspiciousness is refreshed lazily, on the next call to
+ * {@link #getSuspiciousnessAndConfidence()}. If the live totals are unchanged,
+ * only the statements whose counts changed are recomputed. A change of the
+ * live totals changes the ratios of every statement, so then the whole
+ * statement sweep is redone -- but M is still not scanned.
+ *
+ * The localizer works on its own copy of the rows, held as the ascending
+ * statements that each test case covers and read from the packed rows of M,
+ * and of F, L and C, so the given TarantulaData is left untouched. Test case numbers are stable: a
+ * removed test case keeps its number and is only made dead.
+ */
+public class IncrementalFaultLocalizer {
+
+  private final int numStmts;
+  private final boolean[] C;
+
+  private int numTests;
+  private int[][] rows;
+  private boolean[] F;
+  private boolean[] L;
+  private boolean[] B;
+
+  private final int[] passOnStmt;
+  private final int[] failOnStmt;
+  private int totalLivePass;
+  private int totalLiveFail;
+
+  private final double[] suspiciousness;
+  private final double[] confidence;
+  private int sweptLivePass = -1;
+  private int sweptLiveFail = -1;
+  private final boolean[] isStmtChanged;
+  private final int[] changedStmts;
+  private int numChangedStmts;
+
+  /**
+   * @param data coverage matrix with its F, L and C set
+   */
+  public IncrementalFaultLocalizer(TarantulaData data) {
+    TarantulaMatrix M = data.getCoverage();
+    numStmts = data.getNumStmts();
+    numTests = data.getOrigNumTests();
+    C = Arrays.copyOf(data.getC(), numStmts);
+
+    rows = new int[Math.max(16, numTests)][];
+    F = Arrays.copyOf(data.getF(), rows.length);
+    L = Arrays.copyOf(data.getL(), rows.length);
+    B = new boolean[rows.length];
+    long[] row = new long[BitVectors.wordCount(numStmts)];
+    for (int i = 0; i < numTests; i += 1) {
+      M.getRow(i, row);
+      rows[i] = BitVectors.indices(row);
+    }
+
+    passOnStmt = new int[numStmts];
+    failOnStmt = new int[numStmts];
+    suspiciousness = new double[numStmts];
+    confidence = new double[numStmts];
+    isStmtChanged = new boolean[numStmts];
+    changedStmts = new int[numStmts];
+
+    for (int i = 0; i < numTests; i += 1) {
+      admit(i);
+    }
+  }
+
+  /**
+   * @return the sorted statements without duplicates, so that no statement
+   * is counted twice for one test case.
+   * @throws IllegalArgumentException if a statement is out of range
+   */
+  private int[] toRow(int[] coveredStmts) {
+    int[] row = Arrays.copyOf(coveredStmts, coveredStmts.length);
+    Arrays.sort(row);
+    int count = 0;
+    for (int k = 0; k < row.length; k += 1) {
+      final int j = row[k];
+      if (j < 0 || j >= numStmts) {
+        throw new IllegalArgumentException(
+            "statement " + j + " is not in [0, " + numStmts + ")");
+      }
+      if (count > 0 && row[count - 1] == j) continue;
+      row[count++] = j;
+    }
+    return count == row.length ? row : Arrays.copyOf(row, count);
+  }
+
+  private void checkTest(int test) {
+    if (test < 0 || test >= numTests) {
+      throw new IndexOutOfBoundsException(
+          "test " + test + " is not in [0, " + numTests + ")");
+    }
+  }
+
+  /**
+   * Adds a live test case.
+   * @param coveredStmts statements covered by the test case; duplicates are
+   * counted once
+   * @param failed whether the test case failed
+   * @return the number of the new test case
+   * @throws IllegalArgumentException if a statement is out of range
+   */
+  public int addTest(int[] coveredStmts, boolean failed) {
+    final int[] row = toRow(coveredStmts);
+    if (numTests == rows.length) {
+      final int length = rows.length * 2;
+      rows = Arrays.copyOf(rows, length);
+      F = Arrays.copyOf(F, length);
+      L = Arrays.copyOf(L, length);
+      B = Arrays.copyOf(B, length);
+    }
+    final int test = numTests;
+    numTests += 1;
+    rows[test] = row;
+    F[test] = failed;
+    L[test] = true;
+    admit(test);
+    return test;
+  }
+
+  /**
+   * Makes the test case dead, so that it is no longer counted.
+   */
+  public void removeTest(int test) {
+    setLive(test, false);
+  }
+
+  /**
+   * Replaces the coverage and verdict of a test case, e.g. after a re-run.
+   * The counts are left untouched if the arguments are rejected.
+   * @param coveredStmts statements covered by the test case; duplicates are
+   * counted once
+   * @param failed whether the test case failed
+   * @throws IndexOutOfBoundsException if the test case does not exist
+   * @throws IllegalArgumentException if a statement is out of range
+   */
+  public void updateTest(int test, int[] coveredStmts, boolean failed) {
+    checkTest(test);
+    final int[] row = toRow(coveredStmts);
+    retract(test);
+    rows[test] = row;
+    F[test] = failed;
+    admit(test);
+  }
+
+  /**
+   * Replaces the coverage of a test case and keeps its verdict.
+   * @param coveredStmts statements covered by the test case
+   */
+  public void updateTest(int test, int[] coveredStmts) {
+    checkTest(test);
+    updateTest(test, coveredStmts, F[test]);
+  }
+
+  public void setFailed(int test, boolean failed) {
+    checkTest(test);
+    if (F[test] == failed) return;
+    retract(test);
+    F[test] = failed;
+    admit(test);
+  }
+
+  public void setLive(int test, boolean live) {
+    checkTest(test);
+    if (L[test] == live) return;
+    retract(test);
+    L[test] = live;
+    admit(test);
+  }
+
+  /**
+   * Counts or stops counting a statement. Unlike the changes of a test case,
+   * this looks the statement up in every row, in O(tests * log(covered
+   * statements per test case)).
+   */
+  public void setC(int stmt, boolean counted) {
+    if (C[stmt] == counted) return;
+    C[stmt] = counted;
+    for (int i = 0; i < numTests; i += 1) {
+      if (B[i] || !L[i]) continue;
+      if (Arrays.binarySearch(rows[i], stmt) < 0) continue;
+      if (F[i]) {
+        failOnStmt[stmt] += counted ? 1 : -1;
+      } else {
+        passOnStmt[stmt] += counted ? 1 : -1;
+      }
+    }
+    if (!isStmtChanged[stmt]) {
+      isStmtChanged[stmt] = true;
+      changedStmts[numChangedStmts++] = stmt;
+    }
+  }
+
+  private void retract(int test) {
+    count(test, -1);
+  }
+
+  private void admit(int test) {
+    B[test] = rows[test].length == 0;
+    count(test, 1);
+  }
+
+  /**
+   * Adds {@code delta} to the counts of a live test case with good coverage.
+   */
+  private void count(int test, int delta) {
+    if (B[test]) return;
+    if (!L[test]) return;
+
+    int[] onStmt;
+    if (F[test]) {
+      totalLiveFail += delta;
+      onStmt = failOnStmt;
+    } else {
+      totalLivePass += delta;
+      onStmt = passOnStmt;
+    }
+
+    for (int j : rows[test]) {
+      if (!C[j]) continue;
+      onStmt[j] += delta;
+      if (!isStmtChanged[j]) {
+        isStmtChanged[j] = true;
+        changedStmts[numChangedStmts++] = j;
+      }
+    }
+  }
+
+  /**
+   * @return suspiciousness and confidence -- [stmt], indexed by
+   * {@link TarantulaFaultLocalizer#SUSPICIOUSNESS} and
+   * {@link TarantulaFaultLocalizer#CONFIDENCE}. The arrays are owned by the
+   * localizer and are updated in place by the next call.
+   */
+  public double[][] getSuspiciousnessAndConfidence() {
+    if (totalLivePass != sweptLivePass || totalLiveFail != sweptLiveFail) {
+      TarantulaFaultLocalizer.scoreCounts(0, numStmts,
+          totalLivePass, totalLiveFail, passOnStmt, failOnStmt,
+          suspiciousness, confidence);
+    } else {
+      for (int k = 0; k < numChangedStmts; k += 1) {
+        final int j = changedStmts[k];
+        TarantulaFaultLocalizer.scoreCounts(j, j + 1,
+            totalLivePass, totalLiveFail, passOnStmt, failOnStmt,
+            suspiciousness, confidence);
+      }
+    }
+
+    for (int k = 0; k < numChangedStmts; k += 1) {
+      isStmtChanged[changedStmts[k]] = false;
+    }
+    numChangedStmts = 0;
+    sweptLivePass = totalLivePass;
+    sweptLiveFail = totalLiveFail;
+
+    double[][] suspiciousnessAndConfidence = new double[2][];
+    suspiciousnessAndConfidence[SUSPICIOUSNESS] = suspiciousness;
+    suspiciousnessAndConfidence[CONFIDENCE] = confidence;
+    return suspiciousnessAndConfidence;
+  }
+
+  /**
+   * @return number of statements that the next refresh recomputes, unless
+   * the live totals have changed.
+   */
+  int getChangedStmtCount() {
+    return numChangedStmts;
+  }
+
+  public int getTestCount() {
+    return numTests;
+  }
+
+  public int getStmtCount() {
+    return numStmts;
+  }
+
+  /**
+   * @return live test cases -- [test]
+   */
+  public boolean[] getL() {
+    return Arrays.copyOf(L, numTests);
+  }
+
+  /**
+   * @return failing test cases -- [test]
+   */
+  public boolean[] getF() {
+    return Arrays.copyOf(F, numTests);
+  }
+
+  /**
+   * @return bad coverage -- [test]
+   */
+  public boolean[] getB() {
+    return Arrays.copyOf(B, numTests);
+  }
+
+  /**
+   * @return counted statements -- [stmt]
+   */
+  public boolean[] getC() {
+    return Arrays.copyOf(C, numStmts);
+  }
+
+  public IntPassFailPair getTotalLiveTests() {
+    return new IntPassFailPair(totalLivePass, totalLiveFail);
+  }
+
+  /**
+   * @return p(s) and f(s) of every statement
+   */
+  public IntArrayPassFailPair getTestsOnStmtProfiles() {
+    return new IntArrayPassFailPair(
+        Arrays.copyOf(passOnStmt, numStmts),
+        Arrays.copyOf(failOnStmt, numStmts));
+  }
+
+}
@@ -0,0 +1,25 @@
+package org.spideruci.tarantula;
+
+/**
+ * The primitive counterpart of {@link PassFailPair} for {@code int[]}
+ * values; it is not a subtype of it.
+ */
+public final class IntArrayPassFailPair {
+  
+  private final int[] pass;
+  private final int[] fail;
+  
+  public IntArrayPassFailPair(int[] pass, int[] fail) {
+    this.pass = pass;
+    this.fail = fail;
+  }
+  
+  public int[] pass() {
+    return pass;
+  }
+  
+  public int[] fail() {
+    return fail;
+  }
+  
+}
@@ -0,0 +1,230 @@
+package org.spideruci.tarantula;
+
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A resident localization server on a localhost socket. It keeps recently
+ * loaded coverage files in a {@link TarantulaDataCache}, so a request pays
+ * neither JVM startup nor parsing, only the scan of M. The protocol is one
+ * request per line, answered by a line {@code OK <n>} and n result lines, or
+ * by a line {@code ERROR <message>}:
+ *
+ * <pre>
+ * LOCALIZE &lt;k&gt; &lt;verdicts&gt; &lt;file&gt;
+ *     k: the number of most suspicious statements, or 0 for all of them
+ *     verdicts: per test case, 1=failed 0=passed, or - for the file's own F
+ *     result lines: &lt;stmt&gt; &lt;suspiciousness&gt; &lt;confidence&gt;
+ * EVICT &lt;file&gt;
+ * STATS
+ *     result line: &lt;cached files&gt; &lt;cached bytes&gt; &lt;budget bytes&gt;
+ * QUIT
+ * </pre>
+ *
+ * The file is the rest of the line, so it may contain spaces. Every
+ * connection is served on its own thread.
+ */
+public class LocalizationServer implements Closeable {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final ServerSocket serverSocket;
+  private final TarantulaDataCache cache;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final TarantulaFaultLocalizer localizer = new FusedFaultLocalizer();
+
+  /**
+   * @param port the port on localhost, or 0 for any free one
+   * @param heapBudget bytes of coverage data to keep cached
+   */
+  public LocalizationServer(int port, long heapBudget) throws IOException {
+    this.cache = new TarantulaDataCache(heapBudget);
+    this.serverSocket =
+        new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  public TarantulaDataCache getCache() {
+    return cache;
+  }
+
+  /**
+   * Accepts connections until the server is closed.
+   */
+  public void serve() throws IOException {
+    while (true) {
+      final Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (SocketException e) {
+        if (serverSocket.isClosed()) return;
+        throw e;
+      }
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          serve(socket);
+        }
+      });
+    }
+  }
+
+  private void serve(Socket socket) {
+    try {
+      BufferedReader in = new BufferedReader(
+          new InputStreamReader(socket.getInputStream(), UTF_8));
+      Writer out = new BufferedWriter(
+          new OutputStreamWriter(socket.getOutputStream(), UTF_8));
+      String request;
+      while ((request = in.readLine()) != null && !"QUIT".equals(request)) {
+        respond(request, out);
+        out.flush();
+      }
+    } catch (IOException e) {
+      // the client is gone
+    } finally {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // nothing left to do
+      }
+    }
+  }
+
+  void respond(String request, Writer out) throws IOException {
+    String[] parts = request.split(" ", 2);
+    try {
+      if ("LOCALIZE".equals(parts[0]) && parts.length == 2) {
+        String[] args = parts[1].split(" ", 3);
+        if (args.length < 3) {
+          throw new IllegalArgumentException("LOCALIZE <k> <verdicts> <file>");
+        }
+        final int k = parseK(args[0]);
+        final boolean[] F = parseVerdicts(args[1]);
+        double[][] scores = localize(new File(args[2]), F);
+        writeScores(scores, k, out);
+      } else if ("EVICT".equals(parts[0]) && parts.length == 2) {
+        cache.evict(new File(parts[1]));
+        out.write("OK 0\n");
+      } else if ("STATS".equals(parts[0])) {
+        out.write("OK 1\n" + cache.size() + " " + cache.getBytes() + " "
+            + cache.getHeapBudget() + "\n");
+      } else {
+        throw new IllegalArgumentException("Unknown request: " + request);
+      }
+    } catch (IOException e) {
+      writeError(e, out);
+    } catch (RuntimeException e) {
+      writeError(e, out);
+    }
+  }
+
+  /**
+   * Localizes on the cached M, B, L and C of the file and the given F; the
+   * cached data is shared by concurrent requests, and is left as it is.
+   * @param F failing test cases, or null for the file's own F
+   */
+  double[][] localize(File file, boolean[] F) throws IOException {
+    TarantulaData cached = cache.get(file);
+    final int numTests = cached.getOrigNumTests();
+    if (F != null && F.length != numTests) {
+      throw new IllegalArgumentException("Expected " + numTests
+          + " verdicts, got " + F.length);
+    }
+    TarantulaData data = new TarantulaData(cached.getCoverage());
+    data.setF(F == null ? cached.getF() : F);
+    data.setL(cached.getL());
+    data.setC(cached.getC());
+    data.setB(cached.getB());
+    return localizer.compute(data, true);
+  }
+
+  static int parseK(String k) {
+    final int topK;
+    try {
+      topK = Integer.parseInt(k);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("k is not a number: " + k);
+    }
+    if (topK < 0) {
+      throw new IllegalArgumentException("k is negative: " + k);
+    }
+    return topK;
+  }
+
+  /**
+   * @return the failing test cases, or null for {@code -}. Their count is
+   * checked against the file's test cases once it is loaded.
+   */
+  static boolean[] parseVerdicts(String verdicts) {
+    if ("-".equals(verdicts)) return null;
+    final int numTests = verdicts.length();
+    boolean[] F = new boolean[numTests];
+    for (int i = 0; i < numTests; i += 1) {
+      final char verdict = verdicts.charAt(i);
+      if (verdict != '0' && verdict != '1') {
+        throw new IllegalArgumentException("Verdict is not 0 or 1: " + verdict);
+      }
+      F[i] = verdict == '1';
+    }
+    return F;
+  }
+
+  private static void writeScores(double[][] scores, int k, Writer out)
+      throws IOException {
+    double[] suspiciousness = scores[SUSPICIOUSNESS];
+    double[] confidence = scores[CONFIDENCE];
+    int[] stmts;
+    if (k > 0) {
+      stmts = new SuspiciousnessRanking(suspiciousness, confidence).getTopK(k);
+    } else {
+      stmts = new int[suspiciousness.length];
+      for (int j = 0; j < stmts.length; j += 1) {
+        stmts[j] = j;
+      }
+    }
+
+    StringBuilder line = new StringBuilder();
+    out.write("OK " + stmts.length + "\n");
+    for (int stmt : stmts) {
+      line.setLength(0);
+      line.append(stmt).append(' ').append(suspiciousness[stmt])
+          .append(' ').append(confidence[stmt]).append('\n');
+      out.append(line);
+    }
+  }
+
+  private static void writeError(Exception e, Writer out) throws IOException {
+    String message = String.valueOf(e.getMessage()).replace('\n', ' ');
+    out.write("ERROR " + message + "\n");
+  }
+
+  /**
+   * Stops accepting connections; connections being served are finished.
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    executor.shutdown();
+  }
+
+}
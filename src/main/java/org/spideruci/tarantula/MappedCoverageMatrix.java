@@ -0,0 +1,129 @@
+package org.spideruci.tarantula;
+
+import java.nio.LongBuffer;
+
+/**
+ * Coverage matrix M -- [test][stmt] in the bit-packed layout of
+ * {@link BitPackedCoverageMatrix}, read in place from a memory-mapped
+ * {@link BinaryCoverageFile}. The rows are split into segments of whole rows,
+ * since a single mapping is limited to 2 GB.
+ */
+public class MappedCoverageMatrix implements TarantulaMatrix {
+
+  private final int numTests;
+  private final int numStmts;
+  private final int wordsPerRow;
+  private final int rowsPerSegment;
+  private final LongBuffer[] segments;
+
+  /**
+   * @param segments consecutive rows of M, {@code rowsPerSegment} rows of
+   * {@code wordCount(numStmts)} words each.
+   */
+  MappedCoverageMatrix(int numTests, int numStmts,
+      int rowsPerSegment, LongBuffer[] segments) {
+    this.numTests = numTests;
+    this.numStmts = numStmts;
+    this.wordsPerRow = BitVectors.wordCount(numStmts);
+    this.rowsPerSegment = rowsPerSegment;
+    this.segments = segments;
+  }
+
+  private long getWord(int test, int w) {
+    return segments[test / rowsPerSegment].get(
+        (test % rowsPerSegment) * wordsPerRow + w);
+  }
+
+  @Override
+  public void getRow(int test, long[] row) {
+    LongBuffer segment = segments[test / rowsPerSegment];
+    final int offset = (test % rowsPerSegment) * wordsPerRow;
+    for (int w = 0; w < wordsPerRow; w += 1) {
+      row[w] = segment.get(offset + w);
+    }
+  }
+
+  @Override
+  public int getTestCount() {
+    return numTests;
+  }
+
+  @Override
+  public int getStmtCount() {
+    return numStmts;
+  }
+
+  @Override
+  public boolean isCovered(int test, int stmt) {
+    return (getWord(test, stmt >>> 6) & (1L << stmt)) != 0;
+  }
+
+  @Override
+  public void findTestsWithoutCoverage(int fromTest, int toTest, boolean[] B) {
+    for (int i = fromTest; i < toTest; i += 1) {
+      B[i] = true;
+      for (int w = 0; w < wordsPerRow; w += 1) {
+        if (getWord(i, w) != 0L) {
+          B[i] = false;
+          break;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    countTestsOnStmts(fromTest, toTest, B, L, C, BitVectors.pack(C), F,
+        passOnStmt, failOnStmt);
+  }
+
+  /**
+   * Reads only the packed C.
+   */
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, long[] coverable, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    for (int i = fromTest; i < toTest; i += 1) {
+      if (B[i]) continue;
+      if (!L[i]) continue;
+      int[] onStmt = F[i] ? failOnStmt : passOnStmt;
+      LongBuffer segment = segments[i / rowsPerSegment];
+      final int offset = (i % rowsPerSegment) * wordsPerRow;
+      for (int w = 0; w < wordsPerRow; w += 1) {
+        long word = segment.get(offset + w) & coverable[w];
+        while (word != 0L) {
+          onStmt[(w << 6) + Long.numberOfTrailingZeros(word)]++;
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean[][] toBooleanMatrix() {
+    boolean[][] M = new boolean[numTests][numStmts];
+    for (int i = 0; i < numTests; i += 1) {
+      for (int j = 0; j < numStmts; j += 1) {
+        M[i][j] = isCovered(i, j);
+      }
+    }
+    return M;
+  }
+
+  @Override
+  public CoverageLayout getLayout() {
+    return CoverageLayout.BIT_PACKED;
+  }
+
+  /**
+   * @return 0, the rows are mapped outside of the heap.
+   */
+  @Override
+  public long getFootprint() {
+    return 0L;
+  }
+
+}
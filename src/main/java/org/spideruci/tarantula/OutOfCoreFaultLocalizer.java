@@ -0,0 +1,255 @@
+package org.spideruci.tarantula;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Computes suspiciousness and confidence from a coverage matrix on disk that
+ * does not have to fit in memory. The rows of M are read a chunk of test cases
+ * at a time into one reused {@link BitPackedCoverageMatrix} of about
+ * {@code memoryBudget} bytes, and every chunk is counted into p(s) and f(s) as
+ * {@link FusedFaultLocalizer} counts a sweep, so the results are those of
+ * {@link TarantulaFaultLocalizer#compute}. Beyond the chunk, memory is linear
+ * in the number of test cases and statements: F, L, B, C and the counts.
+ *
+ * <p>The matrix is read from a {@link CoverageArchive}, whole blocks to a
+ * chunk, or from a text cov_matrix, plain or gzipped. The F, L and C records
+ * of a cov_matrix follow its coverage vectors, so it is read twice, and its
+ * vectors have to be in ascending test order, as
+ * {@link TarantulaData#writeExternal} writes them.
+ */
+public class OutOfCoreFaultLocalizer {
+
+  public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+  /** object header and length of a row, and a byte each of B, L and F */
+  private static final int BYTES_PER_TEST = 16 + 3;
+
+  private final long memoryBudget;
+
+  public OutOfCoreFaultLocalizer() {
+    this(DEFAULT_MEMORY_BUDGET);
+  }
+
+  /**
+   * @param memoryBudget bytes for the rows of a chunk; a chunk has at least
+   * one test case, or one block of an archive, whatever the budget.
+   */
+  public OutOfCoreFaultLocalizer(long memoryBudget) {
+    if (memoryBudget <= 0L) {
+      throw new IllegalArgumentException("memoryBudget: " + memoryBudget);
+    }
+    this.memoryBudget = memoryBudget;
+  }
+
+  int getTestsPerChunk(int numTests, int numStmts) {
+    final long bytesPerTest = 8L * BitVectors.wordCount(numStmts)
+        + BYTES_PER_TEST;
+    return (int) Math.max(1L, Math.min(numTests, memoryBudget / bytesPerTest));
+  }
+
+  /**
+   * Reads the file as a {@link CoverageArchive} if it is one, and as a
+   * cov_matrix otherwise.
+   * @return suspiciousness and confidence -- [SUSPICIOUSNESS|CONFIDENCE][stmt]
+   */
+  public double[][] compute(File file) throws IOException {
+    if (CoverageFiles.readMagic(file) == CoverageArchive.MAGIC) {
+      CoverageArchive archive = CoverageArchive.open(file);
+      try {
+        return compute(archive);
+      } finally {
+        archive.close();
+      }
+    }
+    return computeCovMatrix(file);
+  }
+
+  public double[][] compute(CoverageArchive archive) throws IOException {
+    final int numTests = archive.getTestCount();
+    final int numStmts = archive.getStmtCount();
+    final int testsPerBlock = archive.getTestsPerBlock();
+    final int blocksPerChunk = Math.max(1,
+        getTestsPerChunk(numTests, numStmts) / testsPerBlock);
+    final int testsPerChunk = (int) Math.min(numTests,
+        (long) blocksPerChunk * testsPerBlock);
+
+    ChunkCounter counter = new ChunkCounter(archive.getF(), archive.getL(),
+        archive.getC(), testsPerChunk);
+    for (int from = 0; from < numTests; from += testsPerChunk) {
+      final int to = Math.min(numTests, from + testsPerChunk);
+      for (int fromBlock = from; fromBlock < to; fromBlock += testsPerBlock) {
+        archive.readBlock(fromBlock / testsPerBlock, counter.chunk,
+            fromBlock - from);
+      }
+      counter.count(from, to);
+    }
+    return counter.calculateSuspiciousnessAndConfidence();
+  }
+
+  double[][] computeCovMatrix(File file) throws IOException {
+    TarantulaData vectors = new TarantulaData();
+    CovMatrixReader reader;
+    InputStream in = CoverageFiles.openCovMatrix(file);
+    try {
+      reader = new CovMatrixReader(in);
+      reader.readInto(vectors, new CovMatrixReader.RowHandler() {
+        @Override
+        public long[] getRow(int test, int numStmts) {
+          return null;
+        }
+      });
+    } finally {
+      in.close();
+    }
+
+    final int numTests = reader.getTestCount();
+    final int numStmts = reader.getStmtCount();
+    if (vectors.getF() == null || vectors.getC() == null) {
+      throw new IOException("cov_matrix has no F or no C record: " + file);
+    }
+    boolean[] L = vectors.getL();
+    if (L == null) {
+      L = new boolean[numTests];
+      Arrays.fill(L, true);
+    }
+
+    final ChunkCounter counter = new ChunkCounter(vectors.getF(), L,
+        vectors.getC(), getTestsPerChunk(numTests, numStmts));
+    ChunkedRows rows = new ChunkedRows(counter);
+    in = CoverageFiles.openCovMatrix(file);
+    try {
+      new CovMatrixReader(in).readInto(new TarantulaData(), rows);
+    } finally {
+      in.close();
+    }
+    rows.finish();
+    return counter.calculateSuspiciousnessAndConfidence();
+  }
+
+  /**
+   * Counts the rows of one chunk at a time; the chunk's rows are those of
+   * test cases [from, to) of M.
+   */
+  private static final class ChunkCounter {
+
+    private final boolean[] F;
+    private final boolean[] L;
+    private final boolean[] C;
+    private final long[] coverable;
+    private final boolean[] B;
+    private final BitPackedCoverageMatrix chunk;
+    private final boolean[] chunkF;
+    private final boolean[] chunkL;
+    private final boolean[] chunkB;
+    private final int[] passOnStmt;
+    private final int[] failOnStmt;
+    private int totalLivePass;
+    private int totalLiveFail;
+
+    ChunkCounter(boolean[] F, boolean[] L, boolean[] C, int testsPerChunk) {
+      this.F = F;
+      this.L = L;
+      this.C = C;
+      this.coverable = BitVectors.pack(C);
+      this.B = new boolean[F.length];
+      this.chunk = new BitPackedCoverageMatrix(testsPerChunk, C.length);
+      this.chunkF = new boolean[testsPerChunk];
+      this.chunkL = new boolean[testsPerChunk];
+      this.chunkB = new boolean[testsPerChunk];
+      this.passOnStmt = new int[C.length];
+      this.failOnStmt = new int[C.length];
+    }
+
+    int getTestCount() {
+      return B.length;
+    }
+
+    int getTestsPerChunk() {
+      return chunkB.length;
+    }
+
+    long[] getRow(int test, int from) {
+      return chunk.getRow(test - from);
+    }
+
+    void count(int from, int to) {
+      final int n = to - from;
+      chunk.findTestsWithoutCoverage(0, n, chunkB);
+      System.arraycopy(chunkB, 0, B, from, n);
+      System.arraycopy(L, from, chunkL, 0, n);
+      System.arraycopy(F, from, chunkF, 0, n);
+      for (int i = 0; i < n; i += 1) {
+        if (!chunkL[i]) continue;
+        if (chunkB[i]) continue;
+        if (chunkF[i]) {
+          totalLiveFail++;
+        } else {
+          totalLivePass++;
+        }
+      }
+      chunk.countTestsOnStmts(0, n, chunkB, chunkL, C, coverable, chunkF,
+          passOnStmt, failOnStmt);
+    }
+
+    void clear() {
+      for (int i = 0; i < chunkB.length; i += 1) {
+        Arrays.fill(chunk.getRow(i), 0L);
+      }
+    }
+
+    double[][] calculateSuspiciousnessAndConfidence() {
+      final int numStmts = C.length;
+      double[] suspiciousness = new double[numStmts];
+      double[] confidence = new double[numStmts];
+      TarantulaFaultLocalizer.scoreCounts(0, numStmts,
+          totalLivePass, totalLiveFail, passOnStmt, failOnStmt,
+          suspiciousness, confidence);
+      return new double[][] { suspiciousness, confidence };
+    }
+  }
+
+  /**
+   * Decodes the coverage vectors of a cov_matrix into the chunk, counting the
+   * chunk whenever a vector falls past it.
+   */
+  private static final class ChunkedRows
+      implements CovMatrixReader.RowHandler {
+
+    private final ChunkCounter counter;
+    private int from;
+
+    ChunkedRows(ChunkCounter counter) {
+      this.counter = counter;
+    }
+
+    @Override
+    public long[] getRow(int test, int numStmts) throws IOException {
+      if (test < from || test >= counter.getTestCount()) {
+        throw new IOException(
+            "cov_matrix coverage vector out of test order: " + test);
+      }
+      while (test >= from + counter.getTestsPerChunk()) {
+        countChunk();
+      }
+      return counter.getRow(test, from);
+    }
+
+    void finish() {
+      while (from < counter.getTestCount()) {
+        countChunk();
+      }
+    }
+
+    private void countChunk() {
+      final int to = Math.min(counter.getTestCount(),
+          from + counter.getTestsPerChunk());
+      counter.count(from, to);
+      counter.clear();
+      from = to;
+    }
+  }
+
+}
@@ -0,0 +1,324 @@
+package org.spideruci.tarantula;
+
+import java.io.Closeable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A {@link TarantulaFaultLocalizer} that spreads every stage of the
+ * computation over a fork/join pool. The matrix scans are split into ranges of
+ * test cases, each counting into its own pass/fail-on-stmt arrays that are
+ * summed afterwards; the per-statement stages are split into ranges of
+ * statements. Integer counts are merged exactly and every statement's ratios,
+ * suspiciousness and confidence are computed by the same code as the
+ * sequential path, so the results are bit-identical to it.
+ *
+ * A localizer that creates its own pool shuts it down when it is closed; a
+ * pool that is passed in is left to its owner.
+ */
+public class ParallelFaultLocalizer extends TarantulaFaultLocalizer
+    implements Closeable {
+
+  /**
+   * Test ranges are multiples of 64 test cases, so that the packed layouts
+   * never share a word between two ranges.
+   */
+  static final int TEST_ALIGNMENT = 64;
+
+  static final int MIN_STMTS_PER_TASK = 1024;
+
+  private final ForkJoinPool pool;
+  private final boolean isPoolOwned;
+
+  public ParallelFaultLocalizer() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public ParallelFaultLocalizer(int parallelism) {
+    this(new ForkJoinPool(parallelism), true);
+  }
+
+  public ParallelFaultLocalizer(ForkJoinPool pool) {
+    this(pool, false);
+  }
+
+  private ParallelFaultLocalizer(ForkJoinPool pool, boolean isPoolOwned) {
+    this.pool = pool;
+    this.isPoolOwned = isPoolOwned;
+  }
+
+  /**
+   * Shuts down the pool if this localizer created it.
+   */
+  @Override
+  public void close() {
+    if (isPoolOwned) {
+      pool.shutdown();
+    }
+  }
+
+  public int getParallelism() {
+    return pool.getParallelism();
+  }
+
+  ForkJoinPool getPool() {
+    return pool;
+  }
+
+  @Override
+  boolean[] calculateBadTestCoverage(final TarantulaMatrix M) {
+    final boolean[] B = new boolean[M.getTestCount()];
+    pool.invoke(new RangeAction(new RangeBody() {
+      @Override
+      public void compute(int from, int to) {
+        M.findTestsWithoutCoverage(from, to, B);
+      }
+    }, 0, B.length, testsPerTask(B.length)));
+    return B;
+  }
+
+  @Override
+  IntArrayPassFailPair calculateTestsOnStmtProfiles(int numStmts,
+      boolean[] B, boolean[] L, boolean[] C, TarantulaMatrix M, boolean[] F) {
+    return pool.invoke(new CountTask(
+        0, B.length, testsPerTask(B.length), numStmts, B, L, C, M, F));
+  }
+
+  /**
+   * Counts ranges of the distinct rows in parallel, as the unweighted
+   * counting stage does with ranges of test cases.
+   */
+  @Override
+  IntArrayPassFailPair calculateWeightedTestsOnStmtProfiles(int numStmts,
+      boolean[] C, BitPackedCoverageMatrix M,
+      int[] passWeights, int[] failWeights) {
+    final int numRows = M.getTestCount();
+    return pool.invoke(new WeightedCountTask(0, numRows, testsPerTask(numRows),
+        numStmts, BitVectors.pack(C), M, passWeights, failWeights));
+  }
+
+  @Override
+  DoubleArrayPassFailPair calculatePassRatioAndFailRatio(
+      final int numStmts,
+      final int totalLivePass, final int totalLiveFail,
+      final int[] passOnStmt, final int[] failOnStmt) {
+    final double[] passRatio = new double[numStmts];
+    final double[] failRatio = new double[numStmts];
+    pool.invoke(new RangeAction(new RangeBody() {
+      @Override
+      public void compute(int from, int to) {
+        calculatePassRatioAndFailRatio(from, to, totalLivePass, totalLiveFail,
+            passOnStmt, failOnStmt, passRatio, failRatio);
+      }
+    }, 0, numStmts, stmtsPerTask(numStmts)));
+    return new DoubleArrayPassFailPair(passRatio, failRatio);
+  }
+
+  @Override
+  double[][] calculateSuspiciousnessAndConfidence(
+      final int numStmts, final int totalLivePass, final int totalLiveFail,
+      final double[] passRatio, final double[] failRatio) {
+    final double[] suspiciousness = new double[numStmts];
+    final double[] confidence = new double[numStmts];
+    pool.invoke(new RangeAction(new RangeBody() {
+      @Override
+      public void compute(int from, int to) {
+        calculateSuspiciousnessAndConfidence(from, to,
+            totalLivePass, totalLiveFail, passRatio, failRatio,
+            suspiciousness, confidence);
+      }
+    }, 0, numStmts, stmtsPerTask(numStmts)));
+    return new double[][] { suspiciousness, confidence };
+  }
+
+  /**
+   * Scores the source files in parallel, a range of files per task. This is
+   * only the O(stmts) scoring: M has already been scanned, once for all the
+   * files, by the counting stage.
+   */
+  @Override
+  double[][][] calculateSourceFileScores(final SourceFileRanges sourceFiles,
+      final int[] files, final int totalLivePass, final int totalLiveFail,
+      final int[] passOnStmt, final int[] failOnStmt) {
+    final double[][][] scores = new double[files.length][][];
+    final int filesPerTask = Math.max(1,
+        (files.length + 4 * getParallelism() - 1) / (4 * getParallelism()));
+    pool.invoke(new RangeAction(new RangeBody() {
+      @Override
+      public void compute(int from, int to) {
+        for (int f = from; f < to; f += 1) {
+          scores[f] = calculateSourceFileScores(sourceFiles, files[f],
+              totalLivePass, totalLiveFail, passOnStmt, failOnStmt);
+        }
+      }
+    }, 0, files.length, filesPerTask));
+    return scores;
+  }
+
+  /**
+   * One range of test cases per worker, since every range of the counting
+   * stage carries its own pair of [stmt] arrays.
+   */
+  int testsPerTask(int numTests) {
+    int perTask = (numTests + getParallelism() - 1) / getParallelism();
+    return Math.max(TEST_ALIGNMENT, align(perTask));
+  }
+
+  int stmtsPerTask(int numStmts) {
+    int perTask = (numStmts + 4 * getParallelism() - 1) / (4 * getParallelism());
+    return Math.max(MIN_STMTS_PER_TASK, perTask);
+  }
+
+  private static int align(int numTests) {
+    return (numTests + TEST_ALIGNMENT - 1) / TEST_ALIGNMENT * TEST_ALIGNMENT;
+  }
+
+  interface RangeBody {
+    void compute(int from, int to);
+  }
+
+  /**
+   * Splits [from, to) in halves, at multiples of the grain, until a range
+   * spans at most one grain.
+   */
+  static class RangeAction extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final RangeBody body;
+    private final int from;
+    private final int to;
+    private final int grain;
+
+    RangeAction(RangeBody body, int from, int to, int grain) {
+      this.body = body;
+      this.from = from;
+      this.to = to;
+      this.grain = grain;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= grain) {
+        body.compute(from, to);
+        return;
+      }
+      final int mid = split(from, to, grain);
+      invokeAll(new RangeAction(body, from, mid, grain),
+          new RangeAction(body, mid, to, grain));
+    }
+  }
+
+  static int split(int from, int to, int grain) {
+    final int grains = (to - from + grain - 1) / grain;
+    return from + (grains / 2) * grain;
+  }
+
+  static class CountTask extends RecursiveTask<IntArrayPassFailPair> {
+    private static final long serialVersionUID = 1L;
+
+    private final int fromTest;
+    private final int toTest;
+    private final int grain;
+    private final int numStmts;
+    private final boolean[] B;
+    private final boolean[] L;
+    private final boolean[] C;
+    private final TarantulaMatrix M;
+    private final boolean[] F;
+
+    CountTask(int fromTest, int toTest, int grain, int numStmts,
+        boolean[] B, boolean[] L, boolean[] C, TarantulaMatrix M, boolean[] F) {
+      this.fromTest = fromTest;
+      this.toTest = toTest;
+      this.grain = grain;
+      this.numStmts = numStmts;
+      this.B = B;
+      this.L = L;
+      this.C = C;
+      this.M = M;
+      this.F = F;
+    }
+
+    @Override
+    protected IntArrayPassFailPair compute() {
+      if (toTest - fromTest <= grain) {
+        int[] passOnStmt = new int[numStmts];
+        int[] failOnStmt = new int[numStmts];
+        M.countTestsOnStmts(
+            fromTest, toTest, B, L, C, F, passOnStmt, failOnStmt);
+        return new IntArrayPassFailPair(passOnStmt, failOnStmt);
+      }
+
+      final int mid = split(fromTest, toTest, grain);
+      CountTask left =
+          new CountTask(fromTest, mid, grain, numStmts, B, L, C, M, F);
+      CountTask right =
+          new CountTask(mid, toTest, grain, numStmts, B, L, C, M, F);
+      left.fork();
+      IntArrayPassFailPair sum = right.compute();
+      return add(sum, left.join());
+    }
+  }
+
+  static class WeightedCountTask extends RecursiveTask<IntArrayPassFailPair> {
+    private static final long serialVersionUID = 1L;
+
+    private final int fromRow;
+    private final int toRow;
+    private final int grain;
+    private final int numStmts;
+    private final long[] packedC;
+    private final BitPackedCoverageMatrix M;
+    private final int[] passWeights;
+    private final int[] failWeights;
+
+    WeightedCountTask(int fromRow, int toRow, int grain, int numStmts,
+        long[] packedC, BitPackedCoverageMatrix M,
+        int[] passWeights, int[] failWeights) {
+      this.fromRow = fromRow;
+      this.toRow = toRow;
+      this.grain = grain;
+      this.numStmts = numStmts;
+      this.packedC = packedC;
+      this.M = M;
+      this.passWeights = passWeights;
+      this.failWeights = failWeights;
+    }
+
+    @Override
+    protected IntArrayPassFailPair compute() {
+      if (toRow - fromRow <= grain) {
+        int[] passOnStmt = new int[numStmts];
+        int[] failOnStmt = new int[numStmts];
+        countWeightedRows(fromRow, toRow, packedC, M,
+            passWeights, failWeights, passOnStmt, failOnStmt);
+        return new IntArrayPassFailPair(passOnStmt, failOnStmt);
+      }
+
+      final int mid = split(fromRow, toRow, grain);
+      WeightedCountTask left = new WeightedCountTask(fromRow, mid, grain,
+          numStmts, packedC, M, passWeights, failWeights);
+      WeightedCountTask right = new WeightedCountTask(mid, toRow, grain,
+          numStmts, packedC, M, passWeights, failWeights);
+      left.fork();
+      IntArrayPassFailPair sum = right.compute();
+      return add(sum, left.join());
+    }
+  }
+
+  /**
+   * Adds the counts of other into sum.
+   * @return sum
+   */
+  static IntArrayPassFailPair add(
+      IntArrayPassFailPair sum, IntArrayPassFailPair other) {
+    final int numStmts = sum.pass().length;
+    for (int j = 0; j < numStmts; j += 1) {
+      sum.pass()[j] += other.pass()[j];
+      sum.fail()[j] += other.fail()[j];
+    }
+    return sum;
+  }
+
+}
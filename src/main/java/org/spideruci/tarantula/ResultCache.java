@@ -0,0 +1,175 @@
+package org.spideruci.tarantula;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Suspiciousness and confidence results on local disk, one file per content
+ * key. Once the files exceed the size budget, the least recently used ones
+ * are deleted, by modification time, which a hit renews. A result is written
+ * to a temporary file and renamed, so readers never see a partial one. All
+ * values are little-endian:
+ *
+ * <pre>
+ * int      magic ("TRNR"), numStmts
+ * double[] suspiciousness, confidence -- [stmt]
+ * </pre>
+ */
+public class ResultCache {
+
+  static final int MAGIC = 0x524e5254; // "TRNR", little-endian
+
+  public static final long DEFAULT_MAX_BYTES = 1L << 30;
+
+  private static final String SUFFIX = ".res";
+  private static final int HEADER_BYTES = 8;
+
+  private final File directory;
+  private final long maxBytes;
+
+  public ResultCache(File directory, long maxBytes) throws IOException {
+    if (maxBytes <= 0L) {
+      throw new IllegalArgumentException("maxBytes: " + maxBytes);
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create result cache: " + directory);
+    }
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @return suspiciousness and confidence -- [SUSPICIOUSNESS|CONFIDENCE][stmt]
+   * of the key, or null on a miss.
+   */
+  public double[][] get(String key) throws IOException {
+    File file = getFile(key);
+    RandomAccessFile in;
+    try {
+      in = new RandomAccessFile(file, "r");
+    } catch (IOException e) {
+      return null;
+    }
+    try {
+      FileChannel channel = in.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocate((int) channel.size())
+          .order(ByteOrder.LITTLE_ENDIAN);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) break;
+      }
+      buffer.flip();
+      if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+        throw new IOException("Not a cached result: " + file);
+      }
+      final int numStmts = buffer.getInt();
+      if (buffer.remaining() != 16L * numStmts) {
+        throw new IOException("Truncated cached result: " + file);
+      }
+      double[] suspiciousness = new double[numStmts];
+      double[] confidence = new double[numStmts];
+      buffer.asDoubleBuffer().get(suspiciousness);
+      buffer.position(buffer.position() + 8 * numStmts);
+      buffer.asDoubleBuffer().get(confidence);
+      file.setLastModified(System.currentTimeMillis());
+      return new double[][] { suspiciousness, confidence };
+    } finally {
+      in.close();
+    }
+  }
+
+  public void put(String key, double[][] suspiciousnessAndConfidence)
+      throws IOException {
+    final double[] suspiciousness = suspiciousnessAndConfidence[0];
+    final double[] confidence = suspiciousnessAndConfidence[1];
+    final int numStmts = suspiciousness.length;
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 16 * numStmts)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC).putInt(numStmts);
+    buffer.asDoubleBuffer().put(suspiciousness).put(confidence);
+    buffer.clear();
+
+    File temp = File.createTempFile(key, ".tmp", directory);
+    RandomAccessFile out = new RandomAccessFile(temp, "rw");
+    try {
+      FileChannel channel = out.getChannel();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } finally {
+      out.close();
+    }
+    File file = getFile(key);
+    if (!temp.renameTo(file)) {
+      // an existing file is not replaced everywhere
+      file.delete();
+      if (!temp.renameTo(file)) {
+        temp.delete();
+        throw new IOException("Cannot store cached result: " + file);
+      }
+    }
+    evict();
+  }
+
+  /**
+   * Deletes the least recently used results until the rest fit the budget.
+   */
+  void evict() {
+    File[] files = directory.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return file.getName().endsWith(SUFFIX);
+      }
+    });
+    if (files == null) return;
+
+    long bytes = 0L;
+    for (File file : files) {
+      bytes += file.length();
+    }
+    if (bytes <= maxBytes) return;
+
+    final long[] lastModified = new long[files.length];
+    Integer[] order = new Integer[files.length];
+    for (int n = 0; n < files.length; n += 1) {
+      lastModified[n] = files[n].lastModified();
+      order[n] = n;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        return Long.compare(lastModified[a], lastModified[b]);
+      }
+    });
+    for (int n = 0; n < order.length && bytes > maxBytes; n += 1) {
+      File file = files[order[n]];
+      final long length = file.length();
+      if (file.delete()) {
+        bytes -= length;
+      }
+    }
+  }
+
+  public long getBytes() {
+    long bytes = 0L;
+    File[] files = directory.listFiles();
+    if (files == null) return 0L;
+    for (File file : files) {
+      if (file.getName().endsWith(SUFFIX)) {
+        bytes += file.length();
+      }
+    }
+    return bytes;
+  }
+
+  private File getFile(String key) {
+    return new File(directory, key + SUFFIX);
+  }
+
+}
@@ -0,0 +1,125 @@
+package org.spideruci.tarantula;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The partition of the statement index space into one range of consecutive
+ * statements per source file, in the order of the record-2 entries of a
+ * cov_matrix. File f holds statements [getFromStmt(f), getToStmt(f)).
+ */
+public class SourceFileRanges {
+
+  /** the name of the single source file of a matrix that names none */
+  public static final String DEFAULT_NAME = "space.c";
+
+  private String[] names = new String[8];
+  private int[] starts = new int[9];
+  private int numFiles;
+  private final Map<String, Integer> files = new HashMap<String, Integer>();
+
+  /**
+   * @return one source file, {@link #DEFAULT_NAME}, of all the statements.
+   */
+  public static SourceFileRanges single(int numStmts) {
+    return new SourceFileRanges().add(DEFAULT_NAME, numStmts);
+  }
+
+  /**
+   * Appends a source file whose statements follow those of the last one.
+   */
+  public SourceFileRanges add(String name, int numStmts) {
+    if (numStmts < 0) {
+      throw new IllegalArgumentException("numStmts: " + numStmts);
+    }
+    if (numFiles == names.length) {
+      names = Arrays.copyOf(names, 2 * numFiles);
+      starts = Arrays.copyOf(starts, 2 * numFiles + 1);
+    }
+    names[numFiles] = name;
+    starts[numFiles + 1] = starts[numFiles] + numStmts;
+    if (!files.containsKey(name)) {
+      files.put(name, numFiles);
+    }
+    numFiles += 1;
+    return this;
+  }
+
+  public int getFileCount() {
+    return numFiles;
+  }
+
+  public String getName(int file) {
+    checkFile(file);
+    return names[file];
+  }
+
+  public int getFromStmt(int file) {
+    checkFile(file);
+    return starts[file];
+  }
+
+  public int getToStmt(int file) {
+    checkFile(file);
+    return starts[file + 1];
+  }
+
+  public int getStmtCount(int file) {
+    return getToStmt(file) - getFromStmt(file);
+  }
+
+  /**
+   * @return the number of statements of all the source files.
+   */
+  public int getStmtCount() {
+    return starts[numFiles];
+  }
+
+  /**
+   * @return the first source file of that name, or -1.
+   */
+  public int indexOf(String name) {
+    Integer file = files.get(name);
+    return file == null ? -1 : file;
+  }
+
+  /**
+   * @return the source file that holds the statement, in O(log files).
+   */
+  public int getFile(int stmt) {
+    if (stmt < 0 || stmt >= getStmtCount()) {
+      throw new IndexOutOfBoundsException("stmt: " + stmt);
+    }
+    int low = 0;
+    int high = numFiles - 1;
+    while (low < high) {
+      final int mid = (low + high + 1) >>> 1;
+      if (starts[mid] <= stmt) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the ranges of only these source files, renumbered from
+   * statement 0 in the given order.
+   */
+  public SourceFileRanges select(int... files) {
+    SourceFileRanges selected = new SourceFileRanges();
+    for (int file : files) {
+      selected.add(getName(file), getStmtCount(file));
+    }
+    return selected;
+  }
+
+  private void checkFile(int file) {
+    if (file < 0 || file >= numFiles) {
+      throw new IndexOutOfBoundsException("file: " + file);
+    }
+  }
+
+}
@@ -0,0 +1,193 @@
+package org.spideruci.tarantula;
+
+import java.util.Arrays;
+
+/**
+ * Coverage matrix M -- [test][stmt] in compressed sparse column form: the
+ * test cases that cover statement j are
+ * {@code testIndices[colStart[j] .. colStart[j + 1])}, in ascending order.
+ * It is the column counterpart of {@link SparseCoverageMatrix}: a statement
+ * that is not coverable is skipped without touching its cells, and every
+ * statement's counts are summed in place, with no scattered writes.
+ */
+public class SparseColumnCoverageMatrix implements TarantulaMatrix {
+
+  private final int numTests;
+  private final int[] colStart;
+  private final int[] testIndices;
+
+  /**
+   * @param numTests number of test cases
+   * @param colStart offsets into testIndices -- [stmt + 1]
+   * @param testIndices ascending covering test cases of every statement,
+   * concatenated
+   */
+  public SparseColumnCoverageMatrix(
+      int numTests, int[] colStart, int[] testIndices) {
+    this.numTests = numTests;
+    this.colStart = colStart;
+    this.testIndices = testIndices;
+  }
+
+  public static SparseColumnCoverageMatrix fromBooleanMatrix(boolean[][] M) {
+    final int numTests = M.length;
+    final int numStmts = numTests == 0 ? 0 : M[0].length;
+
+    int[] colStart = new int[numStmts + 1];
+    for (int i = 0; i < numTests; i += 1) {
+      boolean[] row = M[i];
+      for (int j = 0; j < numStmts; j += 1) {
+        if (row[j]) colStart[j + 1] += 1;
+      }
+    }
+    for (int j = 0; j < numStmts; j += 1) {
+      colStart[j + 1] += colStart[j];
+    }
+
+    // rows are visited in order, so every column comes out ascending
+    int[] next = Arrays.copyOf(colStart, numStmts);
+    int[] testIndices = new int[colStart[numStmts]];
+    for (int i = 0; i < numTests; i += 1) {
+      boolean[] row = M[i];
+      for (int j = 0; j < numStmts; j += 1) {
+        if (row[j]) {
+          testIndices[next[j]++] = i;
+        }
+      }
+    }
+    return new SparseColumnCoverageMatrix(numTests, colStart, testIndices);
+  }
+
+  /**
+   * @return number of covered cells
+   */
+  public int getCoveredCount() {
+    return testIndices.length;
+  }
+
+  /**
+   * @return the ascending test cases that cover statement {@code stmt}
+   */
+  public int[] getCoveringTests(int stmt) {
+    return Arrays.copyOfRange(testIndices, colStart[stmt], colStart[stmt + 1]);
+  }
+
+  @Override
+  public int getTestCount() {
+    return numTests;
+  }
+
+  @Override
+  public int getStmtCount() {
+    return colStart.length - 1;
+  }
+
+  @Override
+  public boolean isCovered(int test, int stmt) {
+    return Arrays.binarySearch(
+        testIndices, colStart[stmt], colStart[stmt + 1], test) >= 0;
+  }
+
+  /**
+   * A row is spread over every column, so this costs a binary search per
+   * statement that any test case covers; scans of whole rows should prefer the
+   * row layouts.
+   */
+  @Override
+  public void getRow(int test, long[] row) {
+    Arrays.fill(row, 0L);
+    final int numStmts = getStmtCount();
+    for (int j = 0; j < numStmts; j += 1) {
+      final int from = colStart[j];
+      final int to = colStart[j + 1];
+      if (from == to) continue;
+      if (test < testIndices[from] || test > testIndices[to - 1]) continue;
+      if (Arrays.binarySearch(testIndices, from, to, test) >= 0) {
+        row[j >>> 6] |= 1L << j;
+      }
+    }
+  }
+
+  @Override
+  public void findTestsWithoutCoverage(int fromTest, int toTest, boolean[] B) {
+    Arrays.fill(B, fromTest, toTest, true);
+    final int numStmts = getStmtCount();
+    for (int j = 0; j < numStmts; j += 1) {
+      final int end = colStart[j + 1];
+      for (int k = firstTest(j, fromTest); k < end; k += 1) {
+        final int i = testIndices[k];
+        if (i >= toTest) break;
+        B[i] = false;
+      }
+    }
+  }
+
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    final int numStmts = getStmtCount();
+    for (int j = 0; j < numStmts; j += 1) {
+      if (!C[j]) continue;
+      final int end = colStart[j + 1];
+      int pass = 0;
+      int fail = 0;
+      for (int k = firstTest(j, fromTest); k < end; k += 1) {
+        final int i = testIndices[k];
+        if (i >= toTest) break;
+        if (B[i]) continue;
+        if (!L[i]) continue;
+        if (F[i]) {
+          fail++;
+        } else {
+          pass++;
+        }
+      }
+      passOnStmt[j] += pass;
+      failOnStmt[j] += fail;
+    }
+  }
+
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, long[] coverable, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    countTestsOnStmts(fromTest, toTest, B, L, C, F, passOnStmt, failOnStmt);
+  }
+
+  /**
+   * @return the offset of the first test case of the column that is not
+   * below {@code fromTest}.
+   */
+  private int firstTest(int stmt, int fromTest) {
+    final int from = colStart[stmt];
+    final int to = colStart[stmt + 1];
+    if (fromTest == 0 || from == to) return from;
+    final int k = Arrays.binarySearch(testIndices, from, to, fromTest);
+    return k >= 0 ? k : -k - 1;
+  }
+
+  @Override
+  public boolean[][] toBooleanMatrix() {
+    final int numStmts = getStmtCount();
+    boolean[][] M = new boolean[numTests][numStmts];
+    for (int j = 0; j < numStmts; j += 1) {
+      for (int k = colStart[j]; k < colStart[j + 1]; k += 1) {
+        M[testIndices[k]][j] = true;
+      }
+    }
+    return M;
+  }
+
+  @Override
+  public CoverageLayout getLayout() {
+    return CoverageLayout.SPARSE_COLUMN;
+  }
+
+  @Override
+  public long getFootprint() {
+    return getLayout().estimateFootprint(
+        getTestCount(), getStmtCount(), getCoveredCount());
+  }
+
+}
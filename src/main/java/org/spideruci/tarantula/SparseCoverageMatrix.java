@@ -0,0 +1,167 @@
+package org.spideruci.tarantula;
+
+import java.util.Arrays;
+
+/**
+ * Coverage matrix M -- [test][stmt] in compressed sparse row form: the
+ * statements covered by test case i are
+ * {@code stmtIndices[rowStart[i] .. rowStart[i + 1])}, in ascending order.
+ * Memory and the matrix scans scale with the number of covered cells instead
+ * of tests x statements.
+ */
+public class SparseCoverageMatrix implements TarantulaMatrix {
+
+  private final int numStmts;
+  private final int[] rowStart;
+  private final int[] stmtIndices;
+
+  /**
+   * @param numStmts number of statements
+   * @param rowStart offsets into stmtIndices -- [test + 1]
+   * @param stmtIndices ascending covered statements of every test case,
+   * concatenated
+   */
+  public SparseCoverageMatrix(int numStmts, int[] rowStart, int[] stmtIndices) {
+    this.numStmts = numStmts;
+    this.rowStart = rowStart;
+    this.stmtIndices = stmtIndices;
+  }
+
+  public static SparseCoverageMatrix fromBooleanMatrix(boolean[][] M) {
+    final int numTests = M.length;
+    final int numStmts = numTests == 0 ? 0 : M[0].length;
+
+    int[] rowStart = new int[numTests + 1];
+    for (int i = 0; i < numTests; i += 1) {
+      int covered = 0;
+      for (boolean cell : M[i]) {
+        if (cell) covered += 1;
+      }
+      rowStart[i + 1] = rowStart[i] + covered;
+    }
+
+    int[] stmtIndices = new int[rowStart[numTests]];
+    for (int i = 0; i < numTests; i += 1) {
+      int k = rowStart[i];
+      boolean[] row = M[i];
+      for (int j = 0; j < numStmts; j += 1) {
+        if (row[j]) {
+          stmtIndices[k++] = j;
+        }
+      }
+    }
+    return new SparseCoverageMatrix(numStmts, rowStart, stmtIndices);
+  }
+
+  /**
+   * @param coveredStmts ascending covered statements -- [test][]
+   */
+  public static SparseCoverageMatrix fromCoveredStmts(
+      int numStmts, int[][] coveredStmts) {
+    final int numTests = coveredStmts.length;
+    int[] rowStart = new int[numTests + 1];
+    for (int i = 0; i < numTests; i += 1) {
+      rowStart[i + 1] = rowStart[i] + coveredStmts[i].length;
+    }
+    int[] stmtIndices = new int[rowStart[numTests]];
+    for (int i = 0; i < numTests; i += 1) {
+      System.arraycopy(coveredStmts[i], 0,
+          stmtIndices, rowStart[i], coveredStmts[i].length);
+    }
+    return new SparseCoverageMatrix(numStmts, rowStart, stmtIndices);
+  }
+
+  /**
+   * @return number of covered cells
+   */
+  public int getCoveredCount() {
+    return stmtIndices.length;
+  }
+
+  /**
+   * @return the ascending statements covered by test case {@code test}
+   */
+  public int[] getCoveredStmts(int test) {
+    return Arrays.copyOfRange(stmtIndices, rowStart[test], rowStart[test + 1]);
+  }
+
+  @Override
+  public int getTestCount() {
+    return rowStart.length - 1;
+  }
+
+  @Override
+  public int getStmtCount() {
+    return numStmts;
+  }
+
+  @Override
+  public boolean isCovered(int test, int stmt) {
+    return Arrays.binarySearch(
+        stmtIndices, rowStart[test], rowStart[test + 1], stmt) >= 0;
+  }
+
+  @Override
+  public void getRow(int test, long[] row) {
+    Arrays.fill(row, 0L);
+    for (int k = rowStart[test]; k < rowStart[test + 1]; k += 1) {
+      final int j = stmtIndices[k];
+      row[j >>> 6] |= 1L << j;
+    }
+  }
+
+  @Override
+  public void findTestsWithoutCoverage(int fromTest, int toTest, boolean[] B) {
+    for (int i = fromTest; i < toTest; i += 1) {
+      B[i] = rowStart[i] == rowStart[i + 1];
+    }
+  }
+
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    for (int i = fromTest; i < toTest; i += 1) {
+      if (B[i]) continue;
+      if (!L[i]) continue;
+      int[] onStmt = F[i] ? failOnStmt : passOnStmt;
+      for (int k = rowStart[i]; k < rowStart[i + 1]; k += 1) {
+        final int j = stmtIndices[k];
+        if (C[j]) {
+          onStmt[j]++;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, long[] coverable, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    countTestsOnStmts(fromTest, toTest, B, L, C, F, passOnStmt, failOnStmt);
+  }
+
+  @Override
+  public boolean[][] toBooleanMatrix() {
+    final int numTests = getTestCount();
+    boolean[][] M = new boolean[numTests][numStmts];
+    for (int i = 0; i < numTests; i += 1) {
+      for (int k = rowStart[i]; k < rowStart[i + 1]; k += 1) {
+        M[i][stmtIndices[k]] = true;
+      }
+    }
+    return M;
+  }
+
+  @Override
+  public CoverageLayout getLayout() {
+    return CoverageLayout.SPARSE;
+  }
+
+  @Override
+  public long getFootprint() {
+    return getLayout().estimateFootprint(
+        getTestCount(), getStmtCount(), getCoveredCount());
+  }
+
+}
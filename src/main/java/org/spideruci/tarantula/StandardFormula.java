@@ -0,0 +1,101 @@
+package org.spideruci.tarantula;
+
+/**
+ * The common suspiciousness formulas. With ef = f(s), ep = p(s), and F and P
+ * the live failing and passing totals:
+ *
+ * <pre>
+ * TARANTULA  (ef/F) / (ef/F + ep/P)
+ * OCHIAI     ef / sqrt(F * (ef + ep))
+ * JACCARD    ef / (F + ep)
+ * DSTAR      ef^2 / (ep + F - ef)
+ * OP2        ef - ep / (P + 1)
+ * </pre>
+ *
+ * A ratio over a zero total counts as 0, as in
+ * {@link TarantulaFaultLocalizer#calculatePassRatioAndFailRatio}, so TARANTULA
+ * is exactly the suspiciousness of the localizer. DSTAR is positive infinity
+ * for a statement covered by every failing and no passing test case. Each
+ * formula has its own loop, so that the JIT can compile it without a call
+ * per statement.
+ */
+public enum StandardFormula implements SuspiciousnessFormula {
+
+  TARANTULA {
+    @Override
+    public void calculateScores(int fromStmt, int toStmt,
+        int totalLivePass, int totalLiveFail,
+        int[] passOnStmt, int[] failOnStmt, double[] scores) {
+      final double passDivisor =
+          TarantulaFaultLocalizer.ratioDivisor(totalLivePass);
+      final double failDivisor =
+          TarantulaFaultLocalizer.ratioDivisor(totalLiveFail);
+      for (int i = fromStmt; i < toStmt; i++) {
+        final double passRatio = (double) passOnStmt[i] / passDivisor;
+        final double failRatio = (double) failOnStmt[i] / failDivisor;
+        final double covered = Math.min(passOnStmt[i] + failOnStmt[i], 1);
+        scores[i] = covered
+            * (failRatio / (failRatio + passRatio + (1d - covered)))
+            + (covered - 1d);
+      }
+    }
+  },
+
+  OCHIAI {
+    @Override
+    public void calculateScores(int fromStmt, int toStmt,
+        int totalLivePass, int totalLiveFail,
+        int[] passOnStmt, int[] failOnStmt, double[] scores) {
+      for (int i = fromStmt; i < toStmt; i++) {
+        final int ef = failOnStmt[i];
+        final int ep = passOnStmt[i];
+        scores[i] = ef + ep == 0 ? -1d
+            : ef == 0 ? 0d
+            : ef / Math.sqrt((double) totalLiveFail * (ef + ep));
+      }
+    }
+  },
+
+  JACCARD {
+    @Override
+    public void calculateScores(int fromStmt, int toStmt,
+        int totalLivePass, int totalLiveFail,
+        int[] passOnStmt, int[] failOnStmt, double[] scores) {
+      for (int i = fromStmt; i < toStmt; i++) {
+        final int ef = failOnStmt[i];
+        final int ep = passOnStmt[i];
+        scores[i] = ef + ep == 0 ? -1d
+            : (double) ef / (double) (totalLiveFail + ep);
+      }
+    }
+  },
+
+  DSTAR {
+    @Override
+    public void calculateScores(int fromStmt, int toStmt,
+        int totalLivePass, int totalLiveFail,
+        int[] passOnStmt, int[] failOnStmt, double[] scores) {
+      for (int i = fromStmt; i < toStmt; i++) {
+        final int ef = failOnStmt[i];
+        final int ep = passOnStmt[i];
+        scores[i] = ef + ep == 0 ? -1d
+            : (double) ef * ef / (double) (ep + totalLiveFail - ef);
+      }
+    }
+  },
+
+  OP2 {
+    @Override
+    public void calculateScores(int fromStmt, int toStmt,
+        int totalLivePass, int totalLiveFail,
+        int[] passOnStmt, int[] failOnStmt, double[] scores) {
+      for (int i = fromStmt; i < toStmt; i++) {
+        final int ef = failOnStmt[i];
+        final int ep = passOnStmt[i];
+        scores[i] = ef + ep == 0 ? -1d
+            : ef - ep / (totalLivePass + 1d);
+      }
+    }
+  };
+
+}
@@ -0,0 +1,155 @@
+package org.spideruci.tarantula;
+
+import java.util.Arrays;
+
+/**
+ * Coverage matrix M -- [test][stmt] stored statement-major: every statement's
+ * column is a bit vector over test cases (see {@link BitVectors}). The pass and
+ * fail counts of a statement are then popcount(column &amp; live failing) and
+ * popcount(column &amp; live passing), with no scattered writes per covered
+ * cell.
+ */
+public class StmtMajorCoverageMatrix implements TarantulaMatrix {
+
+  private final int numTests;
+  private final int numStmts;
+  private final long[][] columns;
+
+  public StmtMajorCoverageMatrix(int numTests, int numStmts) {
+    this.numTests = numTests;
+    this.numStmts = numStmts;
+    this.columns = new long[numStmts][BitVectors.wordCount(numTests)];
+  }
+
+  public static StmtMajorCoverageMatrix fromBooleanMatrix(boolean[][] M) {
+    final int numTests = M.length;
+    final int numStmts = numTests == 0 ? 0 : M[0].length;
+    StmtMajorCoverageMatrix matrix =
+        new StmtMajorCoverageMatrix(numTests, numStmts);
+    for (int i = 0; i < numTests; i += 1) {
+      final long bit = 1L << i;
+      final int w = i >>> 6;
+      boolean[] row = M[i];
+      for (int j = 0; j < numStmts; j += 1) {
+        if (row[j]) {
+          matrix.columns[j][w] |= bit;
+        }
+      }
+    }
+    return matrix;
+  }
+
+  public void set(int test, int stmt, boolean covered) {
+    BitVectors.set(columns[stmt], test, covered);
+  }
+
+  /**
+   * @return the packed test vector of statement {@code stmt}; the array is the
+   * matrix's own storage, not a copy.
+   */
+  public long[] getColumn(int stmt) {
+    return columns[stmt];
+  }
+
+  @Override
+  public int getTestCount() {
+    return numTests;
+  }
+
+  @Override
+  public int getStmtCount() {
+    return numStmts;
+  }
+
+  @Override
+  public boolean isCovered(int test, int stmt) {
+    return BitVectors.get(columns[stmt], test);
+  }
+
+  @Override
+  public void getRow(int test, long[] row) {
+    Arrays.fill(row, 0L);
+    for (int j = 0; j < numStmts; j += 1) {
+      if (BitVectors.get(columns[j], test)) {
+        row[j >>> 6] |= 1L << j;
+      }
+    }
+  }
+
+  @Override
+  public void findTestsWithoutCoverage(int fromTest, int toTest, boolean[] B) {
+    if (fromTest >= toTest) return;
+    final int fromWord = fromTest >>> 6;
+    final int toWord = BitVectors.wordCount(toTest);
+    long[] covering = new long[BitVectors.wordCount(numTests)];
+    for (long[] column : columns) {
+      for (int w = fromWord; w < toWord; w += 1) {
+        covering[w] |= column[w];
+      }
+    }
+
+    for (int i = fromTest; i < toTest; i += 1) {
+      B[i] = !BitVectors.get(covering, i);
+    }
+  }
+
+  /**
+   * Only the words of each column that hold test cases in [fromTest, toTest)
+   * are counted, so ranges aligned to 64 test cases never share a word.
+   */
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    final int words = BitVectors.wordCount(numTests);
+    long[] livePass = new long[words];
+    long[] liveFail = new long[words];
+    boolean anyLive = false;
+    for (int i = fromTest; i < toTest; i += 1) {
+      if (B[i]) continue;
+      if (!L[i]) continue;
+      BitVectors.set(F[i] ? liveFail : livePass, i, true);
+      anyLive = true;
+    }
+    if (!anyLive) return;
+
+    final int fromWord = fromTest >>> 6;
+    final int toWord = BitVectors.wordCount(toTest);
+    for (int j = 0; j < passOnStmt.length; j += 1) {
+      if (!C[j]) continue;
+      long[] column = columns[j];
+      passOnStmt[j] += BitVectors.countAnd(column, livePass, fromWord, toWord);
+      failOnStmt[j] += BitVectors.countAnd(column, liveFail, fromWord, toWord);
+    }
+  }
+
+  @Override
+  public void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, long[] coverable, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt) {
+    countTestsOnStmts(fromTest, toTest, B, L, C, F, passOnStmt, failOnStmt);
+  }
+
+  @Override
+  public boolean[][] toBooleanMatrix() {
+    boolean[][] M = new boolean[numTests][numStmts];
+    for (int j = 0; j < numStmts; j += 1) {
+      for (int i = 0; i < numTests; i += 1) {
+        M[i][j] = BitVectors.get(columns[j], i);
+      }
+    }
+    return M;
+  }
+
+  @Override
+  public CoverageLayout getLayout() {
+    return CoverageLayout.STMT_MAJOR;
+  }
+
+  @Override
+  public long getFootprint() {
+    return getLayout().estimateFootprint(
+        getTestCount(), getStmtCount(), 0L);
+  }
+
+}
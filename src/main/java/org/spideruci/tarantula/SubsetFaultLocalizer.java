@@ -0,0 +1,136 @@
+package org.spideruci.tarantula;
+
+/**
+ * Evaluates many subset test suites -- many L vectors -- over one coverage
+ * matrix in a single pass. M is held statement-major, so that every
+ * statement's column is read once and counted against the packed live passing
+ * and live failing tests of each subset with popcounts, instead of running a
+ * full {@link TarantulaFaultLocalizer#compute} per subset.
+ *
+ * Bad coverage is detected once, when the localizer is created, exactly as
+ * {@code compute(data, false)} would. The arithmetic per statement is that of
+ * the staged computation, so the results of every subset are identical to it.
+ */
+public class SubsetFaultLocalizer {
+
+  private final int numOrigTests;
+  private final int numStmts;
+  private final StmtMajorCoverageMatrix M;
+  private final boolean[] B;
+  private final boolean[] C;
+  private final boolean[] F;
+
+  /**
+   * @param data coverage matrix with its F and C set; its L is ignored
+   */
+  public SubsetFaultLocalizer(TarantulaData data) {
+    numOrigTests = data.getOrigNumTests();
+    numStmts = data.getNumStmts();
+    M = toStmtMajor(data.getCoverage());
+    B = new boolean[numOrigTests];
+    M.findTestsWithoutCoverage(0, numOrigTests, B);
+    C = data.getC();
+    F = data.getF();
+  }
+
+  private static StmtMajorCoverageMatrix toStmtMajor(TarantulaMatrix M) {
+    if (M instanceof StmtMajorCoverageMatrix) {
+      return (StmtMajorCoverageMatrix) M;
+    }
+
+    final int numTests = M.getTestCount();
+    final int numStmts = M.getStmtCount();
+    StmtMajorCoverageMatrix columns =
+        new StmtMajorCoverageMatrix(numTests, numStmts);
+    if (M instanceof SparseCoverageMatrix) {
+      SparseCoverageMatrix sparse = (SparseCoverageMatrix) M;
+      for (int i = 0; i < numTests; i += 1) {
+        for (int j : sparse.getCoveredStmts(i)) {
+          columns.set(i, j, true);
+        }
+      }
+      return columns;
+    }
+    if (M instanceof SparseColumnCoverageMatrix) {
+      SparseColumnCoverageMatrix sparse = (SparseColumnCoverageMatrix) M;
+      for (int j = 0; j < numStmts; j += 1) {
+        for (int i : sparse.getCoveringTests(j)) {
+          columns.set(i, j, true);
+        }
+      }
+      return columns;
+    }
+
+    for (int i = 0; i < numTests; i += 1) {
+      for (int j = 0; j < numStmts; j += 1) {
+        if (M.isCovered(i, j)) {
+          columns.set(i, j, true);
+        }
+      }
+    }
+    return columns;
+  }
+
+  /**
+   * @param Ls live test cases of every subset -- [subset][test]
+   * @return suspiciousness and confidence of every subset --
+   * [subset][SUSPICIOUSNESS | CONFIDENCE][stmt]
+   */
+  public double[][][] compute(boolean[][] Ls) {
+    final int numSubsets = Ls.length;
+    final int words = BitVectors.wordCount(numOrigTests);
+
+    long[][] livePass = new long[numSubsets][words];
+    long[][] liveFail = new long[numSubsets][words];
+    int[] totalLivePass = new int[numSubsets];
+    int[] totalLiveFail = new int[numSubsets];
+    for (int s = 0; s < numSubsets; s += 1) {
+      boolean[] L = Ls[s];
+      for (int i = 0; i < numOrigTests; i += 1) {
+        if (!L[i]) continue;
+        if (B[i]) continue;
+        if (F[i]) {
+          BitVectors.set(liveFail[s], i, true);
+          totalLiveFail[s]++;
+        } else {
+          BitVectors.set(livePass[s], i, true);
+          totalLivePass[s]++;
+        }
+      }
+    }
+
+    // one pass over the columns of M, shared by every subset
+    int[][] passOnStmt = new int[numSubsets][numStmts];
+    int[][] failOnStmt = new int[numSubsets][numStmts];
+    for (int j = 0; j < numStmts; j += 1) {
+      if (!C[j]) continue;
+      long[] column = M.getColumn(j);
+      if (BitVectors.isEmpty(column)) continue;
+      for (int s = 0; s < numSubsets; s += 1) {
+        passOnStmt[s][j] = BitVectors.countAnd(column, livePass[s]);
+        failOnStmt[s][j] = BitVectors.countAnd(column, liveFail[s]);
+      }
+    }
+
+    double[][][] results = new double[numSubsets][][];
+    for (int s = 0; s < numSubsets; s += 1) {
+      double[] suspiciousness = new double[numStmts];
+      double[] confidence = new double[numStmts];
+      TarantulaFaultLocalizer.scoreCounts(0, numStmts,
+          totalLivePass[s], totalLiveFail[s], passOnStmt[s], failOnStmt[s],
+          suspiciousness, confidence);
+      results[s] = new double[][] { suspiciousness, confidence };
+      passOnStmt[s] = null;
+      failOnStmt[s] = null;
+    }
+    return results;
+  }
+
+  /**
+   * @return bad coverage -- [test]
+   */
+  public boolean[] getB() {
+    return B;
+  }
+
+}
@@ -0,0 +1,24 @@
+package org.spideruci.tarantula;
+
+/**
+ * A spectrum-based suspiciousness formula over the counts that one scan of M
+ * produces: p(s) and f(s) of every statement, and the live passing and
+ * failing totals. See {@link StandardFormula} for the common ones, and
+ * {@link TarantulaFaultLocalizer#computeScores} to score many formulas from a
+ * single scan.
+ */
+public interface SuspiciousnessFormula {
+
+  /**
+   * Sets the score of every statement in [fromStmt, toStmt). Statements that
+   * no live test case covers are scored -1, as in
+   * {@link TarantulaFaultLocalizer#calculateSuspiciousnessAndConfidence}.
+   * @param passOnStmt p(s) -- [stmt]
+   * @param failOnStmt f(s) -- [stmt]
+   * @param scores -- [stmt]
+   */
+  void calculateScores(int fromStmt, int toStmt,
+      int totalLivePass, int totalLiveFail,
+      int[] passOnStmt, int[] failOnStmt, double[] scores);
+
+}
@@ -0,0 +1,157 @@
+package org.spideruci.tarantula;
+
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
+
+/**
+ * Ranks the statements of a {@link TarantulaFaultLocalizer} result by
+ * suspiciousness, ties broken by confidence. Statements whose suspiciousness
+ * is the -1 sentinel are not ranked, so the scores of any
+ * {@link SuspiciousnessFormula} can be ranked the same way. Statements that
+ * tie on both values are ranked according to a {@link TiePolicy}.
+ */
+public class SuspiciousnessRanking {
+
+  public enum TiePolicy {
+    /** the tied statements are all given the first of their ranks */
+    BEST,
+    /** the tied statements are all given the last of their ranks */
+    WORST,
+    /** the tied statements are all given the mean of their ranks */
+    AVERAGE
+  }
+
+  private final double[] suspiciousness;
+  private final double[] confidence;
+
+  /**
+   * @param suspiciousnessAndConfidence as returned by
+   * {@link TarantulaFaultLocalizer#compute}
+   */
+  public SuspiciousnessRanking(double[][] suspiciousnessAndConfidence) {
+    this(suspiciousnessAndConfidence[SUSPICIOUSNESS],
+        suspiciousnessAndConfidence[CONFIDENCE]);
+  }
+
+  public SuspiciousnessRanking(double[] suspiciousness, double[] confidence) {
+    this.suspiciousness = suspiciousness;
+    this.confidence = confidence;
+  }
+
+  public boolean isRanked(int stmt) {
+    return suspiciousness[stmt] != -1d;
+  }
+
+  /**
+   * @return whether statement a ranks above statement b; statements that tie
+   * on suspiciousness and confidence are ordered by number.
+   */
+  private boolean outranks(int a, int b) {
+    if (suspiciousness[a] != suspiciousness[b]) {
+      return suspiciousness[a] > suspiciousness[b];
+    }
+    if (confidence[a] != confidence[b]) {
+      return confidence[a] > confidence[b];
+    }
+    return a < b;
+  }
+
+  /**
+   * Keeps the k best statements seen so far in a heap whose root is the
+   * weakest of them, so the statements are scanned once in O(n log k),
+   * without sorting all of them.
+   * @return up to k ranked statements, the most suspicious first.
+   */
+  public int[] getTopK(int k) {
+    int[] heap = new int[Math.max(0, Math.min(k, suspiciousness.length))];
+    int size = 0;
+    for (int j = 0; j < suspiciousness.length; j += 1) {
+      if (!isRanked(j)) continue;
+      if (size < heap.length) {
+        heap[size] = j;
+        siftUp(heap, size);
+        size += 1;
+      } else if (size > 0 && outranks(j, heap[0])) {
+        heap[0] = j;
+        siftDown(heap, 0, size);
+      }
+    }
+
+    int[] top = new int[size];
+    while (size > 0) {
+      size -= 1;
+      top[size] = heap[0];
+      heap[0] = heap[size];
+      siftDown(heap, 0, size);
+    }
+    return top;
+  }
+
+  private void siftUp(int[] heap, int i) {
+    final int stmt = heap[i];
+    while (i > 0) {
+      final int parent = (i - 1) >>> 1;
+      if (!outranks(heap[parent], stmt)) break;
+      heap[i] = heap[parent];
+      i = parent;
+    }
+    heap[i] = stmt;
+  }
+
+  private void siftDown(int[] heap, int i, int size) {
+    final int stmt = heap[i];
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= size) break;
+      if (child + 1 < size && outranks(heap[child], heap[child + 1])) {
+        child += 1;
+      }
+      if (!outranks(stmt, heap[child])) break;
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = stmt;
+  }
+
+  /**
+   * @return the 1-based rank of the statement, in O(n).
+   * @throws IllegalArgumentException if the statement is not ranked
+   */
+  public double getRank(int stmt, TiePolicy policy) {
+    if (!isRanked(stmt)) {
+      throw new IllegalArgumentException("Statement is not ranked: " + stmt);
+    }
+
+    final double s = suspiciousness[stmt];
+    final double c = confidence[stmt];
+    int better = 0;
+    int tied = 0;
+    for (int j = 0; j < suspiciousness.length; j += 1) {
+      if (!isRanked(j)) continue;
+      if (suspiciousness[j] > s
+          || (suspiciousness[j] == s && confidence[j] > c)) {
+        better += 1;
+      } else if (suspiciousness[j] == s && confidence[j] == c) {
+        tied += 1;
+      }
+    }
+
+    switch (policy) {
+    case BEST:
+      return better + 1;
+    case WORST:
+      return better + tied;
+    default:
+      return better + (tied + 1) / 2d;
+    }
+  }
+
+  public int getRankedStmtCount() {
+    int count = 0;
+    for (int j = 0; j < suspiciousness.length; j += 1) {
+      if (isRanked(j)) count += 1;
+    }
+    return count;
+  }
+
+}
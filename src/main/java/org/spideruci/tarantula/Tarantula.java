@@ -1,11 +1,16 @@
 package org.spideruci.tarantula;
 
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
 import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 
 import org.spideruci.tacoco.coverage.CoverageMatrix;
 import org.spideruci.tacoco.reporting.CoverageJsonReader;
@@ -16,18 +21,175 @@ import com.google.gson.stream.JsonReader;
 public class Tarantula {
   
   public static void main(String[] args) throws IOException {
-    File jsonFile = new File(args[0]);
+    if(args.length > 1 && "--records".equals(args[0])) {
+      localizeCoverageRecords(new File(args[1]), getTopK(args));
+      return;
+    }
+    
+    if(args.length > 2 && "--to-records".equals(args[0])) {
+      writeCoverageRecords(new File(args[1]), new File(args[2]));
+      return;
+    }
+    
+    if(args.length > 1 && "--binary".equals(args[0])) {
+      TarantulaData data = BinaryCoverageFile.map(new File(args[1]));
+      TarantulaFaultLocalizer localizer = getLocalizer(args);
+      double[][] suspiciousnessAndConfidence = localizer.compute(data, false);
+      printResults(suspiciousnessAndConfidence, getTopK(args));
+      return;
+    }
+    
+    if(args.length > 1 && "--serve".equals(args[0])) {
+      long budget = getMemoryBudget(args, 
+          Runtime.getRuntime().maxMemory() / 2);
+      LocalizationServer server = 
+          new LocalizationServer(Integer.parseInt(args[1]), budget);
+      System.err.printf("listening on localhost:%d%n", server.getPort());
+      server.serve();
+      return;
+    }
+    
+    if(args.length > 1 && "--out-of-core".equals(args[0])) {
+      OutOfCoreFaultLocalizer localizer = 
+          new OutOfCoreFaultLocalizer(getMemoryBudget(args));
+      double[][] suspiciousnessAndConfidence = 
+          localizer.compute(new File(args[1]));
+      printResults(suspiciousnessAndConfidence, getTopK(args));
+      return;
+    }
+    
+    TarantulaData data = readCoverageJson(new File(args[0]));
+    if(hasFlag(args, "--verbose")) {
+      TarantulaMatrix M = data.getCoverage();
+      System.err.printf("coverage layout: %s, ~%d KB%n", 
+          M.getLayout(), M.getFootprint() >> 10);
+    }
+    TarantulaFaultLocalizer localizer = getLocalizer(args);
+    double[][] suspiciousnessAndConfidence = localizer.compute(data, false);
+    printResults(suspiciousnessAndConfidence, getTopK(args));
+  }
+  
+  static TarantulaData readCoverageJson(File jsonFile) throws IOException {
     LineCoverageFormat covFormat = CoverageJsonReader.readCoverageFormat(jsonFile);
     InputStreamReader jsonIn = 
         new InputStreamReader(new FileInputStream(jsonFile));
     JsonReader jsonreader = new JsonReader(jsonIn);
-    CoverageJsonReader reader = new CoverageJsonReader(jsonreader);;
-    CoverageMatrix covMat = reader.read(covFormat);
-    TarantulaData data = TarantulaDataBuilder.buildFromCoverageMatrix(covMat);
-    TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
-    double[][] suspiciousnessAndConfidence = localizer.compute(data, false);
-    double[] suspiciousness = suspiciousnessAndConfidence[SUSPICIOUSNESS];
+    try {
+      CoverageJsonReader reader = new CoverageJsonReader(jsonreader);
+      CoverageMatrix covMat = reader.read(covFormat);
+      return TarantulaDataBuilder.buildFromCoverageMatrix(covMat);
+    } finally {
+      jsonreader.close();
+    }
+  }
+  
+  /**
+   * @return a localizer that consults the result cache of a trailing 
+   * {@code --cache DIR}, if there is one.
+   */
+  static TarantulaFaultLocalizer getLocalizer(String[] args) 
+      throws IOException {
+    for(int i = 0; i + 1 < args.length; i += 1) {
+      if("--cache".equals(args[i])) {
+        ResultCache cache = 
+            new ResultCache(new File(args[i + 1]), ResultCache.DEFAULT_MAX_BYTES);
+        return new CachedFaultLocalizer(new TarantulaFaultLocalizer(), cache);
+      }
+    }
+    return new TarantulaFaultLocalizer();
+  }
+  
+  static boolean hasFlag(String[] args, String flag) {
+    for(String arg : args) {
+      if(flag.equals(arg)) return true;
+    }
+    return false;
+  }
+  
+  /**
+   * @return K of a trailing {@code --top K}, or -1 to print every statement.
+   */
+  static int getTopK(String[] args) {
+    for(int i = 0; i + 1 < args.length; i += 1) {
+      if("--top".equals(args[i])) {
+        return Integer.parseInt(args[i + 1]);
+      }
+    }
+    return -1;
+  }
+  
+  /**
+   * @return the bytes of a trailing {@code --budget MB}, or 
+   * {@link OutOfCoreFaultLocalizer#DEFAULT_MEMORY_BUDGET}.
+   */
+  static long getMemoryBudget(String[] args) {
+    return getMemoryBudget(args, OutOfCoreFaultLocalizer.DEFAULT_MEMORY_BUDGET);
+  }
+  
+  static long getMemoryBudget(String[] args, long defaultBudget) {
+    for(int i = 0; i + 1 < args.length; i += 1) {
+      if("--budget".equals(args[i])) {
+        return Long.parseLong(args[i + 1]) << 20;
+      }
+    }
+    return defaultBudget;
+  }
+  
+  static void printResults(double[][] suspiciousnessAndConfidence, int topK) {
+    if(topK < 0) {
+      printSuspiciousness(suspiciousnessAndConfidence[SUSPICIOUSNESS]);
+      return;
+    }
     
+    double[] suspiciousness = suspiciousnessAndConfidence[SUSPICIOUSNESS];
+    double[] confidence = suspiciousnessAndConfidence[CONFIDENCE];
+    SuspiciousnessRanking ranking = 
+        new SuspiciousnessRanking(suspiciousness, confidence);
+    for(int stmt : ranking.getTopK(topK)) {
+      System.out.printf("%d %f %f%n", 
+          stmt, suspiciousness[stmt], confidence[stmt]);
+    }
+  }
+  
+  /**
+   * Streams the per-test records of {@link CoverageRecordJsonReader} from the 
+   * file, without building the coverage matrix.
+   */
+  static void localizeCoverageRecords(File jsonFile, int topK) 
+      throws IOException {
+    JsonReader jsonreader = new JsonReader(new BufferedReader(
+        new InputStreamReader(new FileInputStream(jsonFile))));
+    CoverageAccumulator accumulator;
+    try {
+      CoverageRecordJsonReader reader = new CoverageRecordJsonReader(jsonreader);
+      accumulator = reader.read(new CoverageAccumulator());
+    } finally {
+      jsonreader.close();
+    }
+    double[][] suspiciousnessAndConfidence = 
+        accumulator.computeSuspiciousnessAndConfidence(null);
+    printResults(suspiciousnessAndConfidence, topK);
+  }
+  
+  /**
+   * Converts any coverage file that {@link TarantulaDataCache#load} reads 
+   * into the per-test records of {@link CoverageRecordJsonReader}. The input 
+   * is read whole, once, so that later runs can stream it.
+   */
+  static void writeCoverageRecords(File inFile, File jsonFile) 
+      throws IOException {
+    TarantulaData data = TarantulaDataCache.load(inFile);
+    CoverageRecordJsonWriter writer = new CoverageRecordJsonWriter(
+        new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(jsonFile), "UTF-8")));
+    try {
+      writer.write(data);
+    } finally {
+      writer.close();
+    }
+  }
+  
+  static void printSuspiciousness(double[] suspiciousness) {
     for(int i = 0; i < suspiciousness.length; i += 1) {
       if(i != 0 && i % 10 == 0) {
         System.out.println();
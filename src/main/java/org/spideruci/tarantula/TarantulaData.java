@@ -4,15 +4,13 @@ package org.spideruci.tarantula;
  ******************************************************************************/
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.Externalizable;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.StringTokenizer;
+import java.io.OutputStream;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -75,7 +73,7 @@ public class TarantulaData implements Externalizable {
   /**
    * coverage matrix -- [test][stmt]
    */
-	private boolean[][] M;
+	private TarantulaMatrix M;
 
 	/**
 	 * failing test cases -- [test]
@@ -92,6 +90,13 @@ public class TarantulaData implements Externalizable {
 	 */
 	private int[] S;
 
+	private FaultIndex faultIndex; // faulty statements of every fault, from S
+
+	/**
+	 * statement ranges of the source files, null for a single file
+	 */
+	private SourceFileRanges sourceFiles;
+
 	/**
 	 * coverable statements -- [stmt]
 	 */
@@ -145,10 +150,18 @@ public class TarantulaData implements Externalizable {
 	 * coverage matrix -- [test][stmt]
 	 */
 	public TarantulaData(boolean[][] M) {
+		this(new BooleanCoverageMatrix(M));
+	}
+
+	/**
+	 * @param M 
+	 * coverage matrix -- [test][stmt], in any storage layout
+	 */
+	public TarantulaData(TarantulaMatrix M) {
 		this.M = M;
 
-		numOrigTests = M.length;
-		numStmts = numOrigTests == 0 ? 0 : M[0].length;
+		numOrigTests = M.getTestCount();
+		numStmts = M.getStmtCount();
 
 		// initialize so that all test cases are live
 		L = new boolean[numOrigTests];
@@ -158,6 +171,26 @@ public class TarantulaData implements Externalizable {
 
 	}
 
+	/**
+	 * Replaces the coverage matrix, e.g. once a reader has decoded it. L is
+	 * reset to all live if it does not match the number of test cases.
+	 */
+	void setCoverage(TarantulaMatrix M) {
+		this.M = M;
+		numOrigTests = M.getTestCount();
+		numStmts = M.getStmtCount();
+		if (L == null || L.length != numOrigTests) {
+			L = new boolean[numOrigTests];
+			for (int i = 0; i < L.length; i++) {
+				L[i] = true;
+			}
+		}
+	}
+
+	void setNumFaults(int numFaults) {
+		this.numFaults = numFaults;
+	}
+
 	public void setDirectory(String dirStr) {
 		directory = dirStr;
 	}
@@ -180,6 +213,7 @@ public class TarantulaData implements Externalizable {
 
 	public void setS(int[] S) {
 		this.S = S;
+		faultIndex = null;
 		numFaults = 0;
 		for (int i = 0; i < S.length; i++) {
 			if (S[i] > numFaults)
@@ -188,9 +222,26 @@ public class TarantulaData implements Externalizable {
 	}
 	
 	/**
-	 * @return coverage matrix -- [test][stmt]
+	 * @return coverage matrix -- [test][stmt], the very arrays of the dense 
+	 * layout, so that edits to it are seen by the localizer.
+	 * @throws UnsupportedOperationException when the matrix is stored in any 
+	 * other layout, where edits to an expanded copy would be silently lost; 
+	 * read it through {@link #getCoverage()} instead.
 	 */
 	public boolean[][] getM() {
+		if (M.getLayout() != CoverageLayout.DENSE) {
+			throw new UnsupportedOperationException("coverage matrix is stored " 
+					+ M.getLayout() + "; read it through getCoverage(), or copy it "
+					+ "with getCoverage().toBooleanMatrix()");
+		}
+		return M.toBooleanMatrix();
+	}
+
+	/**
+	 * @return coverage matrix -- [test][stmt], in its storage layout; a 
+	 * read-only view, whatever the layout.
+	 */
+	public TarantulaMatrix getCoverage() {
 		return M;
 	}
 
@@ -224,6 +275,13 @@ public class TarantulaData implements Externalizable {
 	  return this.C;
 	}
 
+	/**
+	 * @return fault numbers -- [stmt]
+	 */
+	public int[] getS() {
+		return S;
+	}
+
 	public int[] getPassOnStmt() {
 		return passOnStmt;
 	}
@@ -284,6 +342,32 @@ public class TarantulaData implements Externalizable {
 		return S[zeroBasedLineNum];
 	}
 
+	/**
+	 * @return the faulty statements of every fault number in S, indexed on
+	 * first use.
+	 */
+	public FaultIndex getFaultIndex() {
+		if (faultIndex == null) {
+			faultIndex = new FaultIndex(S);
+		}
+		return faultIndex;
+	}
+
+	/**
+	 * @return the statement ranges of the source files; a single file,
+	 * {@link SourceFileRanges#DEFAULT_NAME}, unless they were set.
+	 */
+	public SourceFileRanges getSourceFiles() {
+		if (sourceFiles == null) {
+			return SourceFileRanges.single(numStmts);
+		}
+		return sourceFiles;
+	}
+
+	public void setSourceFiles(SourceFileRanges sourceFiles) {
+		this.sourceFiles = sourceFiles;
+	}
+
 	public int getNumUncoverableStmts() {
 		int c = 0;
 		for (int i = 0; i < C.length; i++) {
@@ -320,121 +404,12 @@ public class TarantulaData implements Externalizable {
 		else
 			pwd = directory;
 
-		// FileWriter unzipped_out = new FileWriter(pwd + "/cov_matrix.txt");
-
-		// Reference to our zip file
-		FileWriter out = null;
 		String covMatrixFileName = pwd + "/cov_matrix";
+		OutputStream out = new FileOutputStream(covMatrixFileName);
 		try {
-			out = new FileWriter(covMatrixFileName);
-		} catch (IOException ioe) {
-			ioe.printStackTrace();
-		}
-
-		// write a comment that describes the file format
-		out.write("0 Coverage matrix file\n");
-		out.write("0 Record descriptions:\n");
-		out.write("0      0 comment\n");
-		out
-				.write("0      1 <number of test cases> <number of sourcefiles> <number of bugs>\n");
-		out.write("0      2 <source file name> <number of statements>\n");
-		out
-				.write("0      3 <test case num (0-based)> <coverage vector> (1=covered, 0=uncovered)\n");
-		out.write("0      4 <vector of pass/fail info (1=failed, 0=passed)\n");
-		out
-				.write("0      5 <vector of liveness of test cases (1=live, 0=dead)\n");
-		out
-				.write("0      6 <vector of fault numbers (0=nonfaulty, 1,2,3...F=fault numbers (16 faults max))\n");
-		out
-				.write("0      7 <vector of coverability of statements (1=coverable, 0=uncoverable)\n");
-		out.write("0\n");
-
-		// write the number test cases, number of source files, number of bugs
-		out.write(("1 " + numOrigTests + " 1 " + numFaults + "\n"));
-
-		// for each source file
-		{
-			// write source file name and number of statements
-			out.write(("2 space.c " + numStmts + "\n"));
-
-			// write the coverage matrix
-			for (int i = 0; i < M.length; i++) {
-				out.write(("3 " + i + " "));
-				boolean[] vector = M[i];
-				for (int j = 0; j < vector.length; j++) {
-					if (vector[j])
-						out.write("1");
-					else
-						out.write("0");
-				}
-				out.write("\n");
-
-			}
-
-		}
-
-		// write the pass/fail info
-		out.write("4 ");
-		for (int i = 0; i < F.length; i++) {
-			if (F[i])
-				out.write("1");
-			else
-				out.write("0");
-		}
-		out.write("\n");
-
-		// write the liveness of test cases info
-		out.write("5 ");
-		for (int i = 0; i < L.length; i++) {
-			if (L[i])
-				out.write("1");
-			else
-				out.write("0");
-		}
-		out.write("\n");
-
-		// write the bug number info
-		out.write("6 ");
-		for (int i = 0; i < S.length; i++) {
-			if ((S[i] >= 0) && (S[i] <= 9)) {
-				out.write(("" + S[i]));
-			} else if (S[i] == 10) {
-				out.write("a");
-			} else if (S[i] == 11) {
-				out.write("b");
-			} else if (S[i] == 12) {
-				out.write("c");
-			} else if (S[i] == 13) {
-				out.write("d");
-			} else if (S[i] == 14) {
-				out.write("e");
-			} else if (S[i] == 15) {
-				out.write("f");
-			} else {
-				System.err.println("Bug number out of range: " + S[i]);
-				System.exit(1);
-			}
-		}
-		out.write("\n");
-
-		// write the coverability of each statement
-		out.write("7 ");
-		for (int i = 0; i < C.length; i++) {
-			if (C[i])
-				out.write("1");
-			else
-				out.write("0");
-		}
-		out.write("\n");
-
-		try {
+			new CovMatrixWriter(out).write(this);
+		} finally {
 			out.close();
-//			new CmdExec("/bin/rm -f " + covMatrixFileName + ".gz",
-//					new ReentrantLock());
-//			new CmdExec("/sw/bin/gzip " + covMatrixFileName,
-//					new ReentrantLock());
-		} catch (IOException ioe) {
-			ioe.printStackTrace();
 		}
 
 	}
@@ -447,252 +422,35 @@ public class TarantulaData implements Externalizable {
 		else
 			pwd = directory;
 
-		// FileWriter unzipped_out = new FileWriter(pwd + "/cov_matrix.txt");
-
 		// Reference to our zip file
 		FileOutputStream dest = new FileOutputStream(pwd + "/cov_matrix.gz");
 
-		// Wrap our destination zipfile with a ZipOutputStream
-		GZIPOutputStream out = new GZIPOutputStream(new BufferedOutputStream(
-				dest));
-
-		// write a comment that describes the file format
-		out.write("0 Coverage matrix file\n".getBytes());
-		out.write("0 Record descriptions:\n".getBytes());
-		out.write("0      0 comment\n".getBytes());
-		out
-				.write("0      1 <number of test cases> <number of sourcefiles> <number of bugs>\n"
-						.getBytes());
-		out.write("0      2 <source file name> <number of statements>\n"
-				.getBytes());
-		out
-				.write("0      3 <test case num (0-based)> <coverage vector> (1=covered, 0=uncovered)\n"
-						.getBytes());
-		out.write("0      4 <vector of pass/fail info (1=failed, 0=passed)\n"
-				.getBytes());
-		out
-				.write("0      5 <vector of liveness of test cases (1=live, 0=dead)\n"
-						.getBytes());
-		out
-				.write("0      6 <vector of fault numbers (0=nonfaulty, 1,2,3...F=fault numbers (16 faults max))\n"
-						.getBytes());
-		out
-				.write("0      7 <vector of coverability of statements (1=coverable, 0=uncoverable)\n"
-						.getBytes());
-		out.write("0\n".getBytes());
-
-		// write the number test cases, number of source files, number of bugs
-		out.write(("1 " + numOrigTests + " 1 " + numFaults + "\n").getBytes());
-
-		// for each source file
-		{
-			// write source file name and number of statements
-			out.write(("2 space.c " + numStmts + "\n").getBytes());
-
-			// write the coverage matrix
-			for (int i = 0; i < M.length; i++) {
-				out.write(("3 " + i + " ").getBytes());
-				boolean[] vector = M[i];
-				for (int j = 0; j < vector.length; j++) {
-					if (vector[j])
-						out.write("1".getBytes());
-					else
-						out.write("0".getBytes());
-				}
-				out.write("\n".getBytes());
-
-			}
-
-		}
-
-		// write the pass/fail info
-		out.write("4 ".getBytes());
-		for (int i = 0; i < F.length; i++) {
-			if (F[i])
-				out.write("1".getBytes());
-			else
-				out.write("0".getBytes());
-		}
-		out.write("\n".getBytes());
-
-		// write the liveness of test cases info
-		out.write("5 ".getBytes());
-		for (int i = 0; i < L.length; i++) {
-			if (L[i])
-				out.write("1".getBytes());
-			else
-				out.write("0".getBytes());
-		}
-		out.write("\n".getBytes());
-
-		// write the bug number info
-		out.write("6 ".getBytes());
-		for (int i = 0; i < S.length; i++) {
-			if ((S[i] >= 0) && (S[i] <= 9)) {
-				out.write(("" + S[i]).getBytes());
-			} else if (S[i] == 10) {
-				out.write("a".getBytes());
-			} else if (S[i] == 11) {
-				out.write("b".getBytes());
-			} else if (S[i] == 12) {
-				out.write("c".getBytes());
-			} else if (S[i] == 13) {
-				out.write("d".getBytes());
-			} else if (S[i] == 14) {
-				out.write("e".getBytes());
-			} else if (S[i] == 15) {
-				out.write("f".getBytes());
-			} else {
-				System.err.println("Bug number out of range: " + S[i]);
-				System.exit(1);
-			}
-		}
-		out.write("\n".getBytes());
-
-		// write the coverability of each statement
-		out.write("7 ".getBytes());
-		for (int i = 0; i < C.length; i++) {
-			if (C[i])
-				out.write("1".getBytes());
-			else
-				out.write("0".getBytes());
+		// the writer buffers whole records, so the zip stream needs no buffer
+		GZIPOutputStream out = new GZIPOutputStream(dest, 1 << 16);
+		try {
+			new CovMatrixWriter(out).write(this);
+		} finally {
+			out.close();
 		}
-		out.write("\n".getBytes());
-		out.close();
 
 	}
 
 	public void readExternal(ObjectInput obj_in) throws IOException,
 			ClassNotFoundException {
 
-		final int BUFFER = 2048;
-
 		String pwd = null;
 		if (directory == null)
 			pwd = System.getProperty("user.dir");
 		else
 			pwd = directory;
 
-		// read in the coverage matrix from zip file to a string
+		// stream the coverage matrix from the zip file
 		FileInputStream dest = new FileInputStream(pwd + "/cov_matrix.gz");
 		GZIPInputStream in = new GZIPInputStream(new BufferedInputStream(dest));
-		StringBuffer strBuf = new StringBuffer();
-		while (true) {
-			byte[] b = new byte[BUFFER];
-			int returnVal = in.read(b, 0, BUFFER);
-			String newStr = new String(b);
-			int index = newStr.indexOf('\0');
-			String newerStr = null;
-			if (index == -1)
-				newerStr = newStr;
-			else
-				newerStr = newStr.substring(0, index);
-			strBuf.append(newerStr);
-			if (returnVal == -1)
-				break;
-		}
-
-		in.close();
-
-		// parse the coverage matrix string
-		String covMatrixStr = strBuf.toString();
-		StringTokenizer lineTokenizer = new StringTokenizer(covMatrixStr, "\n");
-		while (lineTokenizer.hasMoreTokens()) {
-			String line = lineTokenizer.nextToken();
-
-			// parse the record id
-			StringTokenizer t = new StringTokenizer(line, " ");
-			if (!t.hasMoreTokens())
-				continue;
-			String recordIDStr = t.nextToken();
-			int recordID = Integer.parseInt(recordIDStr);
-
-			switch (recordID) {
-			case 0:
-				break;
-			case 1:
-				String numTestsStr = t.nextToken();
-				numOrigTests = Integer.parseInt(numTestsStr);
-
-				String numSourceFilesStr = t.nextToken();
-
-				String numFaultsStr = t.nextToken();
-				numFaults = Integer.parseInt(numFaultsStr);
-
-				// initialize coverage matrix
-				M = new boolean[numOrigTests][];
-
-				break;
-
-			case 2:
-				String sourceFileName = t.nextToken();
-
-				String numStmtsStr = t.nextToken();
-				numStmts = Integer.parseInt(numStmtsStr);
-
-				break;
-
-			case 3:
-				String testCaseNumStr = t.nextToken();
-				int testCaseNum = Integer.parseInt(testCaseNumStr);
-
-				M[testCaseNum] = new boolean[numStmts];
-
-				String covVectorStr = t.nextToken();
-				char[] covVector = covVectorStr.toCharArray();
-				for (int i = 0; i < covVector.length; i++) {
-					M[testCaseNum][i] = (covVector[i] == '1') ? true : false;
-				}
-
-				break;
-
-			case 4:
-				F = new boolean[numOrigTests];
-				String failVecStr = t.nextToken();
-				char[] failVec = failVecStr.toCharArray();
-				for (int i = 0; i < failVec.length; i++) {
-					F[i] = (failVec[i] == '1') ? true : false;
-				}
-				calculateOrigFailAndPass();
-
-				break;
-
-			case 5:
-				L = new boolean[numOrigTests];
-				String liveVecStr = t.nextToken();
-				char[] liveVec = liveVecStr.toCharArray();
-				for (int i = 0; i < liveVec.length; i++) {
-					L[i] = (liveVec[i] == '1') ? true : false;
-				}
-
-				break;
-
-			case 6:
-				S = new int[numStmts];
-				String faultNumsStr = t.nextToken();
-				char[] faultNums = faultNumsStr.toCharArray();
-				for (int i = 0; i < faultNums.length; i++) {
-					S[i] = Integer.parseInt(String.valueOf(faultNums[i]));
-				}
-
-				break;
-
-			case 7:
-				C = new boolean[numStmts];
-				String coverVecStr = t.nextToken();
-				char[] coverVec = coverVecStr.toCharArray();
-				for (int i = 0; i < coverVec.length; i++) {
-					C[i] = (coverVec[i] == '1') ? true : false;
-				}
-
-				break;
-
-			default:
-				System.err
-						.println("Warning: Don't know record type, ignoring: "
-								+ line);
-				break;
-			}
+		try {
+			new CovMatrixReader(in).readInto(this, CoverageLayout.DENSE);
+		} finally {
+			in.close();
 		}
 
 		compute();
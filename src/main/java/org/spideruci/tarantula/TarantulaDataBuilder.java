@@ -1,13 +1,67 @@
 package org.spideruci.tarantula;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.spideruci.tacoco.coverage.CoverageMatrix;
 
 public class TarantulaDataBuilder {
   
+  /**
+   * Number of test cases whose coverage is inspected to estimate the density 
+   * of the matrix.
+   */
+  static final int DENSITY_SAMPLE_TESTS = 256;
+  
+  /**
+   * Builds the data around the coverage layout that 
+   * {@link CoverageLayout#choose} picks for the sampled density of the matrix.
+   * The chosen layout and its footprint are available through 
+   * {@link TarantulaData#getCoverage()}.
+   */
   public static TarantulaData buildFromCoverageMatrix(CoverageMatrix matrix) {
     if(matrix == null) return null;
     
     boolean[][] M = matrix.toBooleanMatrix();
+    final int numTests = M.length;
+    final int numStmts = numTests == 0 ? 0 : M[0].length;
+    CoverageLayout layout = 
+        CoverageLayout.choose(numTests, numStmts, sampleDensity(M));
+    return build(matrix, layout.fromBooleanMatrix(M));
+  }
+  
+  public static TarantulaData buildFromCoverageMatrix(
+      CoverageMatrix matrix, CoverageLayout layout) {
+    if(matrix == null) return null;
+    
+    boolean[][] M = matrix.toBooleanMatrix();
+    return build(matrix, layout.fromBooleanMatrix(M));
+  }
+  
+  /**
+   * @return fraction of covered cells in up to {@link #DENSITY_SAMPLE_TESTS} 
+   * evenly spaced test cases of M.
+   */
+  static double sampleDensity(boolean[][] M) {
+    if(M.length == 0 || M[0].length == 0) return 0d;
+    
+    final int step = Math.max(1, M.length / DENSITY_SAMPLE_TESTS);
+    long sampledCells = 0;
+    long coveredCells = 0;
+    for(int i = 0; i < M.length; i += step) {
+      for(boolean cell : M[i]) {
+        if(cell) coveredCells += 1;
+      }
+      sampledCells += M[i].length;
+    }
+    return (double) coveredCells / (double) sampledCells;
+  }
+  
+  private static TarantulaData build(
+      CoverageMatrix matrix, TarantulaMatrix M) {
     TarantulaData data = new TarantulaData(M);
     
     boolean[] C = matrix.getCoverableStmts();
@@ -19,6 +73,91 @@ public class TarantulaDataBuilder {
     return data;
   }
   
+  /**
+   * Collapses the identical rows of M into weighted rows, with the
+   * multiplicities of the data's F and L.
+   */
+  public static WeightedTarantulaData buildWeighted(TarantulaData data) {
+    if(data == null) return null;
+    
+    WeightedTarantulaData weighted = 
+        deduplicate(data.getCoverage(), data.getC());
+    weighted.weigh(data.getF(), data.getL());
+    return weighted;
+  }
+  
+  /**
+   * Collapses the identical rows of the matrix into weighted rows; every test
+   * case is live. tacoco's CoverageMatrix only hands out its coverage as a
+   * boolean[][], so the full M is still built here, and memory is saved only
+   * once it has been deduplicated and dropped.
+   * @param F failing test cases -- [test]
+   */
+  public static WeightedTarantulaData buildWeightedFromCoverageMatrix(
+      CoverageMatrix matrix, boolean[] F) {
+    if(matrix == null) return null;
+    
+    WeightedTarantulaData weighted = deduplicate(
+        new BooleanCoverageMatrix(matrix.toBooleanMatrix()), 
+        matrix.getCoverableStmts());
+    weighted.weigh(F, getDefaultBoolArray(true, matrix.getTestCount()));
+    return weighted;
+  }
+  
+  /**
+   * Packs every row of M and looks it up by its hash among the distinct rows
+   * seen so far, so a duplicate costs one packed row of scratch space.
+   */
+  static WeightedTarantulaData deduplicate(TarantulaMatrix M, boolean[] C) {
+    final int numTests = M.getTestCount();
+    final int numStmts = M.getStmtCount();
+    Map<PackedRow, Integer> rowsByCoverage = new HashMap<PackedRow, Integer>();
+    List<long[]> rows = new ArrayList<long[]>();
+    int[] rowOfTest = new int[numTests];
+    
+    long[] row = new long[BitVectors.wordCount(numStmts)];
+    for(int i = 0; i < numTests; i += 1) {
+      M.getRow(i, row);
+      if(BitVectors.isEmpty(row)) {
+        rowOfTest[i] = -1;
+        continue;
+      }
+      Integer distinct = rowsByCoverage.get(new PackedRow(row));
+      if(distinct == null) {
+        distinct = rows.size();
+        long[] copy = row.clone();
+        rows.add(copy);
+        rowsByCoverage.put(new PackedRow(copy), distinct);
+      }
+      rowOfTest[i] = distinct;
+    }
+    
+    BitPackedCoverageMatrix distinctM = new BitPackedCoverageMatrix(
+        numStmts, rows.toArray(new long[rows.size()][]));
+    return new WeightedTarantulaData(distinctM, rowOfTest, C);
+  }
+  
+  private static final class PackedRow {
+    private final long[] words;
+    private final int hash;
+    
+    PackedRow(long[] words) {
+      this.words = words;
+      this.hash = Arrays.hashCode(words);
+    }
+    
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof PackedRow 
+          && Arrays.equals(words, ((PackedRow) other).words);
+    }
+  }
+  
   static boolean[] getDefaultBoolArray(boolean defaultValue, int size) {
     boolean[] array = new boolean[size];
     for(int i = 0; i < array.length; i += 1) {
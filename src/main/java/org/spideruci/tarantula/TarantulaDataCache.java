@@ -0,0 +1,231 @@
+package org.spideruci.tarantula;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The most recently used {@link TarantulaData} of coverage files, loaded on a
+ * miss and evicted least recently used first once their estimated heap
+ * footprint exceeds the budget. A file is reloaded when its length or
+ * modification time changes. Cached data has B computed, and must not be
+ * modified by callers. Safe for concurrent use; a file is loaded outside of
+ * the lock, so a slow load does not hold up hits on other files, and
+ * concurrent misses on the same file wait for a single load of it.
+ */
+public class TarantulaDataCache {
+
+  private final long heapBudget;
+  private final LinkedHashMap<String, Entry> entries =
+      new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  private final Map<String, Load> loads = new HashMap<String, Load>();
+  private long bytes;
+
+  private static final class Entry {
+    final long length;
+    final long lastModified;
+    final TarantulaData data;
+    final long bytes;
+
+    Entry(long length, long lastModified, TarantulaData data) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.data = data;
+      this.bytes = estimateBytes(data);
+    }
+  }
+
+  /**
+   * A load in flight, which the misses on the same version of the file share.
+   */
+  private static final class Load {
+    final long length;
+    final long lastModified;
+    final FutureTask<TarantulaData> task;
+
+    Load(long length, long lastModified, FutureTask<TarantulaData> task) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.task = task;
+    }
+  }
+
+  public TarantulaDataCache(long heapBudget) {
+    if (heapBudget <= 0L) {
+      throw new IllegalArgumentException("heapBudget: " + heapBudget);
+    }
+    this.heapBudget = heapBudget;
+  }
+
+  /**
+   * @return the cached data of the file, loaded by {@link #load} on a miss.
+   */
+  public TarantulaData get(final File file) throws IOException {
+    final String key = file.getCanonicalPath();
+    final long length = file.length();
+    final long lastModified = file.lastModified();
+    Load load;
+    boolean isLoader = false;
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry != null && entry.length == length
+          && entry.lastModified == lastModified) {
+        return entry.data;
+      }
+      load = loads.get(key);
+      if (load == null || load.length != length
+          || load.lastModified != lastModified) {
+        load = new Load(length, lastModified, new FutureTask<TarantulaData>(
+            new Callable<TarantulaData>() {
+              @Override
+              public TarantulaData call() throws IOException {
+                return read(file);
+              }
+            }));
+        loads.put(key, load);
+        isLoader = true;
+      }
+    }
+
+    if (!isLoader) {
+      return await(load.task);
+    }
+
+    load.task.run();
+    TarantulaData data = null;
+    try {
+      data = await(load.task);
+    } finally {
+      synchronized (this) {
+        // a load of a newer version of the file caches its own data
+        if (loads.get(key) == load) {
+          loads.remove(key);
+          if (data != null) {
+            put(key, new Entry(length, lastModified, data));
+          }
+        }
+      }
+    }
+    return data;
+  }
+
+  /**
+   * @return the data of the file, with B computed.
+   */
+  TarantulaData read(File file) throws IOException {
+    TarantulaData data = load(file);
+    data.setB(new TarantulaFaultLocalizer()
+        .calculateBadTestCoverage(data.getCoverage()));
+    return data;
+  }
+
+  private static TarantulaData await(FutureTask<TarantulaData> task)
+      throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IOException(cause);
+    }
+  }
+
+  private void put(String key, Entry entry) {
+    Entry replaced = entries.put(key, entry);
+    if (replaced != null) {
+      bytes -= replaced.bytes;
+    }
+    bytes += entry.bytes;
+    evict(entry);
+  }
+
+  /**
+   * Evicts the least recently used entries but the one just added, which is
+   * kept even if it alone exceeds the budget.
+   */
+  private void evict(Entry added) {
+    Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+    while (bytes > heapBudget && eldest.hasNext()) {
+      Entry entry = eldest.next().getValue();
+      if (entry == added) continue;
+      bytes -= entry.bytes;
+      eldest.remove();
+    }
+  }
+
+  public synchronized boolean evict(File file) throws IOException {
+    Entry entry = entries.remove(file.getCanonicalPath());
+    if (entry == null) return false;
+    bytes -= entry.bytes;
+    return true;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the estimated heap footprint of the cached data, in bytes.
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public long getHeapBudget() {
+    return heapBudget;
+  }
+
+  /**
+   * @return M's footprint, and a byte per test case of F, L and B and five
+   * per statement of C and S.
+   */
+  static long estimateBytes(TarantulaData data) {
+    return data.getCoverage().getFootprint()
+        + 3L * data.getOrigNumTests() + 5L * data.getNumStmts();
+  }
+
+  /**
+   * Loads a {@link BinaryCoverageFile}, a {@link CoverageArchive}, a coverage
+   * JSON file (by its .json extension) or a text cov_matrix, plain or
+   * gzipped.
+   */
+  static TarantulaData load(File file) throws IOException {
+    if (file.getName().endsWith(".json")) {
+      return Tarantula.readCoverageJson(file);
+    }
+
+    final int magic = CoverageFiles.readMagic(file);
+    if (magic == BinaryCoverageFile.MAGIC) {
+      return BinaryCoverageFile.map(file);
+    }
+    if (magic == CoverageArchive.MAGIC) {
+      CoverageArchive archive = CoverageArchive.open(file);
+      try {
+        return archive.read();
+      } finally {
+        archive.close();
+      }
+    }
+
+    InputStream in = CoverageFiles.openCovMatrix(file);
+    try {
+      return new CovMatrixReader(in).read(CoverageLayout.BIT_PACKED);
+    } finally {
+      in.close();
+    }
+  }
+
+}
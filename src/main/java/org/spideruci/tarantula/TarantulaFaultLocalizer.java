@@ -1,5 +1,7 @@
 package org.spideruci.tarantula;
 
+import java.util.Arrays;
+
 public class TarantulaFaultLocalizer {
   
   public static final int SUSPICIOUSNESS = 0;
@@ -8,28 +10,28 @@ public class TarantulaFaultLocalizer {
   public double[][] compute(TarantulaData data, boolean isBCalculated) {
     int numStmts = data.getNumStmts();
     int numOrigTests = data.getOrigNumTests();
-    boolean[][] M = data.getM();
+    TarantulaMatrix M = data.getCoverage();
     
     if (!isBCalculated) {
-      boolean[] B = calculateBadTestCoverage(numStmts, numOrigTests, M);
+      boolean[] B = calculateBadTestCoverage(M);
       data.setB(B);
     }
     
     boolean[] F = data.getF();
     
     @SuppressWarnings("unused")
-    PassFailPair<Integer> origTests = calculateOrigFailAndPass(numOrigTests, F);
+    IntPassFailPair origTests = calculateOrigFailAndPass(numOrigTests, F);
     
     boolean[] L = data.getL();
     boolean[] B = data.getB();
-    PassFailPair<Integer> totalLiveTests = 
+    IntPassFailPair totalLiveTests = 
         calculateTotalLiveFailAndPass(numOrigTests, B, L, F);
     
     boolean[] C = data.getC();
-    PassFailPair<int[]> testsOnStmtProfiles = 
-        calculatePassOnStmtAndFailOnStmt(numStmts, numOrigTests, B, L, C, M, F);
+    IntArrayPassFailPair testsOnStmtProfiles = 
+        calculateTestsOnStmtProfiles(numStmts, B, L, C, M, F);
     
-    PassFailPair<double[]> testRatiosOnStmts = 
+    DoubleArrayPassFailPair testRatiosOnStmts = 
         calculateTestRatiosOnStmts(numStmts, totalLiveTests, testsOnStmtProfiles);
     
     double[][] suspiciousnessAndConfidence = 
@@ -39,22 +41,133 @@ public class TarantulaFaultLocalizer {
     return suspiciousnessAndConfidence;
   }
 
+  /**
+   * Computes what {@link #compute} computes for the test cases that were
+   * collapsed into the weighted rows: each distinct row is scanned once, and
+   * counted as many times as its pass and fail multiplicities say.
+   */
+  public double[][] compute(WeightedTarantulaData data) {
+    int numStmts = data.getNumStmts();
+    int[] passWeights = data.getPassWeights();
+    int[] failWeights = data.getFailWeights();
+
+    IntPassFailPair totalLiveTests =
+        calculateWeightedTotalLiveFailAndPass(passWeights, failWeights);
+    IntArrayPassFailPair testsOnStmtProfiles =
+        calculateWeightedTestsOnStmtProfiles(numStmts, data.getC(),
+            data.getCoverage(), passWeights, failWeights);
+    DoubleArrayPassFailPair testRatiosOnStmts =
+        calculateTestRatiosOnStmts(numStmts, totalLiveTests, testsOnStmtProfiles);
+    return calculateSuspiciousnessAndConfidence(
+        numStmts, totalLiveTests, testRatiosOnStmts);
+  }
+
+  /**
+   * Scans M once, as {@link #compute} does, and scores the resulting counts
+   * with every formula.
+   * @return scores -- [formula][stmt]
+   */
+  public double[][] computeScores(TarantulaData data, boolean isBCalculated,
+      SuspiciousnessFormula... formulas) {
+    int numStmts = data.getNumStmts();
+    int numOrigTests = data.getOrigNumTests();
+    TarantulaMatrix M = data.getCoverage();
+
+    if (!isBCalculated) {
+      data.setB(calculateBadTestCoverage(M));
+    }
+
+    boolean[] F = data.getF();
+    boolean[] L = data.getL();
+    boolean[] B = data.getB();
+    IntPassFailPair totalLiveTests =
+        calculateTotalLiveFailAndPass(numOrigTests, B, L, F);
+    IntArrayPassFailPair testsOnStmtProfiles =
+        calculateTestsOnStmtProfiles(numStmts, B, L, data.getC(), M, F);
+
+    double[][] scores = new double[formulas.length][numStmts];
+    for (int k = 0; k < formulas.length; k += 1) {
+      formulas[k].calculateScores(0, numStmts,
+          totalLiveTests.pass(), totalLiveTests.fail(),
+          testsOnStmtProfiles.pass(), testsOnStmtProfiles.fail(), scores[k]);
+    }
+    return scores;
+  }
+
+  /**
+   * Scores only the statements of the given source files of
+   * {@link TarantulaData#getSourceFiles}: C is masked to those files, so only
+   * their statements are counted, and every file is then scored on its own.
+   * The scores are those of {@link #compute} for the same statements.
+   * @return scores -- [file][SUSPICIOUSNESS|CONFIDENCE][stmt of the file]
+   */
+  public double[][][] computeSourceFiles(TarantulaData data,
+      boolean isBCalculated, int... files) {
+    int numStmts = data.getNumStmts();
+    int numOrigTests = data.getOrigNumTests();
+    TarantulaMatrix M = data.getCoverage();
+    SourceFileRanges sourceFiles = data.getSourceFiles();
+
+    if (!isBCalculated) {
+      data.setB(calculateBadTestCoverage(M));
+    }
+
+    boolean[] C = data.getC();
+    boolean[] fileC = new boolean[numStmts];
+    for (int file : files) {
+      final int from = sourceFiles.getFromStmt(file);
+      System.arraycopy(C, from, fileC, from, sourceFiles.getStmtCount(file));
+    }
+
+    boolean[] F = data.getF();
+    boolean[] L = data.getL();
+    boolean[] B = data.getB();
+    IntPassFailPair totalLiveTests =
+        calculateTotalLiveFailAndPass(numOrigTests, B, L, F);
+    IntArrayPassFailPair testsOnStmtProfiles =
+        calculateTestsOnStmtProfiles(numStmts, B, L, fileC, M, F);
+
+    return calculateSourceFileScores(sourceFiles, files,
+        totalLiveTests.pass(), totalLiveTests.fail(),
+        testsOnStmtProfiles.pass(), testsOnStmtProfiles.fail());
+  }
+
+  double[][][] calculateSourceFileScores(SourceFileRanges sourceFiles,
+      int[] files, int totalLivePass, int totalLiveFail,
+      int[] passOnStmt, int[] failOnStmt) {
+    double[][][] scores = new double[files.length][][];
+    for (int f = 0; f < files.length; f += 1) {
+      scores[f] = calculateSourceFileScores(sourceFiles, files[f],
+          totalLivePass, totalLiveFail, passOnStmt, failOnStmt);
+    }
+    return scores;
+  }
+
+  static double[][] calculateSourceFileScores(SourceFileRanges sourceFiles,
+      int file, int totalLivePass, int totalLiveFail,
+      int[] passOnStmt, int[] failOnStmt) {
+    final int from = sourceFiles.getFromStmt(file);
+    final int to = sourceFiles.getToStmt(file);
+    double[] suspiciousness = new double[to - from];
+    double[] confidence = new double[to - from];
+    scoreCounts(from, to,
+        totalLivePass, totalLiveFail, passOnStmt, failOnStmt,
+        suspiciousness, confidence, 0);
+    return new double[][] { suspiciousness, confidence };
+  }
+
   boolean[] calculateBadTestCoverage(
       int numStmts, int numOrigTests, boolean[][] M) {
-    boolean[] B = new boolean[numOrigTests];
-    for (int i = 0; i < numOrigTests; i++) {
-      B[i] = true;
-      for (int j = 0; j < numStmts; j++) {
-        if (!M[i][j]) continue; 
-        // there is a statement covered for this test case
-        B[i] = false; // this is not a bad test case, because it covered at least 1 test.
-        break; // no need to look further at this test case
-      }
-    }
+    return calculateBadTestCoverage(new BooleanCoverageMatrix(M));
+  }
+
+  boolean[] calculateBadTestCoverage(TarantulaMatrix M) {
+    boolean[] B = new boolean[M.getTestCount()];
+    M.findTestsWithoutCoverage(0, B.length, B);
     return B;
   }
   
-  PassFailPair<Integer> calculateTotalLiveFailAndPass(
+  IntPassFailPair calculateTotalLiveFailAndPass(
       int numOrigTests, boolean[] B, boolean[] L, boolean[] F) {
     int totalLiveFail = 0;
     int totalLivePass = 0;
@@ -68,10 +181,21 @@ public class TarantulaFaultLocalizer {
         totalLivePass++;
       }
     }
-    return new PassFailPair<Integer>(totalLivePass, totalLiveFail);
+    return new IntPassFailPair(totalLivePass, totalLiveFail);
+  }
+
+  IntPassFailPair calculateWeightedTotalLiveFailAndPass(
+      int[] passWeights, int[] failWeights) {
+    int totalLivePass = 0;
+    int totalLiveFail = 0;
+    for (int r = 0; r < passWeights.length; r += 1) {
+      totalLivePass += passWeights[r];
+      totalLiveFail += failWeights[r];
+    }
+    return new IntPassFailPair(totalLivePass, totalLiveFail);
   }
 
-  PassFailPair<Integer> calculateOrigFailAndPass(
+  IntPassFailPair calculateOrigFailAndPass(
       int numOrigTests, boolean[] F) {
     int totalOrigFail = 0;
     int totalOrigPass = 0;
@@ -82,43 +206,76 @@ public class TarantulaFaultLocalizer {
         totalOrigPass++;
     }
     
-    return new PassFailPair<Integer>(totalOrigPass, totalOrigFail);
+    return new IntPassFailPair(totalOrigPass, totalOrigFail);
   }
 
-  PassFailPair<int[]> calculatePassOnStmtAndFailOnStmt(
+  IntArrayPassFailPair calculatePassOnStmtAndFailOnStmt(
       int numStmts, int numOrigTests,
       boolean[] B, boolean[] L, boolean[] C, boolean[][] M, boolean[] F) {
+    return calculateTestsOnStmtProfiles(
+        numStmts, B, L, C, new BooleanCoverageMatrix(M), F);
+  }
+
+  IntArrayPassFailPair calculateTestsOnStmtProfiles(int numStmts,
+      boolean[] B, boolean[] L, boolean[] C, TarantulaMatrix M, boolean[] F) {
 
     int[] passOnStmt = new int[numStmts];
     int[] failOnStmt = new int[numStmts];
 
-    // first only consider live test cases
-    for (int i = 0; i < numOrigTests; i++) {
-      if (B[i]) continue; // if this is a dead test case (seg fault)
-      if (!L[i]) continue; // if this test case is not live
-      for (int j = 0; j < numStmts; j++) {
-        if (!C[j]) continue;
-        if(!M[i][j]) continue;
-        if (F[i])
-          failOnStmt[j]++;
-        else
-          passOnStmt[j]++;
-      }
-    }
+    // only consider live test cases with good coverage
+    M.countTestsOnStmts(0, B.length, B, L, C, F, passOnStmt, failOnStmt);
     
-    return new PassFailPair<int[]>(passOnStmt, failOnStmt);
+    return new IntArrayPassFailPair(passOnStmt, failOnStmt);
   }
   
-  PassFailPair<double[]> calculateTestRatiosOnStmts(
-      int numStmts, PassFailPair<Integer> totalLiveTests, 
-      PassFailPair<int[]> testsOnStmtProfiles) {
+  /**
+   * Adds the weights of every row to the coverable statements it covers,
+   * walking only the set bits of the row masked by C.
+   */
+  IntArrayPassFailPair calculateWeightedTestsOnStmtProfiles(int numStmts,
+      boolean[] C, BitPackedCoverageMatrix M,
+      int[] passWeights, int[] failWeights) {
+    int[] passOnStmt = new int[numStmts];
+    int[] failOnStmt = new int[numStmts];
+    countWeightedRows(0, M.getTestCount(), BitVectors.pack(C), M,
+        passWeights, failWeights, passOnStmt, failOnStmt);
+    return new IntArrayPassFailPair(passOnStmt, failOnStmt);
+  }
+
+  /**
+   * Adds the weights of the rows in [fromRow, toRow) to every coverable
+   * statement that they cover.
+   */
+  static void countWeightedRows(int fromRow, int toRow, long[] packedC,
+      BitPackedCoverageMatrix M, int[] passWeights, int[] failWeights,
+      int[] passOnStmt, int[] failOnStmt) {
+    for (int r = fromRow; r < toRow; r += 1) {
+      final int pass = passWeights[r];
+      final int fail = failWeights[r];
+      if (pass == 0 && fail == 0) continue;
+      long[] row = M.getRow(r);
+      for (int w = 0; w < row.length; w += 1) {
+        long word = row[w] & packedC[w];
+        while (word != 0L) {
+          final int j = (w << 6) + Long.numberOfTrailingZeros(word);
+          passOnStmt[j] += pass;
+          failOnStmt[j] += fail;
+          word &= word - 1;
+        }
+      }
+    }
+  }
+
+  DoubleArrayPassFailPair calculateTestRatiosOnStmts(
+      int numStmts, IntPassFailPair totalLiveTests, 
+      IntArrayPassFailPair testsOnStmtProfiles) {
     
     return calculatePassRatioAndFailRatio(numStmts,
         totalLiveTests.pass(), totalLiveTests.fail(),
         testsOnStmtProfiles.pass(), testsOnStmtProfiles.fail());
   }
 
-  PassFailPair<double[]> calculatePassRatioAndFailRatio(
+  DoubleArrayPassFailPair calculatePassRatioAndFailRatio(
       int numStmts, 
       int totalLivePass, int totalLiveFail,
       int[] passOnStmt, int[] failOnStmt) {
@@ -126,31 +283,85 @@ public class TarantulaFaultLocalizer {
     double[] passRatio = new double[numStmts];
     double[] failRatio = new double[numStmts];
 
-    for (int i = 0; i < numStmts; i++) {
-      // System.out.print("line " + i + "\t");
-      if (totalLivePass == 0) {
-        passRatio[i] = 0d;
-      } else {
-        passRatio[i] = (double) passOnStmt[i] / (double) totalLivePass;
-        // System.out.print("numPass=" + passOnStmt[i] + "\t");
-      }
+    calculatePassRatioAndFailRatio(0, numStmts, totalLivePass, totalLiveFail, 
+        passOnStmt, failOnStmt, passRatio, failRatio);
+    
+    return new DoubleArrayPassFailPair(passRatio, failRatio);
+  }
+  
+  static void calculatePassRatioAndFailRatio(
+      int fromStmt, int toStmt,
+      int totalLivePass, int totalLiveFail,
+      int[] passOnStmt, int[] failOnStmt,
+      double[] passRatio, double[] failRatio) {
+    final double passDivisor = ratioDivisor(totalLivePass);
+    final double failDivisor = ratioDivisor(totalLiveFail);
+    for (int i = fromStmt; i < toStmt; i++) {
+      passRatio[i] = (double) passOnStmt[i] / passDivisor;
+      failRatio[i] = (double) failOnStmt[i] / failDivisor;
+    }
+  }
 
-      if (totalLiveFail == 0) {
-        failRatio[i] = 0d;
-      } else {
-        failRatio[i] = (double) failOnStmt[i] / (double) totalLiveFail;
-        // System.out.print("numFail=" + failOnStmt[i] + "\t");
+  /**
+   * A ratio over a zero total is 0. Dividing by infinity instead gives exactly
+   * that for any count, so that the ratio loops have no branch per statement
+   * and the JIT can vectorize them.
+   */
+  static double ratioDivisor(int total) {
+    return total == 0 ? Double.POSITIVE_INFINITY : (double) total;
+  }
+
+  /**
+   * Scores every statement in [fromStmt, toStmt) straight from p(s) and f(s):
+   * the ratios are computed as locals, in the same way as
+   * {@link #calculatePassRatioAndFailRatio}, and the -1 sentinel is blended in
+   * as {@link #calculateSuspiciousnessAndConfidence} does, so the scores are
+   * those of the staged computation.
+   */
+  static void scoreCounts(
+      int fromStmt, int toStmt, int totalLivePass, int totalLiveFail,
+      int[] passOnStmt, int[] failOnStmt,
+      double[] suspiciousness, double[] confidence) {
+    scoreCounts(fromStmt, toStmt,
+        totalLivePass, totalLiveFail, passOnStmt, failOnStmt,
+        suspiciousness, confidence, fromStmt);
+  }
+
+  /**
+   * As above, but the scores of statement {@code fromStmt + k} are written at
+   * {@code toIndex + k}, e.g. into arrays that hold a single source file.
+   */
+  static void scoreCounts(
+      int fromStmt, int toStmt, int totalLivePass, int totalLiveFail,
+      int[] passOnStmt, int[] failOnStmt,
+      double[] suspiciousness, double[] confidence, int toIndex) {
+    final int shift = toIndex - fromStmt;
+    if ((totalLiveFail == 0) && (totalLivePass == 0)) {
+      for (int i = fromStmt; i < toStmt; i++) {
+        suspiciousness[i + shift] = -1d;
+        confidence[i + shift] = -1d;
       }
-      // System.out.println();
+      return;
+    }
+
+    final double passDivisor = ratioDivisor(totalLivePass);
+    final double failDivisor = ratioDivisor(totalLiveFail);
+    for (int i = fromStmt; i < toStmt; i++) {
+      final double passRatio = (double) passOnStmt[i] / passDivisor;
+      final double failRatio = (double) failOnStmt[i] / failDivisor;
+      final double covered = Math.min(passOnStmt[i] + failOnStmt[i], 1);
+      suspiciousness[i + shift] = covered
+          * (failRatio / (failRatio + passRatio + (1d - covered)))
+          + (covered - 1d);
+      confidence[i + shift] = covered * Math.max(failRatio, passRatio)
+          + (covered - 1d);
     }
-    
-    return new PassFailPair<double[]>(passRatio, failRatio);
   }
   
   double[][] calculateSuspiciousnessAndConfidence(
       int numStmts, 
-      PassFailPair<Integer> totalLiveTests,
-      PassFailPair<double[]> testRatiosOnStmts) {
+      IntPassFailPair totalLiveTests,
+      DoubleArrayPassFailPair testRatiosOnStmts) {
     
     return calculateSuspiciousnessAndConfidence(
         numStmts, 
@@ -164,22 +375,34 @@ public class TarantulaFaultLocalizer {
     double[] suspiciousness = new double[numStmts];
     double[] confidence = new double[numStmts];
 
-    for (int i = 0; i < numStmts; i++) {
-      
-      if ((totalLiveFail == 0) && (totalLivePass == 0)) {
-        suspiciousness[i] = -1d;
-        confidence[i] = -1d;
-      } else if ((failRatio[i] == 0d) && (passRatio[i] == 0d)) {
-        suspiciousness[i] = -1d;
-        confidence[i] = -1d;
-      } else {
-        suspiciousness[i] = failRatio[i]
-            / (failRatio[i] + passRatio[i]);
-        confidence[i] = Math.max(failRatio[i], passRatio[i]);
-      }
-    }
+    calculateSuspiciousnessAndConfidence(0, numStmts, 
+        totalLivePass, totalLiveFail, passRatio, failRatio, 
+        suspiciousness, confidence);
     
     return new double[][] { suspiciousness, confidence };
   }
+  
+  static void calculateSuspiciousnessAndConfidence(
+      int fromStmt, int toStmt, int totalLivePass, int totalLiveFail,
+      double[] passRatio, double[] failRatio,
+      double[] suspiciousness, double[] confidence) {
+    if ((totalLiveFail == 0) && (totalLivePass == 0)) {
+      Arrays.fill(suspiciousness, fromStmt, toStmt, -1d);
+      Arrays.fill(confidence, fromStmt, toStmt, -1d);
+      return;
+    }
+
+    for (int i = fromStmt; i < toStmt; i++) {
+      final double f = failRatio[i];
+      final double p = passRatio[i];
+      // covered is 1, or 0 when both ratios are 0, and blends the -1 sentinel
+      // in without a branch or a select, so that the JIT can vectorize the
+      // loop; the ratios are never negative, and the results are exact.
+      final double covered = Math.min(Math.ceil(f + p), 1d);
+      suspiciousness[i] = covered * (f / (f + p + (1d - covered)))
+          + (covered - 1d);
+      confidence[i] = covered * Math.max(f, p) + (covered - 1d);
+    }
+  }
 
 }
@@ -0,0 +1,70 @@
+package org.spideruci.tarantula;
+
+/**
+ * Storage-independent view of the coverage matrix M -- [test][stmt], as
+ * consumed by the {@link TarantulaFaultLocalizer}. Each implementation
+ * provides the two matrix scans of the Tarantula computation in a form that
+ * suits its own layout. Both scans work on a range of test cases, so that
+ * disjoint ranges can be scanned concurrently.
+ */
+public interface TarantulaMatrix {
+
+  int getTestCount();
+
+  int getStmtCount();
+
+  boolean isCovered(int test, int stmt);
+
+  /**
+   * Packs the coverage vector of test case {@code test} into row, as
+   * {@link BitVectors} lays bit vectors out.
+   * @param row [wordCount(stmts)]
+   */
+  void getRow(int test, long[] row);
+
+  /**
+   * Sets B[i], for every test case i in [fromTest, toTest), to whether the
+   * test case covers absolutely no statement.
+   * @param B bad coverage -- [test]
+   */
+  void findTestsWithoutCoverage(int fromTest, int toTest, boolean[] B);
+
+  /**
+   * Adds, for every coverable statement, the number of good (not in B) and
+   * live (in L) passing and failing test cases in [fromTest, toTest) that
+   * cover it.
+   * @param B bad coverage -- [test]
+   * @param L live test cases -- [test]
+   * @param C coverable statements -- [stmt]
+   * @param F failing test cases -- [test]
+   * @param passOnStmt p(s) -- [stmt]
+   * @param failOnStmt f(s) -- [stmt]
+   */
+  void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt);
+
+  /**
+   * Counts as {@link #countTestsOnStmts(int, int, boolean[], boolean[],
+   * boolean[], boolean[], int[], int[])} does, given C both as it is and
+   * packed; every layout reads the form that suits it, so a caller that counts
+   * many ranges packs C only once.
+   * @param coverable C -- [stmt], packed
+   */
+  void countTestsOnStmts(int fromTest, int toTest,
+      boolean[] B, boolean[] L, boolean[] C, long[] coverable, boolean[] F,
+      int[] passOnStmt, int[] failOnStmt);
+
+  /**
+   * @return coverage matrix -- [test][stmt]
+   */
+  boolean[][] toBooleanMatrix();
+
+  CoverageLayout getLayout();
+
+  /**
+   * @return estimated heap footprint of the matrix, in bytes.
+   */
+  long getFootprint();
+
+}
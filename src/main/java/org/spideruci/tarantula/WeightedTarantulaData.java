@@ -0,0 +1,95 @@
+package org.spideruci.tarantula;
+
+import java.util.Arrays;
+
+/**
+ * Coverage with identical rows collapsed, as built by
+ * {@link TarantulaDataBuilder#buildWeighted}: M holds every distinct non-empty
+ * coverage vector once, and each of its rows carries the number of live
+ * passing and failing test cases with that vector. Test cases that cover
+ * nothing are bad coverage, which is never counted, so they have no row.
+ */
+public class WeightedTarantulaData {
+
+  private final BitPackedCoverageMatrix M;
+  private final int[] rowOfTest;
+  private final boolean[] C;
+  private final int[] passWeights;
+  private final int[] failWeights;
+
+  /**
+   * @param M distinct coverage vectors -- [row][stmt]
+   * @param rowOfTest the row of every test case, or -1 -- [test]
+   * @param C coverable statements -- [stmt]
+   */
+  WeightedTarantulaData(BitPackedCoverageMatrix M, int[] rowOfTest,
+      boolean[] C) {
+    this.M = M;
+    this.rowOfTest = rowOfTest;
+    this.C = C;
+    this.passWeights = new int[M.getTestCount()];
+    this.failWeights = new int[M.getTestCount()];
+  }
+
+  /**
+   * Recounts the multiplicities of the rows for new verdicts, in O(tests);
+   * M is not scanned.
+   * @param F failing test cases -- [test]
+   * @param L live test cases -- [test]
+   */
+  public void weigh(boolean[] F, boolean[] L) {
+    Arrays.fill(passWeights, 0);
+    Arrays.fill(failWeights, 0);
+    for (int i = 0; i < rowOfTest.length; i += 1) {
+      final int row = rowOfTest[i];
+      if (row < 0 || !L[i]) continue;
+      if (F[i]) {
+        failWeights[row] += 1;
+      } else {
+        passWeights[row] += 1;
+      }
+    }
+  }
+
+  /**
+   * @return distinct coverage vectors -- [row][stmt]
+   */
+  public BitPackedCoverageMatrix getCoverage() {
+    return M;
+  }
+
+  public int getOrigNumTests() {
+    return rowOfTest.length;
+  }
+
+  public int getNumStmts() {
+    return M.getStmtCount();
+  }
+
+  /**
+   * @return the row of M that holds the coverage of the test case, or -1 if
+   * it covers nothing.
+   */
+  public int getRow(int test) {
+    return rowOfTest[test];
+  }
+
+  public boolean[] getC() {
+    return C;
+  }
+
+  /**
+   * @return live passing test cases per row -- [row]
+   */
+  public int[] getPassWeights() {
+    return passWeights;
+  }
+
+  /**
+   * @return live failing test cases per row -- [row]
+   */
+  public int[] getFailWeights() {
+    return failWeights;
+  }
+
+}
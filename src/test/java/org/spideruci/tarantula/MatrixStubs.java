@@ -1,5 +1,7 @@
 package org.spideruci.tarantula;
 
+import java.util.Random;
+
 public final class MatrixStubs {
   public static boolean[][] getSimpleUniformBoolMatrix(
       boolean uniformValue, int numTests, int numStmts) {
@@ -38,4 +40,26 @@ public final class MatrixStubs {
     }
     return array;
   }
+  
+  public static boolean[][] getRandomBoolMatrix(
+      long seed, double density, int numTests, int numStmts) {
+    Random random = new Random(seed);
+    boolean[][] mat = new boolean[numTests][numStmts];
+    for(int i = 0; i < numTests; i += 1) {
+      for(int j = 0; j < numStmts; j += 1) {
+        mat[i][j] = random.nextDouble() < density;
+      }
+    }
+    return mat;
+  }
+  
+  public static boolean[] getRandomBoolArray(
+      long seed, double trueRatio, int size) {
+    Random random = new Random(seed);
+    boolean[] array = new boolean[size];
+    for(int i = 0; i < size; i += 1) {
+      array[i] = random.nextDouble() < trueRatio;
+    }
+    return array;
+  }
 }
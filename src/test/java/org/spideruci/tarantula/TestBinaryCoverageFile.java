@@ -0,0 +1,87 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestBinaryCoverageFile {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void expect_SameData_When_WrittenAndMapped() throws IOException {
+    //given
+    final int numTests = 70;
+    final int numStmts = 131;
+    boolean[][] M = getRandomBoolMatrix(71L, 0.1, numTests, numStmts);
+    TarantulaData data = new TarantulaData(M);
+    data.setF(getRandomBoolArray(72L, 0.3, numTests));
+    data.setL(getRandomBoolArray(73L, 0.9, numTests));
+    data.setC(getRandomBoolArray(74L, 0.9, numStmts));
+    int[] S = new int[numStmts];
+    S[5] = 1;
+    S[130] = 40;
+    data.setS(S);
+    File file = folder.newFile("cov_matrix.bin");
+    //when
+    BinaryCoverageFile.write(data, file);
+    TarantulaData mapped = BinaryCoverageFile.map(file);
+    //then
+    assertEquals(numTests, mapped.getOrigNumTests());
+    assertEquals(numStmts, mapped.getNumStmts());
+    assertEquals(40, mapped.getNumFaults());
+    assertArrayEquals(S, mapped.getS());
+    assertArrayEquals(data.getF(), mapped.getF());
+    assertArrayEquals(data.getL(), mapped.getL());
+    assertArrayEquals(data.getC(), mapped.getC());
+    boolean[][] actual = mapped.getCoverage().toBooleanMatrix();
+    for(int i = 0; i < numTests; i += 1) {
+      assertArrayEquals(M[i], actual[i]);
+    }
+  }
+
+  @Test
+  public void expect_SameResults_When_ComputedOnMappedMatrix() throws IOException {
+    //given
+    final int numTests = 200;
+    final int numStmts = 64;
+    TarantulaData data = new TarantulaData(
+        getRandomBoolMatrix(75L, 0.05, numTests, numStmts));
+    data.setF(getRandomBoolArray(76L, 0.2, numTests));
+    data.setC(getRandomBoolArray(77L, 0.9, numStmts));
+    File file = folder.newFile("cov_matrix.bin");
+    BinaryCoverageFile.write(data, file);
+    double[][] expected = new TarantulaFaultLocalizer().compute(data, false);
+    //when
+    TarantulaData mapped = BinaryCoverageFile.map(file);
+    double[][] actual = new TarantulaFaultLocalizer().compute(mapped, false);
+    //then
+    assertNull(mapped.getS());
+    assertArrayEquals(data.getB(), mapped.getB());
+    assertArrayEquals(expected[SUSPICIOUSNESS], actual[SUSPICIOUSNESS], 0.0);
+    assertArrayEquals(expected[CONFIDENCE], actual[CONFIDENCE], 0.0);
+  }
+
+  @Test(expected = IOException.class)
+  public void expect_IOException_When_FileIsNotBinaryCoverageMatrix()
+      throws IOException {
+    //given
+    File file = folder.newFile("cov_matrix");
+    FileOutputStream out = new FileOutputStream(file);
+    out.write("0 Coverage matrix file\n".getBytes("US-ASCII"));
+    out.close();
+    //when
+    BinaryCoverageFile.map(file);
+  }
+
+}
@@ -0,0 +1,103 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+
+import org.junit.Test;
+
+public class TestBitPackedCoverageMatrix {
+
+  @Test
+  public void expect_SameCells_As_BooleanMatrix_AcrossWordBoundaries() {
+    //given
+    final int numTests = 7;
+    final int numStmts = 130;
+    boolean[][] M = getRandomBoolMatrix(1L, 0.3, numTests, numStmts);
+    //when
+    BitPackedCoverageMatrix packed = BitPackedCoverageMatrix.fromBooleanMatrix(M);
+    //then
+    assertEquals(numTests, packed.getTestCount());
+    assertEquals(numStmts, packed.getStmtCount());
+    for(int i = 0; i < numTests; i += 1) {
+      assertArrayEquals(M[i], packed.toBooleanMatrix()[i]);
+    }
+  }
+
+  @Test
+  public void expect_LastStmtOfRow_OnlyMakes_ThatTestGood() {
+    //given
+    final int numTests = 3;
+    final int numStmts = 65;
+    BitPackedCoverageMatrix packed = new BitPackedCoverageMatrix(numTests, numStmts);
+    packed.set(1, numStmts - 1, true);
+    TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
+    //when
+    boolean[] B = localizer.calculateBadTestCoverage(packed);
+    //then
+    assertArrayEquals(new boolean[] {true, false, true}, B);
+  }
+
+  @Test
+  public void expect_SameBadTests_As_BooleanMatrix() {
+    //given
+    final int numTests = 50;
+    final int numStmts = 70;
+    boolean[][] M = getRandomBoolMatrix(2L, 0.01, numTests, numStmts);
+    TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
+    //when
+    boolean[] B = localizer.calculateBadTestCoverage(
+        BitPackedCoverageMatrix.fromBooleanMatrix(M));
+    //then
+    assertArrayEquals(localizer.calculateBadTestCoverage(numStmts, numTests, M), B);
+  }
+
+  @Test
+  public void expect_SamePassAndFailOnStmts_As_BooleanMatrix() {
+    //given
+    final int numTests = 40;
+    final int numStmts = 200;
+    boolean[][] M = getRandomBoolMatrix(3L, 0.2, numTests, numStmts);
+    boolean[] B = getRandomBoolArray(4L, 0.1, numTests);
+    boolean[] L = getRandomBoolArray(5L, 0.8, numTests);
+    boolean[] C = getRandomBoolArray(6L, 0.9, numStmts);
+    boolean[] F = getRandomBoolArray(7L, 0.3, numTests);
+    TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
+    IntArrayPassFailPair expected =
+        localizer.calculatePassOnStmtAndFailOnStmt(numStmts, numTests, B, L, C, M, F);
+    //when
+    IntArrayPassFailPair actual =
+        localizer.calculateTestsOnStmtProfiles(numStmts, B, L, C,
+            BitPackedCoverageMatrix.fromBooleanMatrix(M), F);
+    //then
+    assertArrayEquals(expected.pass(), actual.pass());
+    assertArrayEquals(expected.fail(), actual.fail());
+  }
+
+  @Test
+  public void expect_SamePassAndFailOnStmts_When_CIsPackedOnce() {
+    //given
+    final int numTests = 130;
+    final int numStmts = 70;
+    boolean[][] M = getRandomBoolMatrix(8L, 0.2, numTests, numStmts);
+    boolean[] B = getRandomBoolArray(9L, 0.1, numTests);
+    boolean[] L = getRandomBoolArray(10L, 0.8, numTests);
+    boolean[] C = getRandomBoolArray(11L, 0.9, numStmts);
+    boolean[] F = getRandomBoolArray(12L, 0.3, numTests);
+    BitPackedCoverageMatrix packed = BitPackedCoverageMatrix.fromBooleanMatrix(M);
+    int[] expectedPass = new int[numStmts];
+    int[] expectedFail = new int[numStmts];
+    packed.countTestsOnStmts(0, numTests, B, L, C, F, expectedPass, expectedFail);
+    //when
+    long[] coverable = BitVectors.pack(C);
+    int[] pass = new int[numStmts];
+    int[] fail = new int[numStmts];
+    for(int from = 0; from < numTests; from += 64) {
+      packed.countTestsOnStmts(from, Math.min(numTests, from + 64),
+          B, L, C, coverable, F, pass, fail);
+    }
+    //then
+    assertArrayEquals(expectedPass, pass);
+    assertArrayEquals(expectedFail, fail);
+  }
+
+}
@@ -0,0 +1,157 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestCachedFaultLocalizer {
+
+  private static final int NUM_TESTS = 60;
+  private static final int NUM_STMTS = 90;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static class CountingFaultLocalizer extends TarantulaFaultLocalizer {
+    int computed;
+    int badCoverageFound;
+
+    @Override
+    boolean[] calculateBadTestCoverage(TarantulaMatrix M) {
+      badCoverageFound += 1;
+      return super.calculateBadTestCoverage(M);
+    }
+
+    @Override
+    public double[][] compute(TarantulaData data, boolean isBCalculated) {
+      computed += 1;
+      return super.compute(data, isBCalculated);
+    }
+  }
+
+  private TarantulaData getData(CoverageLayout layout) {
+    boolean[][] M = getRandomBoolMatrix(31L, 0.1, NUM_TESTS, NUM_STMTS);
+    TarantulaData data = new TarantulaData(layout.fromBooleanMatrix(M));
+    data.setF(getRandomBoolArray(32L, 0.3, NUM_TESTS));
+    data.setL(getRandomBoolArray(33L, 0.9, NUM_TESTS));
+    data.setC(getRandomBoolArray(34L, 0.9, NUM_STMTS));
+    return data;
+  }
+
+  @Test
+  public void expect_Hit_ToSkipCompute_WithSameResults() throws IOException {
+    //given
+    CountingFaultLocalizer counting = new CountingFaultLocalizer();
+    CachedFaultLocalizer localizer = new CachedFaultLocalizer(counting,
+        new ResultCache(folder.getRoot(), 1L << 20));
+    double[][] expected = localizer.compute(getData(CoverageLayout.DENSE), false);
+    //when
+    double[][] actual = localizer.compute(getData(CoverageLayout.SPARSE), false);
+    //then
+    assertEquals(1, counting.computed);
+    assertEquals(2, counting.badCoverageFound);
+    assertArrayEquals(expected[0], actual[0], 0.0);
+    assertArrayEquals(expected[1], actual[1], 0.0);
+  }
+
+  @Test
+  public void expect_Miss_When_AVerdictChanges() throws IOException {
+    //given
+    CountingFaultLocalizer counting = new CountingFaultLocalizer();
+    CachedFaultLocalizer localizer = new CachedFaultLocalizer(counting,
+        new ResultCache(folder.getRoot(), 1L << 20));
+    localizer.compute(getData(CoverageLayout.DENSE), false);
+    TarantulaData data = getData(CoverageLayout.DENSE);
+    data.getF()[5] = !data.getF()[5];
+    //when
+    double[][] actual = localizer.compute(data, false);
+    //then
+    assertEquals(2, counting.computed);
+    double[][] expected = new TarantulaFaultLocalizer().compute(data, true);
+    assertArrayEquals(expected[0], actual[0], 0.0);
+  }
+
+  @Test
+  public void expect_CorruptResult_ToBeRecomputed() throws IOException {
+    //given
+    CountingFaultLocalizer counting = new CountingFaultLocalizer();
+    ResultCache cache = new ResultCache(folder.getRoot(), 1L << 20);
+    CachedFaultLocalizer localizer = new CachedFaultLocalizer(counting, cache);
+    TarantulaData data = getData(CoverageLayout.BIT_PACKED);
+    double[][] expected = localizer.compute(data, false);
+    FileOutputStream out = new FileOutputStream(new File(folder.getRoot(),
+        CachedFaultLocalizer.getKey(data, true) + ".res"));
+    out.write(new byte[] {1, 2, 3});
+    out.close();
+    //when
+    double[][] actual = localizer.compute(data, true);
+    //then
+    assertEquals(2, counting.computed);
+    assertArrayEquals(expected[0], actual[0], 0.0);
+  }
+
+  @Test
+  public void expect_LeastRecentlyUsed_Evicted_When_OverBudget()
+      throws IOException {
+    //given
+    final long resultBytes = 8 + 16 * NUM_STMTS;
+    ResultCache cache = new ResultCache(folder.getRoot(), 2 * resultBytes);
+    double[][] result = {new double[NUM_STMTS], new double[NUM_STMTS]};
+    cache.put("aaaa", result);
+    cache.put("bbbb", result);
+    new File(folder.getRoot(), "aaaa.res").setLastModified(1000L);
+    //when
+    cache.put("cccc", result);
+    //then
+    assertEquals(2 * resultBytes, cache.getBytes());
+    assertNull(cache.get("aaaa"));
+    assertNotNull(cache.get("bbbb"));
+    assertNotNull(cache.get("cccc"));
+  }
+
+  @Test
+  public void expect_Miss_When_OnlyTheSuppliedBChanges() throws IOException {
+    //given
+    CountingFaultLocalizer counting = new CountingFaultLocalizer();
+    CachedFaultLocalizer localizer = new CachedFaultLocalizer(counting,
+        new ResultCache(folder.getRoot(), 1L << 20));
+    localizer.compute(getData(CoverageLayout.DENSE), false);
+    TarantulaData data = getData(CoverageLayout.DENSE);
+    boolean[] B = new TarantulaFaultLocalizer()
+        .calculateBadTestCoverage(data.getCoverage());
+    for(int i = 0; i < NUM_TESTS; i += 2) {
+      B[i] = true;
+    }
+    data.setB(B);
+    //when
+    double[][] actual = localizer.compute(data, true);
+    //then
+    assertEquals(2, counting.computed);
+    double[][] expected = new TarantulaFaultLocalizer().compute(data, true);
+    assertArrayEquals(expected[0], actual[0], 0.0);
+    assertArrayEquals(expected[1], actual[1], 0.0);
+  }
+
+  @Test
+  public void expect_BToBeSet_OnHit() throws IOException {
+    //given
+    CachedFaultLocalizer localizer = new CachedFaultLocalizer(
+        new TarantulaFaultLocalizer(),
+        new ResultCache(folder.getRoot(), 1L << 20));
+    localizer.compute(getData(CoverageLayout.DENSE), false);
+    TarantulaData data = getData(CoverageLayout.DENSE);
+    //when
+    localizer.compute(data, false);
+    //then
+    assertArrayEquals(new TarantulaFaultLocalizer()
+        .calculateBadTestCoverage(data.getCoverage()), data.getB());
+  }
+
+}
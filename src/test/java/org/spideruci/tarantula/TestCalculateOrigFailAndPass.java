@@ -18,7 +18,7 @@ public class TestCalculateOrigFailAndPass {
     final boolean[] F = getSimpleUniformBoolArray(false, numTests);
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateOrigFailAndPass(numTests, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
@@ -34,7 +34,7 @@ public class TestCalculateOrigFailAndPass {
     final boolean[] F = getSimpleUniformBoolArray(true, numTests);
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateOrigFailAndPass(numTests, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
@@ -51,7 +51,7 @@ public class TestCalculateOrigFailAndPass {
     F[0] = true; // first test fails
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateOrigFailAndPass(numTests, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
@@ -70,7 +70,7 @@ public class TestCalculateOrigFailAndPass {
     F[0] = false; // first test passes
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateOrigFailAndPass(numTests, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
@@ -89,7 +89,7 @@ public class TestCalculateOrigFailAndPass {
     F[0] = true; // first test fails
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateOrigFailAndPass(numTests, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
@@ -106,7 +106,7 @@ public class TestCalculateOrigFailAndPass {
     F[0] = false; // first test fails
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateOrigFailAndPass(numTests, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
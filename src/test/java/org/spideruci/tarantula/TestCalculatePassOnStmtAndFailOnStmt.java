@@ -18,7 +18,7 @@ public class TestCalculatePassOnStmtAndFailOnStmt {
     final boolean[] B = getSimpleUniformBoolArray(false, numTests);
     final TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<int[]> pair = 
+    IntArrayPassFailPair pair = 
         localizer.calculatePassOnStmtAndFailOnStmt(
             numStmts, numTests, B, L, null, null, null);
     //then
@@ -35,7 +35,7 @@ public class TestCalculatePassOnStmtAndFailOnStmt {
     final boolean[] B = getSimpleUniformBoolArray(false, numTests);
     final TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<int[]> pair = 
+    IntArrayPassFailPair pair = 
         localizer.calculatePassOnStmtAndFailOnStmt(
             numStmts, numTests, B, L, null, null, null);
     //then
@@ -52,7 +52,7 @@ public class TestCalculatePassOnStmtAndFailOnStmt {
     final boolean[] B = getSimpleUniformBoolArray(true, numTests);
     final TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<int[]> pair = 
+    IntArrayPassFailPair pair = 
         localizer.calculatePassOnStmtAndFailOnStmt(
             numStmts, numTests, B, L, null, null, null);
     //then
@@ -69,7 +69,7 @@ public class TestCalculatePassOnStmtAndFailOnStmt {
     final boolean[] B = getSimpleUniformBoolArray(true, numTests);
     final TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<int[]> pair = 
+    IntArrayPassFailPair pair = 
         localizer.calculatePassOnStmtAndFailOnStmt(
             numStmts, numTests, B, L, null, null, null);
     //then
@@ -87,7 +87,7 @@ public class TestCalculatePassOnStmtAndFailOnStmt {
     final boolean[] C = getSimpleUniformBoolArray(false, numStmts);
     final TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<int[]> pair = 
+    IntArrayPassFailPair pair = 
         localizer.calculatePassOnStmtAndFailOnStmt(
             numStmts, numTests, B, L, C, null, null);
     //then
@@ -106,7 +106,7 @@ public class TestCalculatePassOnStmtAndFailOnStmt {
     final boolean[][] M = getSimpleUniformBoolMatrix(false, numTests, numStmts);
     final TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<int[]> pair = 
+    IntArrayPassFailPair pair = 
         localizer.calculatePassOnStmtAndFailOnStmt(
             numStmts, numTests, B, L, C, M, null);
     //then
@@ -126,7 +126,7 @@ public class TestCalculatePassOnStmtAndFailOnStmt {
     final boolean[] F = getSimpleUniformBoolArray(false, numTests);
     final TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<int[]> pair = 
+    IntArrayPassFailPair pair = 
         localizer.calculatePassOnStmtAndFailOnStmt(
             numStmts, numTests, B, L, C, M, F);
     //then
@@ -145,7 +145,7 @@ public class TestCalculatePassOnStmtAndFailOnStmt {
     final boolean[] F = getSimpleUniformBoolArray(false, numTests);
     final TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<int[]> pair = 
+    IntArrayPassFailPair pair = 
         localizer.calculatePassOnStmtAndFailOnStmt(
             numStmts, numTests, B, L, C, M, F);
     //then
@@ -164,7 +164,7 @@ public class TestCalculatePassOnStmtAndFailOnStmt {
     final boolean[] F = getSimpleUniformBoolArray(true, numTests);
     final TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<int[]> pair = 
+    IntArrayPassFailPair pair = 
         localizer.calculatePassOnStmtAndFailOnStmt(
             numStmts, numTests, B, L, C, M, F);
     //then
@@ -183,7 +183,7 @@ public class TestCalculatePassOnStmtAndFailOnStmt {
     final boolean[] F = getSimpleUniformBoolArray(true, numTests);
     final TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<int[]> pair = 
+    IntArrayPassFailPair pair = 
         localizer.calculatePassOnStmtAndFailOnStmt(
             numStmts, numTests, B, L, C, M, F);
     //then
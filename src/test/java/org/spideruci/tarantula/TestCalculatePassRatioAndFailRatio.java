@@ -20,7 +20,7 @@ public class TestCalculatePassRatioAndFailRatio {
     final int[] passOnStmt = getSimpleUniformIntArray(totalLivePass, numStmts);
     final int[] failOnStmt = getSimpleUniformIntArray(totalLiveFail, numStmts);
     //when
-    PassFailPair<double[]> pair = 
+    DoubleArrayPassFailPair pair = 
         localizer.calculatePassRatioAndFailRatio(
             numStmts, totalLivePass, totalLiveFail, passOnStmt, failOnStmt);
     //then
@@ -39,7 +39,7 @@ public class TestCalculatePassRatioAndFailRatio {
     final int[] passOnStmt = getSimpleUniformIntArray(totalLivePass, numStmts);
     final int[] failOnStmt = getSimpleUniformIntArray(totalLiveFail, numStmts);
     //when
-    PassFailPair<double[]> pair = 
+    DoubleArrayPassFailPair pair = 
         localizer.calculatePassRatioAndFailRatio(
             numStmts, totalLivePass, totalLiveFail, passOnStmt, failOnStmt);
     //then
@@ -62,7 +62,7 @@ public class TestCalculatePassRatioAndFailRatio {
     }
     
     //and, computed total live passing and failing tests
-    PassFailPair<Integer> liveCountPair = 
+    IntPassFailPair liveCountPair = 
         localizer.calculateTotalLiveFailAndPass(numTests, B, L, F);
     final int totalLivePass = liveCountPair.pass();
     final int totalLiveFail = liveCountPair.fail();
@@ -71,13 +71,13 @@ public class TestCalculatePassRatioAndFailRatio {
     final int numStmts = 7;
     final boolean[] C = getSimpleUniformBoolArray(true, numStmts);
     final boolean[][] M = getSimpleUniformBoolMatrix(true, numTests, numStmts);
-    PassFailPair<int[]> passAndFailOnStmtPair =
+    IntArrayPassFailPair passAndFailOnStmtPair =
         localizer.calculatePassOnStmtAndFailOnStmt(numStmts, numTests, B, L, C, M, F);
     final int[] passOnStmt = passAndFailOnStmtPair.pass();
     final int[] failOnStmt = passAndFailOnStmtPair.fail();
     
     //when
-    PassFailPair<double[]> pair = 
+    DoubleArrayPassFailPair pair = 
         localizer.calculatePassRatioAndFailRatio(
             numStmts, totalLivePass, totalLiveFail, passOnStmt, failOnStmt);
     //then
@@ -98,7 +98,7 @@ public class TestCalculatePassRatioAndFailRatio {
     F[0] = true;
     
     //and, computed total live passing and failing tests
-    PassFailPair<Integer> liveCountPair = 
+    IntPassFailPair liveCountPair = 
         localizer.calculateTotalLiveFailAndPass(numTests, B, L, F);
     final int totalLivePass = liveCountPair.pass();
     final int totalLiveFail = liveCountPair.fail();
@@ -107,13 +107,13 @@ public class TestCalculatePassRatioAndFailRatio {
     final int numStmts = 7;
     final boolean[] C = getSimpleUniformBoolArray(true, numStmts);
     final boolean[][] M = getSimpleUniformBoolMatrix(true, numTests, numStmts);
-    PassFailPair<int[]> passAndFailOnStmtPair =
+    IntArrayPassFailPair passAndFailOnStmtPair =
         localizer.calculatePassOnStmtAndFailOnStmt(numStmts, numTests, B, L, C, M, F);
     final int[] passOnStmt = passAndFailOnStmtPair.pass();
     final int[] failOnStmt = passAndFailOnStmtPair.fail();
     
     //when
-    PassFailPair<double[]> pair = 
+    DoubleArrayPassFailPair pair = 
         localizer.calculatePassRatioAndFailRatio(
             numStmts, totalLivePass, totalLiveFail, passOnStmt, failOnStmt);
     //then
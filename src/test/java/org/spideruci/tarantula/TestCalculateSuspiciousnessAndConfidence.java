@@ -1,10 +1,13 @@
 package org.spideruci.tarantula;
 
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertThat;
 import static org.spideruci.hamcrest.primitive.EveryDouble.everyDouble;
 import static org.spideruci.tarantula.MatrixStubs.*;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 public class TestCalculateSuspiciousnessAndConfidence {
@@ -92,4 +95,44 @@ public class TestCalculateSuspiciousnessAndConfidence {
     //then
     assertThat(snc[0], everyDouble(equalTo(0.5)));
   }
+
+  @Test
+  public void expect_SameResults_AsBranchingPerStmt_OnRandomCounts() {
+    //given
+    final TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
+    final int numStmts = 1000;
+    final int[][] totals = {{30, 7}, {30, 0}, {0, 7}};
+    Random random = new Random(19L);
+    for(int[] total : totals) {
+      int[] passOnStmt = new int[numStmts];
+      int[] failOnStmt = new int[numStmts];
+      for(int j = 0; j < numStmts; j += 1) {
+        if(random.nextInt(4) == 0) continue;
+        passOnStmt[j] = random.nextInt(total[0] + 1);
+        failOnStmt[j] = random.nextInt(total[1] + 1);
+      }
+      double[] suspiciousness = new double[numStmts];
+      double[] confidence = new double[numStmts];
+      for(int j = 0; j < numStmts; j += 1) {
+        double p = total[0] == 0 ? 0d : (double) passOnStmt[j] / total[0];
+        double f = total[1] == 0 ? 0d : (double) failOnStmt[j] / total[1];
+        boolean uncovered = (f == 0d) && (p == 0d);
+        suspiciousness[j] = uncovered ? -1d : f / (f + p);
+        confidence[j] = uncovered ? -1d : Math.max(f, p);
+      }
+      //when
+      DoubleArrayPassFailPair ratios = localizer.calculatePassRatioAndFailRatio(
+          numStmts, total[0], total[1], passOnStmt, failOnStmt);
+      double[][] staged = localizer.calculateSuspiciousnessAndConfidence(
+          numStmts, total[0], total[1], ratios.pass(), ratios.fail());
+      double[][] fused = new double[2][numStmts];
+      TarantulaFaultLocalizer.scoreCounts(0, numStmts,
+          total[0], total[1], passOnStmt, failOnStmt, fused[0], fused[1]);
+      //then
+      assertArrayEquals(suspiciousness, staged[0], 0.0);
+      assertArrayEquals(confidence, staged[1], 0.0);
+      assertArrayEquals(suspiciousness, fused[0], 0.0);
+      assertArrayEquals(confidence, fused[1], 0.0);
+    }
+  }
 }
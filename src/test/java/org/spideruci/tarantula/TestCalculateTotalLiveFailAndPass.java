@@ -21,7 +21,7 @@ public class TestCalculateTotalLiveFailAndPass {
     final boolean[] B = getSimpleUniformBoolArray(false, numTests);
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateTotalLiveFailAndPass(numTests, B, L, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
@@ -39,7 +39,7 @@ public class TestCalculateTotalLiveFailAndPass {
     final boolean[] B = getSimpleUniformBoolArray(false, numTests);
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateTotalLiveFailAndPass(numTests, B, L, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
@@ -58,7 +58,7 @@ public class TestCalculateTotalLiveFailAndPass {
     final boolean[] B = getSimpleUniformBoolArray(false, numTests);
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateTotalLiveFailAndPass(numTests, B, L, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
@@ -79,7 +79,7 @@ public class TestCalculateTotalLiveFailAndPass {
     final boolean[] B = getSimpleUniformBoolArray(false, numTests);
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateTotalLiveFailAndPass(numTests, B, L, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
@@ -100,7 +100,7 @@ public class TestCalculateTotalLiveFailAndPass {
     final boolean[] B = getSimpleUniformBoolArray(false, numTests);
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateTotalLiveFailAndPass(numTests, B, L, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
@@ -119,7 +119,7 @@ public class TestCalculateTotalLiveFailAndPass {
     final boolean[] B = getSimpleUniformBoolArray(false, numTests);
     final TarantulaFaultLocalizer faultlocalizer = new TarantulaFaultLocalizer();
     //when
-    PassFailPair<Integer> pair = 
+    IntPassFailPair pair = 
         faultlocalizer.calculateTotalLiveFailAndPass(numTests, B, L, F);
     final int originalPassingTests = pair.pass();
     final int originalFailingTests = pair.fail();
@@ -0,0 +1,191 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestCovMatrixReader {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private TarantulaData getRandomData(int numTests, int numStmts) {
+    boolean[][] M = getRandomBoolMatrix(81L, 0.1, numTests, numStmts);
+    TarantulaData data = new TarantulaData(M);
+    data.setF(getRandomBoolArray(82L, 0.3, numTests));
+    data.setL(getRandomBoolArray(83L, 0.9, numTests));
+    data.setC(getRandomBoolArray(84L, 0.9, numStmts));
+    int[] S = new int[numStmts];
+    S[3] = 2;
+    S[numStmts - 1] = 15;
+    data.setS(S);
+    data.setDirectory(folder.getRoot().getPath());
+    return data;
+  }
+
+  private void assertSameData(TarantulaData expected, TarantulaData actual) {
+    assertEquals(expected.getOrigNumTests(), actual.getOrigNumTests());
+    assertEquals(expected.getNumStmts(), actual.getNumStmts());
+    assertEquals(expected.getNumFaults(), actual.getNumFaults());
+    assertArrayEquals(expected.getF(), actual.getF());
+    assertArrayEquals(expected.getL(), actual.getL());
+    assertArrayEquals(expected.getC(), actual.getC());
+    for(int j = 0; j < expected.getNumStmts(); j += 1) {
+      assertEquals(expected.getFaultNum(j), actual.getFaultNum(j));
+    }
+    boolean[][] expectedM = expected.getCoverage().toBooleanMatrix();
+    boolean[][] actualM = actual.getCoverage().toBooleanMatrix();
+    for(int i = 0; i < expectedM.length; i += 1) {
+      assertArrayEquals(expectedM[i], actualM[i]);
+    }
+  }
+
+  @Test
+  public void expect_SameData_When_ReadingWrittenGzipMatrix() throws Exception {
+    //given
+    TarantulaData data = getRandomData(90, 70);
+    data.writeExternal1(null);
+    TarantulaData actual = new TarantulaData();
+    actual.setDirectory(folder.getRoot().getPath());
+    //when
+    actual.readExternal(null);
+    //then
+    assertSameData(data, actual);
+    data.calculateOrigFailAndPass();
+    assertEquals(data.getOrigTotalFail(), actual.getOrigTotalFail());
+    assertNotNull(actual.getB());
+  }
+
+  @Test
+  public void expect_SameData_When_DecodingIntoBitPackedRows() throws IOException {
+    //given
+    TarantulaData data = getRandomData(40, 130);
+    data.writeExternal(null);
+    InputStream in = new FileInputStream(
+        new File(folder.getRoot(), "cov_matrix"));
+    //when
+    TarantulaData actual;
+    try {
+      actual = new CovMatrixReader(in).read(CoverageLayout.BIT_PACKED);
+    } finally {
+      in.close();
+    }
+    //then
+    assertEquals(CoverageLayout.BIT_PACKED, actual.getCoverage().getLayout());
+    assertSameData(data, actual);
+  }
+
+  @Test
+  public void expect_MissingRows_ToBeUncovered_And_AllTestsLive() throws IOException {
+    //given
+    String covMatrix = "0 comment\n1 3 1 0\n2 space.c 4\n\n3 1 0110\n4 010\n";
+    InputStream in = new ByteArrayInputStream(covMatrix.getBytes("US-ASCII"));
+    //when
+    TarantulaData actual = new CovMatrixReader(in).read(CoverageLayout.DENSE);
+    //then
+    assertArrayEquals(new boolean[4], actual.getCoverage().toBooleanMatrix()[0]);
+    assertArrayEquals(new boolean[] {false, true, true, false}, actual.getCoverage().toBooleanMatrix()[1]);
+    assertArrayEquals(new boolean[] {true, true, true}, actual.getL());
+    assertEquals(1, actual.getOrigTotalFail());
+  }
+
+  @Test(expected = IOException.class)
+  public void expect_IOException_When_VectorIsLongerThanDeclared() throws IOException {
+    //given
+    String covMatrix = "1 1 1 0\n2 space.c 2\n3 0 011\n";
+    InputStream in = new ByteArrayInputStream(covMatrix.getBytes("US-ASCII"));
+    //when
+    new CovMatrixReader(in).read(CoverageLayout.BIT_PACKED);
+  }
+
+  @Test
+  public void expect_SourceFiles_When_ReadingWrittenMatrix() throws IOException {
+    //given
+    TarantulaData data = getRandomData(20, 70);
+    data.setSourceFiles(new SourceFileRanges()
+        .add("a/Main.java", 30).add("b.c", 0).add("Util.java", 40));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new CovMatrixWriter(out).write(data);
+    //when
+    TarantulaData actual = new CovMatrixReader(
+        new ByteArrayInputStream(out.toByteArray())).read(CoverageLayout.DENSE);
+    //then
+    assertSameData(data, actual);
+    SourceFileRanges sourceFiles = actual.getSourceFiles();
+    assertEquals(3, sourceFiles.getFileCount());
+    assertEquals("Util.java", sourceFiles.getName(2));
+    assertEquals(30, sourceFiles.getFromStmt(2));
+    assertEquals(70, sourceFiles.getToStmt(2));
+  }
+
+  @Test
+  public void expect_OnlyTheirStmts_When_ReadingSourceFiles() throws IOException {
+    //given
+    TarantulaData data = getRandomData(20, 70);
+    data.setSourceFiles(new SourceFileRanges()
+        .add("a.c", 4).add("b.c", 30).add("c.c", 36));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new CovMatrixWriter(out).write(data);
+    boolean[][] M = data.getCoverage().toBooleanMatrix();
+    for(CoverageLayout layout
+        : new CoverageLayout[] {CoverageLayout.DENSE, CoverageLayout.BIT_PACKED}) {
+      //when
+      TarantulaData actual = new CovMatrixReader(
+          new ByteArrayInputStream(out.toByteArray()))
+          .readSourceFiles(layout, "c.c", "a.c");
+      //then
+      assertEquals(40, actual.getNumStmts());
+      assertEquals("a.c", actual.getSourceFiles().getName(0));
+      assertEquals("c.c", actual.getSourceFiles().getName(1));
+      assertEquals(2, actual.getFaultNum(3));
+      assertEquals(15, actual.getFaultNum(39));
+      for(int i = 0; i < M.length; i += 1) {
+        for(int j = 0; j < 40; j += 1) {
+          int stmt = j < 4 ? j : j + 30;
+          assertEquals(M[i][stmt], actual.getCoverage().isCovered(i, j));
+          assertEquals(data.getC()[stmt], actual.getC()[j]);
+        }
+      }
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void expect_IOException_When_ReadingUnknownSourceFile()
+      throws IOException {
+    //given
+    InputStream in = new ByteArrayInputStream(
+        "1 1 1 0\n2 a.c 2\n3 0 10\n".getBytes("US-ASCII"));
+    //when
+    new CovMatrixReader(in).readSourceFiles(CoverageLayout.DENSE, "b.c");
+  }
+
+  @Test(expected = IOException.class)
+  public void expect_IOException_When_RowIsOutOfRange() throws IOException {
+    //given
+    InputStream in = new ByteArrayInputStream(
+        "1 1 1 0\n2 a.c 2\n3 1 10\n".getBytes("US-ASCII"));
+    //when
+    new CovMatrixReader(in).read(CoverageLayout.BIT_PACKED);
+  }
+
+  @Test(expected = IOException.class)
+  public void expect_IOException_When_FaultyStmtIsOutOfRange()
+      throws IOException {
+    //given
+    InputStream in = new ByteArrayInputStream(
+        "1 1 1 1\n2 a.c 2\n3 0 10\n8 2 16\n".getBytes("US-ASCII"));
+    //when
+    new CovMatrixReader(in).read(CoverageLayout.DENSE);
+  }
+
+}
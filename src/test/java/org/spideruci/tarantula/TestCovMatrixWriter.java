@@ -0,0 +1,103 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class TestCovMatrixWriter {
+
+  private TarantulaData getData(int[] S) {
+    boolean[][] M = {
+        {true, false, false},
+        {false, false, false},
+        {true, true, false}};
+    TarantulaData data = new TarantulaData(SparseCoverageMatrix.fromBooleanMatrix(M));
+    data.setF(new boolean[] {false, false, true});
+    data.setL(new boolean[] {true, false, true});
+    data.setC(new boolean[] {true, true, false});
+    data.setS(S);
+    return data;
+  }
+
+  @Test
+  public void expect_LegacyRecords_ByteForByte() throws IOException {
+    //given
+    TarantulaData data = getData(new int[] {0, 12, 3});
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    //when
+    new CovMatrixWriter(out).write(data);
+    //then
+    String covMatrix = out.toString("US-ASCII");
+    String records = covMatrix.substring(covMatrix.indexOf("\n1 "));
+    assertTrue(covMatrix.startsWith("0 Coverage matrix file\n0 Record descriptions:\n"));
+    assertEquals("\n1 3 1 12\n2 space.c 3\n3 0 100\n3 1 000\n3 2 110\n"
+        + "4 001\n5 101\n6 0c3\n7 110\n", records);
+  }
+
+  @Test
+  public void expect_FaultRecordPerStmt_When_FaultNumberDoesNotFitOneHexDigit()
+      throws IOException {
+    //given
+    TarantulaData data = getData(new int[] {0, 16, 2});
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    //when
+    new CovMatrixWriter(out).write(data);
+    //then
+    String covMatrix = out.toString("US-ASCII");
+    assertTrue(covMatrix.contains("\n0      8 "));
+    assertFalse(covMatrix.contains("\n6 "));
+    assertTrue(covMatrix.endsWith("\n5 101\n8 1 16\n8 2 2\n7 110\n"));
+  }
+
+  @Test
+  public void expect_SameFaultNumbers_When_ReadBack() throws IOException {
+    //given
+    int[] S = {0, 4000, 17};
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new CovMatrixWriter(out).write(getData(S));
+    //when
+    TarantulaData actual = new CovMatrixReader(
+        new ByteArrayInputStream(out.toByteArray())).read(CoverageLayout.DENSE);
+    //then
+    assertEquals(4000, actual.getNumFaults());
+    for(int j = 0; j < S.length; j += 1) {
+      assertEquals(S[j], actual.getFaultNum(j));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void expect_IOException_When_FaultNumberIsNegative() throws IOException {
+    //given
+    TarantulaData data = getData(new int[] {0, -1, 0});
+    //when
+    new CovMatrixWriter(new ByteArrayOutputStream()).write(data);
+  }
+
+  @Test
+  public void expect_RecordPerSourceFile() throws IOException {
+    //given
+    TarantulaData data = getData(new int[] {0, 1, 0});
+    data.setSourceFiles(new SourceFileRanges().add("a.c", 1).add("b.c", 2));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    //when
+    new CovMatrixWriter(out).write(data);
+    //then
+    String covMatrix = out.toString("US-ASCII");
+    assertTrue(covMatrix.contains("\n1 3 2 1\n2 a.c 1\n2 b.c 2\n3 0 100\n"));
+  }
+
+  @Test(expected = IOException.class)
+  public void expect_IOException_When_SourceFilesDoNotCoverStmts()
+      throws IOException {
+    //given
+    TarantulaData data = getData(new int[] {0, 0, 0});
+    data.setSourceFiles(new SourceFileRanges().add("a.c", 2));
+    //when
+    new CovMatrixWriter(new ByteArrayOutputStream()).write(data);
+  }
+
+}
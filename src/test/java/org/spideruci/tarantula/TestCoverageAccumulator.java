@@ -0,0 +1,65 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
+
+import org.junit.Test;
+
+public class TestCoverageAccumulator {
+
+  @Test
+  public void expect_SameResults_As_Localizer_When_RowsAreStreamed() {
+    //given
+    final int numTests = 120;
+    final int numStmts = 90;
+    boolean[][] M = getRandomBoolMatrix(31L, 0.02, numTests, numStmts);
+    boolean[] C = getRandomBoolArray(32L, 0.9, numStmts);
+    boolean[] F = getRandomBoolArray(33L, 0.2, numTests);
+    TarantulaData data = new TarantulaData(M);
+    data.setC(C);
+    data.setF(F);
+    double[][] expected = new TarantulaFaultLocalizer().compute(data, false);
+    CoverageAccumulator accumulator = new CoverageAccumulator(numStmts);
+    //when
+    for(int i = 0; i < numTests; i += 1) {
+      accumulator.addTest(M[i], F[i]);
+    }
+    double[][] actual = accumulator.computeSuspiciousnessAndConfidence(C);
+    //then
+    assertArrayEquals(expected[SUSPICIOUSNESS], actual[SUSPICIOUSNESS], 0.0);
+    assertArrayEquals(expected[CONFIDENCE], actual[CONFIDENCE], 0.0);
+  }
+
+  @Test
+  public void expect_BadAndDeadTests_NotToBeCounted() {
+    //given
+    CoverageAccumulator accumulator = new CoverageAccumulator();
+    //when
+    accumulator.addTest(new int[] {0, 3}, 2, false, true);
+    accumulator.addTest(new int[] {1}, 1, true, true);
+    accumulator.addTest(new int[0], 0, true, true);
+    accumulator.addTest(new int[] {2}, 1, true, false);
+    //then
+    assertEquals(4, accumulator.getTestCount());
+    assertEquals(1, accumulator.getBadTestCount());
+    assertEquals(1, accumulator.getTotalLiveTests().pass());
+    assertEquals(1, accumulator.getTotalLiveTests().fail());
+    assertEquals(4, accumulator.getStmtCount());
+    assertArrayEquals(new int[] {1, 0, 0, 1}, accumulator.getTestsOnStmtProfiles().pass());
+    assertArrayEquals(new int[] {0, 1, 0, 0}, accumulator.getTestsOnStmtProfiles().fail());
+  }
+
+  @Test
+  public void expect_StmtSpace_ToGrow_BeyondInitialSize() {
+    //given
+    CoverageAccumulator accumulator = new CoverageAccumulator(2);
+    //when
+    accumulator.addTest(new int[] {1000}, true);
+    //then
+    assertEquals(1001, accumulator.getStmtCount());
+    assertEquals(1, accumulator.getTestsOnStmtProfiles().fail()[1000]);
+  }
+
+}
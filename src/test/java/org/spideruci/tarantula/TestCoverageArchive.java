@@ -0,0 +1,161 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestCoverageArchive {
+
+  private static final int NUM_TESTS = 100;
+  private static final int NUM_STMTS = 150;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final boolean[][] M =
+      getRandomBoolMatrix(91L, 0.1, NUM_TESTS, NUM_STMTS);
+
+  private File writeArchive(int testsPerBlock) throws IOException {
+    TarantulaData data = new TarantulaData(M);
+    data.setF(getRandomBoolArray(92L, 0.3, NUM_TESTS));
+    data.setL(getRandomBoolArray(93L, 0.9, NUM_TESTS));
+    data.setC(getRandomBoolArray(94L, 0.9, NUM_STMTS));
+    int[] S = new int[NUM_STMTS];
+    S[17] = 1000;
+    data.setS(S);
+    File file = folder.newFile("cov_matrix.tra");
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      CoverageArchive.write(data, file, testsPerBlock, executor);
+    } finally {
+      executor.shutdown();
+    }
+    return file;
+  }
+
+  @Test
+  public void expect_EveryTest_ToBeReadable_ByRandomAccess() throws IOException {
+    //given
+    CoverageArchive archive = CoverageArchive.open(writeArchive(7));
+    try {
+      //when
+      boolean[] last = archive.getCoverage(NUM_TESTS - 1);
+      boolean[] first = archive.getCoverage(0);
+      boolean[] middle = archive.getCoverage(50);
+      //then
+      assertArrayEquals(M[NUM_TESTS - 1], last);
+      assertArrayEquals(M[0], first);
+      assertArrayEquals(M[50], middle);
+    } finally {
+      archive.close();
+    }
+  }
+
+  @Test
+  public void expect_SameData_When_ReadWhole() throws IOException {
+    //given
+    CoverageArchive archive = CoverageArchive.open(writeArchive(16));
+    //when
+    TarantulaData actual;
+    try {
+      actual = archive.read();
+    } finally {
+      archive.close();
+    }
+    //then
+    assertEquals(NUM_TESTS, actual.getOrigNumTests());
+    assertEquals(NUM_STMTS, actual.getNumStmts());
+    assertArrayEquals(getRandomBoolArray(92L, 0.3, NUM_TESTS), actual.getF());
+    assertArrayEquals(getRandomBoolArray(93L, 0.9, NUM_TESTS), actual.getL());
+    assertArrayEquals(getRandomBoolArray(94L, 0.9, NUM_STMTS), actual.getC());
+    assertEquals(1000, actual.getFaultNum(17));
+    boolean[][] actualM = actual.getCoverage().toBooleanMatrix();
+    for(int i = 0; i < NUM_TESTS; i += 1) {
+      assertArrayEquals(M[i], actualM[i]);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void expect_IOException_When_FileIsNotAnArchive() throws IOException {
+    //given
+    File file = folder.newFile("cov_matrix.bin");
+    TarantulaData data = new TarantulaData(M);
+    data.setF(new boolean[NUM_TESTS]);
+    data.setC(new boolean[NUM_STMTS]);
+    BinaryCoverageFile.write(data, file);
+    //when
+    CoverageArchive.open(file);
+  }
+
+  @Test
+  public void expect_PendingBlocksCancelled_When_BlockFailsToCompress()
+      throws Exception {
+    //given
+    final Set<Integer> started = new ConcurrentSkipListSet<Integer>();
+    final CountDownLatch release = new CountDownLatch(1);
+    TarantulaMatrix failing = new BitPackedCoverageMatrix(NUM_TESTS, NUM_STMTS) {
+      @Override
+      public void getRow(int test, long[] row) {
+        started.add(test);
+        if(test == 0) {
+          throw new IllegalStateException("block 0");
+        }
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        super.getRow(test, row);
+      }
+    };
+    TarantulaData data = new TarantulaData(failing);
+    data.setF(new boolean[NUM_TESTS]);
+    data.setC(new boolean[NUM_STMTS]);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    //when
+    try {
+      CoverageArchive.write(data, folder.newFile("cov_matrix.tra"), 1, executor);
+      fail("expected IOException");
+    } catch (IOException e) {
+      // expected
+    } finally {
+      release.countDown();
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+    //then
+    for(int test : started) {
+      assertTrue("block " + test + " ran after the failure", test < 2);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void expect_IOException_When_BlockNeedsDictionary() throws IOException {
+    //given
+    Deflater deflater = new Deflater();
+    deflater.setDictionary(new byte[] {1, 2, 3, 4});
+    deflater.setInput(new byte[64]);
+    deflater.finish();
+    byte[] compressed = new byte[128];
+    int length = deflater.deflate(compressed);
+    deflater.end();
+    byte[] block = new byte[length];
+    System.arraycopy(compressed, 0, block, 0, length);
+    //when
+    CoverageArchive.inflate(block, new byte[64], 0);
+  }
+
+}
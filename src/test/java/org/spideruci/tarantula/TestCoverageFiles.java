@@ -0,0 +1,74 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestCoverageFiles {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final String COV_MATRIX = "1 1 1 0\n2 a.c 2\n3 0 10\n";
+
+  private File write(String name, boolean isGzip) throws IOException {
+    File file = folder.newFile(name);
+    OutputStream out = new FileOutputStream(file);
+    if (isGzip) {
+      out = new GZIPOutputStream(out);
+    }
+    try {
+      out.write(COV_MATRIX.getBytes("US-ASCII"));
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private String read(File file) throws IOException {
+    InputStream in = CoverageFiles.openCovMatrix(file);
+    try {
+      StringBuilder text = new StringBuilder();
+      int b;
+      while ((b = in.read()) != -1) {
+        text.append((char) b);
+      }
+      return text.toString();
+    } finally {
+      in.close();
+    }
+  }
+
+  @Test
+  public void expect_SameCovMatrix_WhetherGzippedOrNot() throws IOException {
+    //given
+    File plain = write("cov_matrix", false);
+    File gzipped = write("cov_matrix.gz", true);
+    //then
+    assertFalse(CoverageFiles.isGzip(CoverageFiles.readMagic(plain)));
+    assertTrue(CoverageFiles.isGzip(CoverageFiles.readMagic(gzipped)));
+    assertEquals(COV_MATRIX, read(plain));
+    assertEquals(COV_MATRIX, read(gzipped));
+  }
+
+  @Test
+  public void expect_NoMagic_When_FileIsShorterThanIt() throws IOException {
+    //given
+    File file = folder.newFile("short");
+    OutputStream out = new FileOutputStream(file);
+    out.write(new byte[] {0x1f, (byte) 0x8b});
+    out.close();
+    //then
+    assertEquals(0, CoverageFiles.readMagic(file));
+  }
+
+}
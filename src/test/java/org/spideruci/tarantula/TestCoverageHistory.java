@@ -0,0 +1,135 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestCoverageHistory {
+
+  private static final int NUM_TESTS = 60;
+  private static final int NUM_STMTS = 90;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * @return version v of a build history: every version re-runs a few test
+   * cases, flips a verdict, kills a test case, drops a statement and adds a
+   * test case.
+   */
+  private TarantulaData getVersion(int v) {
+    final int numTests = NUM_TESTS + v;
+    boolean[][] M = Arrays.copyOf(
+        getRandomBoolMatrix(51L, 0.1, NUM_TESTS, NUM_STMTS), numTests);
+    boolean[] F = Arrays.copyOf(getRandomBoolArray(52L, 0.2, NUM_TESTS), numTests);
+    boolean[] L = Arrays.copyOf(getRandomBoolArray(53L, 0.9, NUM_TESTS), numTests);
+    boolean[] C = getRandomBoolArray(54L, 0.95, NUM_STMTS);
+    for (int u = 1; u <= v; u += 1) {
+      M[(7 * u) % NUM_TESTS] = getRandomBoolArray(60L + u, 0.1, NUM_STMTS);
+      M[NUM_TESTS + u - 1] = getRandomBoolArray(70L + u, 0.1, NUM_STMTS);
+      L[NUM_TESTS + u - 1] = u % 3 != 0;
+      F[(11 * u) % NUM_TESTS] = !F[(11 * u) % NUM_TESTS];
+      L[(13 * u) % NUM_TESTS] = false;
+      C[(17 * u) % NUM_STMTS] = !C[(17 * u) % NUM_STMTS];
+    }
+    TarantulaData data = new TarantulaData(M);
+    data.setF(F);
+    data.setL(L);
+    data.setC(C);
+    return data;
+  }
+
+  private CoverageHistory getHistory(int numVersions) {
+    CoverageHistory history = new CoverageHistory(getVersion(0));
+    for (int v = 1; v < numVersions; v += 1) {
+      assertEquals(v, history.commit(getVersion(v)));
+    }
+    return history;
+  }
+
+  private void assertSameData(TarantulaData expected, TarantulaData actual) {
+    assertEquals(expected.getOrigNumTests(), actual.getOrigNumTests());
+    assertArrayEquals(expected.getF(), actual.getF());
+    assertArrayEquals(expected.getL(), actual.getL());
+    assertArrayEquals(expected.getC(), actual.getC());
+    for (int i = 0; i < expected.getOrigNumTests(); i += 1) {
+      for (int j = 0; j < NUM_STMTS; j += 1) {
+        assertEquals(expected.getCoverage().isCovered(i, j),
+            actual.getCoverage().isCovered(i, j));
+      }
+    }
+  }
+
+  @Test
+  public void expect_EveryVersion_ToBeReconstructed() {
+    //given
+    CoverageHistory history = getHistory(6);
+    //then
+    assertEquals(6, history.getVersionCount());
+    for(int v = 0; v < 6; v += 1) {
+      assertSameData(getVersion(v), history.reconstruct(v));
+    }
+  }
+
+  @Test
+  public void expect_DeltasToHoldOnlyChangedRows() {
+    //given
+    CoverageHistory history = getHistory(3);
+    //then the re-run test case and the new one
+    assertEquals(NUM_TESTS, history.getChangedTestCount(0));
+    assertEquals(2, history.getChangedTestCount(1));
+    assertEquals(2, history.getChangedTestCount(2));
+    assertEquals(NUM_TESTS + 2, history.getTestCount(2));
+  }
+
+  @Test
+  public void expect_FedLocalizer_ToMatchFullComputation() {
+    //given
+    CoverageHistory history = getHistory(5);
+    IncrementalFaultLocalizer localizer =
+        new IncrementalFaultLocalizer(history.reconstruct(1));
+    for(int v = 2; v < 5; v += 1) {
+      //when
+      history.feed(v - 1, v, localizer);
+      //then
+      double[][] expected =
+          new TarantulaFaultLocalizer().compute(getVersion(v), false);
+      double[][] actual = localizer.getSuspiciousnessAndConfidence();
+      assertArrayEquals(expected[SUSPICIOUSNESS], actual[SUSPICIOUSNESS], 0.0);
+      assertArrayEquals(expected[CONFIDENCE], actual[CONFIDENCE], 0.0);
+    }
+  }
+
+  @Test
+  public void expect_SameVersions_AfterWriteAndRead() throws IOException {
+    //given
+    File file = folder.newFile("history.trv");
+    getHistory(4).write(file);
+    //when
+    CoverageHistory history = CoverageHistory.read(file);
+    history.commit(getVersion(4));
+    //then
+    assertEquals(5, history.getVersionCount());
+    for(int v = 0; v < 5; v += 1) {
+      assertSameData(getVersion(v), history.reconstruct(v));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void expect_IllegalArgumentException_When_TestCasesAreDropped() {
+    //given
+    CoverageHistory history = getHistory(3);
+    //when
+    history.commit(getVersion(1));
+  }
+
+}
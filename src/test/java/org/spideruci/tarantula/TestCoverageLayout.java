@@ -0,0 +1,95 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TestCoverageLayout {
+
+  @Test
+  public void expect_Dense_When_MatrixIsSmall() {
+    //when
+    CoverageLayout layout = CoverageLayout.choose(10, 20, 0.01);
+    //then
+    assertEquals(CoverageLayout.DENSE, layout);
+  }
+
+  @Test
+  public void expect_Sparse_When_LargeMatrixIsLowDensity() {
+    //when
+    CoverageLayout layout = CoverageLayout.choose(40000, 300000, 0.02);
+    //then
+    assertEquals(CoverageLayout.SPARSE, layout);
+  }
+
+  @Test
+  public void expect_BitPacked_When_LargeMatrixIsHighDensity() {
+    //when
+    CoverageLayout layout = CoverageLayout.choose(40000, 300000, 0.3);
+    //then
+    assertEquals(CoverageLayout.BIT_PACKED, layout);
+  }
+
+  @Test
+  public void expect_BitPacked_ToBe_EighthOfDense() {
+    //given
+    final int numTests = 40000;
+    final int numStmts = 300000;
+    //when
+    long dense = CoverageLayout.DENSE.estimateFootprint(numTests, numStmts, 0L);
+    long packed = CoverageLayout.BIT_PACKED.estimateFootprint(numTests, numStmts, 0L);
+    //then
+    assertEquals(8.0, (double) dense / packed, 0.01);
+  }
+
+  @Test
+  public void expect_MatrixFootprint_ToMatch_LayoutEstimate() {
+    //given
+    boolean[][] M = MatrixStubs.getRandomBoolMatrix(1L, 0.1, 30, 100);
+    SparseCoverageMatrix sparse = SparseCoverageMatrix.fromBooleanMatrix(M);
+    //when
+    long footprint = sparse.getFootprint();
+    //then
+    assertEquals(CoverageLayout.SPARSE.estimateFootprint(
+        30, 100, sparse.getCoveredCount()), footprint);
+  }
+
+  @Test
+  public void expect_SamePackedRows_InEveryLayout() {
+    //given
+    boolean[][] M = MatrixStubs.getRandomBoolMatrix(2L, 0.1, 70, 150);
+    M[3] = new boolean[150];
+    for(CoverageLayout layout : CoverageLayout.values()) {
+      TarantulaMatrix matrix = layout.fromBooleanMatrix(M);
+      long[] row = new long[BitVectors.wordCount(150)];
+      for(int i = 0; i < 70; i += 1) {
+        //when
+        matrix.getRow(i, row);
+        //then
+        assertArrayEquals(layout.name(), BitVectors.pack(M[i]), row);
+      }
+    }
+  }
+
+  @Test
+  public void expect_EditsToM_ToReachLocalizer_When_Dense() {
+    //given
+    boolean[][] M = new boolean[2][3];
+    TarantulaData data = new TarantulaData(M);
+    //when
+    data.getM()[1][2] = true;
+    //then
+    assertTrue(data.getCoverage().isCovered(1, 2));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void expect_Exception_When_MIsNotDense() {
+    //given
+    boolean[][] M = MatrixStubs.getRandomBoolMatrix(3L, 0.1, 20, 40);
+    TarantulaData data =
+        new TarantulaData(CoverageLayout.BIT_PACKED.fromBooleanMatrix(M));
+    //when
+    data.getM();
+  }
+
+}
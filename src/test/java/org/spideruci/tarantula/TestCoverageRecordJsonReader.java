@@ -0,0 +1,79 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.google.gson.stream.JsonReader;
+
+public class TestCoverageRecordJsonReader {
+
+  @Test
+  public void expect_RecordsToBeAccumulated_AndUnknownMembersSkipped() throws IOException {
+    //given
+    String json = "["
+        + "{\"test\": \"a\", \"failed\": false, \"stmts\": [0, 2], \"time\": {\"ms\": 3}},"
+        + "{\"test\": \"b\", \"failed\": true, \"stmts\": [2]},"
+        + "{\"test\": \"c\", \"failed\": true, \"live\": false, \"stmts\": [1]},"
+        + "{\"test\": \"d\", \"stmts\": []}"
+        + "]";
+    CoverageRecordJsonReader reader = 
+        new CoverageRecordJsonReader(new JsonReader(new StringReader(json)));
+    //when
+    CoverageAccumulator accumulator = reader.read(new CoverageAccumulator());
+    //then
+    assertEquals(4, accumulator.getTestCount());
+    assertEquals(1, accumulator.getBadTestCount());
+    assertArrayEquals(new int[] {1, 0, 1}, accumulator.getTestsOnStmtProfiles().pass());
+    assertArrayEquals(new int[] {0, 0, 1}, accumulator.getTestsOnStmtProfiles().fail());
+  }
+
+  @Test
+  public void expect_LongCoverageLists_ToBeRead() throws IOException {
+    //given
+    StringBuilder json = new StringBuilder("[{\"failed\": true, \"stmts\": [");
+    for(int j = 0; j < 500; j += 1) {
+      json.append(j == 0 ? "" : ",").append(j);
+    }
+    json.append("]}]");
+    CoverageRecordJsonReader reader = new CoverageRecordJsonReader(
+        new JsonReader(new StringReader(json.toString())));
+    //when
+    CoverageAccumulator accumulator = reader.read(new CoverageAccumulator());
+    //then
+    assertEquals(500, accumulator.getStmtCount());
+    assertEquals(1, accumulator.getTotalLiveTests().fail());
+  }
+
+  @Test
+  public void expect_WrittenRecords_ToBeReadBack() throws IOException {
+    //given
+    boolean[][] M = MatrixStubs.getRandomBoolMatrix(21L, 0.1, 40, 150);
+    M[7] = new boolean[150];
+    TarantulaData data = new TarantulaData(M);
+    data.setF(MatrixStubs.getRandomBoolArray(22L, 0.3, 40));
+    data.setL(MatrixStubs.getRandomBoolArray(23L, 0.8, 40));
+    data.setC(MatrixStubs.getSimpleUniformBoolArray(true, 150));
+    StringWriter json = new StringWriter();
+    CoverageRecordJsonWriter writer = new CoverageRecordJsonWriter(json);
+    writer.write(data);
+    writer.close();
+    //when
+    CoverageAccumulator accumulator = new CoverageRecordJsonReader(
+        new JsonReader(new StringReader(json.toString())))
+        .read(new CoverageAccumulator());
+    //then
+    IntArrayPassFailPair expected = new TarantulaFaultLocalizer()
+        .calculateTestsOnStmtProfiles(150,
+            new TarantulaFaultLocalizer().calculateBadTestCoverage(data.getCoverage()),
+            data.getL(), data.getC(), data.getCoverage(), data.getF());
+    assertEquals(40, accumulator.getTestCount());
+    assertArrayEquals(expected.pass(), accumulator.getTestsOnStmtProfiles().pass());
+    assertArrayEquals(expected.fail(), accumulator.getTestsOnStmtProfiles().fail());
+  }
+
+}
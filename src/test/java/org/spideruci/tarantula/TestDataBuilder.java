@@ -50,4 +50,76 @@ public class TestDataBuilder {
     //then
     assertThat(data.getF(), everyBool(equalTo(false)));
   }
+  
+  @Test
+  public void expectSparseLayout_When_LargeMatrixCoversNothing() {
+    //given
+    final int testcount = 2000;
+    final int stmtcount = 2000;
+    CoverageMatrix matrix = mock(CoverageMatrix.class);
+    when(matrix.toBooleanMatrix()).thenReturn(new boolean[testcount][stmtcount]);
+    when(matrix.getCoverableStmts()).thenReturn(new boolean[stmtcount]);
+    when(matrix.getTestCount()).thenReturn(testcount);
+    //when
+    TarantulaData data = TarantulaDataBuilder.buildFromCoverageMatrix(matrix);
+    //then
+    assertEquals(CoverageLayout.SPARSE, data.getCoverage().getLayout());
+  }
+  
+  @Test
+  public void expectRequestedLayout_When_LayoutIsGiven() {
+    //given
+    final int testcount = 10;
+    final int stmtcount = 20;
+    CoverageMatrix matrix = mock(CoverageMatrix.class);
+    when(matrix.toBooleanMatrix()).thenReturn(new boolean[testcount][stmtcount]);
+    when(matrix.getCoverableStmts()).thenReturn(new boolean[stmtcount]);
+    when(matrix.getTestCount()).thenReturn(testcount);
+    //when
+    TarantulaData data = TarantulaDataBuilder.buildFromCoverageMatrix(
+        matrix, CoverageLayout.STMT_MAJOR);
+    //then
+    assertEquals(CoverageLayout.STMT_MAJOR, data.getCoverage().getLayout());
+    assertEquals(testcount, data.getOrigNumTests());
+    assertEquals(stmtcount, data.getNumStmts());
+  }
+  
+  @Test
+  public void expectSampledDensity_ToMatch_UniformMatrix() {
+    //given
+    boolean[][] M = MatrixStubs.getSimpleUniformBoolMatrix(true, 1000, 10);
+    for(int i = 0; i < M.length; i += 1) {
+      M[i][0] = false;
+    }
+    //when
+    double density = TarantulaDataBuilder.sampleDensity(M);
+    //then
+    assertEquals(0.9, density, 1e-9);
+  }
+  
+  @Test
+  public void expectIdenticalRows_ToBeCollapsed_IntoWeightedRows() {
+    //given
+    boolean[][] M = {
+        {true, false, true},
+        {false, false, false},
+        {true, false, true},
+        {false, true, false},
+        {true, false, true}};
+    boolean[] F = {false, true, true, false, false};
+    CoverageMatrix matrix = mock(CoverageMatrix.class);
+    when(matrix.toBooleanMatrix()).thenReturn(M);
+    when(matrix.getCoverableStmts()).thenReturn(new boolean[] {true, true, true});
+    when(matrix.getTestCount()).thenReturn(M.length);
+    //when
+    WeightedTarantulaData data = 
+        TarantulaDataBuilder.buildWeightedFromCoverageMatrix(matrix, F);
+    //then
+    assertEquals(2, data.getCoverage().getTestCount());
+    assertEquals(5, data.getOrigNumTests());
+    assertEquals(-1, data.getRow(1));
+    assertEquals(data.getRow(0), data.getRow(4));
+    assertArrayEquals(new int[] {2, 1}, data.getPassWeights());
+    assertArrayEquals(new int[] {1, 0}, data.getFailWeights());
+  }
 }
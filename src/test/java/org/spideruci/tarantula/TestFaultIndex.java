@@ -0,0 +1,46 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TestFaultIndex {
+
+  @Test
+  public void expect_FaultyStmts_GroupedByFault() {
+    //given
+    int[] S = {0, 3, 1, 3, 0, 1000, 3};
+    //when
+    FaultIndex index = new FaultIndex(S);
+    //then
+    assertEquals(1000, index.getFaultCount());
+    assertEquals(5, index.getFaultyStmtCount());
+    assertArrayEquals(new int[] {2}, index.getFaultyStmts(1));
+    assertArrayEquals(new int[] {1, 3, 6}, index.getFaultyStmts(3));
+    assertArrayEquals(new int[] {5}, index.getFaultyStmts(1000));
+  }
+
+  @Test
+  public void expect_NoStmts_For_UnusedOrOutOfRangeFaults() {
+    //given
+    FaultIndex index = new FaultIndex(new int[] {0, 2, 0});
+    //then
+    assertArrayEquals(new int[0], index.getFaultyStmts(0));
+    assertArrayEquals(new int[0], index.getFaultyStmts(1));
+    assertArrayEquals(new int[0], index.getFaultyStmts(3));
+  }
+
+  @Test
+  public void expect_Index_ToBeRebuilt_When_SIsReplaced() {
+    //given
+    TarantulaData data = new TarantulaData(new boolean[1][3]);
+    data.setS(new int[] {1, 0, 0});
+    FaultIndex before = data.getFaultIndex();
+    //when
+    data.setS(new int[] {0, 0, 1});
+    //then
+    assertArrayEquals(new int[] {0}, before.getFaultyStmts(1));
+    assertArrayEquals(new int[] {2}, data.getFaultIndex().getFaultyStmts(1));
+  }
+
+}
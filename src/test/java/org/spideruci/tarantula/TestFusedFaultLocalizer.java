@@ -0,0 +1,82 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class TestFusedFaultLocalizer {
+
+  @Parameters
+  public static Collection<Object[]> data() {
+    ArrayList<Object[]> layouts = new ArrayList<Object[]>();
+    for(CoverageLayout layout : CoverageLayout.values()) {
+      layouts.add(new Object[] {layout});
+    }
+    return layouts;
+  }
+
+  private final CoverageLayout layout;
+
+  public TestFusedFaultLocalizer(CoverageLayout layout) {
+    this.layout = layout;
+  }
+
+  private TarantulaData getRandomData(double failRatio) {
+    final int numTests = 150;
+    final int numStmts = 300;
+    boolean[][] M = getRandomBoolMatrix(21L, 0.03, numTests, numStmts);
+    TarantulaData data = new TarantulaData(layout.fromBooleanMatrix(M));
+    data.setC(getRandomBoolArray(22L, 0.9, numStmts));
+    data.setF(getRandomBoolArray(23L, failRatio, numTests));
+    data.setL(getRandomBoolArray(24L, 0.9, numTests));
+    return data;
+  }
+
+  private void assertSameResults(TarantulaData data, boolean isBCalculated) {
+    //when
+    double[][] actual = new FusedFaultLocalizer().compute(data, isBCalculated);
+    boolean[] actualB = data.getB();
+    double[][] expected = new TarantulaFaultLocalizer().compute(data, isBCalculated);
+    //then
+    assertArrayEquals(data.getB(), actualB);
+    assertArrayEquals(expected[SUSPICIOUSNESS], actual[SUSPICIOUSNESS], 0.0);
+    assertArrayEquals(expected[CONFIDENCE], actual[CONFIDENCE], 0.0);
+  }
+
+  @Test
+  public void expect_SameResults_As_StagedLocalizer() {
+    assertSameResults(getRandomData(0.2), false);
+  }
+
+  @Test
+  public void expect_SameResults_As_StagedLocalizer_When_NoTestFails() {
+    assertSameResults(getRandomData(0.0), false);
+  }
+
+  @Test
+  public void expect_SameResults_As_StagedLocalizer_When_AllTestsFail() {
+    assertSameResults(getRandomData(1.0), false);
+  }
+
+  @Test
+  public void expect_GivenBadTests_ToBeKept_When_BIsCalculated() {
+    //given
+    TarantulaData data = getRandomData(0.2);
+    boolean[] B = getRandomBoolArray(25L, 0.5, data.getOrigNumTests());
+    data.setB(B);
+    //then
+    assertSameResults(data, true);
+    assertSame(B, data.getB());
+  }
+
+}
@@ -0,0 +1,173 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TestIncrementalFaultLocalizer {
+
+  private static final int NUM_TESTS = 80;
+  private static final int NUM_STMTS = 50;
+
+  private TarantulaData getData(boolean[][] M, boolean[] F, boolean[] L) {
+    TarantulaData data = new TarantulaData(M);
+    data.setC(getRandomBoolArray(42L, 0.9, NUM_STMTS));
+    data.setF(F);
+    data.setL(L);
+    return data;
+  }
+
+  private void assertSameResults(TarantulaData expectedData,
+      IncrementalFaultLocalizer localizer) {
+    double[][] expected = new TarantulaFaultLocalizer().compute(expectedData, false);
+    double[][] actual = localizer.getSuspiciousnessAndConfidence();
+    assertArrayEquals(expected[SUSPICIOUSNESS], actual[SUSPICIOUSNESS], 0.0);
+    assertArrayEquals(expected[CONFIDENCE], actual[CONFIDENCE], 0.0);
+  }
+
+  @Test
+  public void expect_SameResults_As_FullComputation_AfterEveryChange() {
+    //given
+    boolean[][] M = getRandomBoolMatrix(41L, 0.1, NUM_TESTS, NUM_STMTS);
+    boolean[] F = getRandomBoolArray(43L, 0.2, NUM_TESTS);
+    boolean[] L = getRandomBoolArray(44L, 0.9, NUM_TESTS);
+    IncrementalFaultLocalizer localizer =
+        new IncrementalFaultLocalizer(getData(M, F, L));
+    assertSameResults(getData(M, F, L), localizer);
+
+    //when a test is re-run with different coverage and verdict
+    localizer.updateTest(3, new int[] {0, 7, 8}, true);
+    M[3] = new boolean[NUM_STMTS];
+    M[3][0] = M[3][7] = M[3][8] = true;
+    F[3] = true;
+    //then
+    assertSameResults(getData(M, F, L), localizer);
+
+    //when a verdict flips and a test is removed
+    localizer.setFailed(10, !F[10]);
+    F[10] = !F[10];
+    localizer.removeTest(11);
+    L[11] = false;
+    //then
+    assertSameResults(getData(M, F, L), localizer);
+
+    //when a test loses all of its coverage
+    localizer.updateTest(12, new int[0], F[12]);
+    M[12] = new boolean[NUM_STMTS];
+    //then
+    assertSameResults(getData(M, F, L), localizer);
+  }
+
+  @Test
+  public void expect_AddedTests_ToBeCounted_As_NewRows() {
+    //given
+    boolean[][] M = getRandomBoolMatrix(45L, 0.1, NUM_TESTS, NUM_STMTS);
+    boolean[] F = getRandomBoolArray(46L, 0.2, NUM_TESTS);
+    boolean[] L = getRandomBoolArray(47L, 1.0, NUM_TESTS);
+    IncrementalFaultLocalizer localizer =
+        new IncrementalFaultLocalizer(getData(M, F, L));
+    boolean[][] grownM = new boolean[NUM_TESTS + 1][];
+    System.arraycopy(M, 0, grownM, 0, NUM_TESTS);
+    grownM[NUM_TESTS] = new boolean[NUM_STMTS];
+    grownM[NUM_TESTS][5] = true;
+    boolean[] grownF = Arrays.copyOf(F, NUM_TESTS + 1);
+    grownF[NUM_TESTS] = true;
+    boolean[] grownL = Arrays.copyOf(L, NUM_TESTS + 1);
+    grownL[NUM_TESTS] = true;
+    //when
+    int test = localizer.addTest(new int[] {5}, true);
+    //then
+    assertEquals(NUM_TESTS, test);
+    assertEquals(NUM_TESTS + 1, localizer.getTestCount());
+    assertSameResults(getData(grownM, grownF, grownL), localizer);
+  }
+
+  @Test
+  public void expect_OnlyCoveredStmts_ToBeChanged_When_TotalsAreKept() {
+    //given
+    boolean[][] M = getRandomBoolMatrix(48L, 0.1, NUM_TESTS, NUM_STMTS);
+    boolean[] F = new boolean[NUM_TESTS];
+    boolean[] L = getRandomBoolArray(49L, 1.0, NUM_TESTS);
+    M[0] = new boolean[NUM_STMTS];
+    M[0][1] = M[0][2] = true;
+    IncrementalFaultLocalizer localizer =
+        new IncrementalFaultLocalizer(getData(M, F, L));
+    localizer.getSuspiciousnessAndConfidence();
+    //when
+    localizer.updateTest(0, new int[] {2, 3}, false);
+    //then
+    assertTrue(localizer.getChangedStmtCount() <= 3);
+    M[0] = new boolean[NUM_STMTS];
+    M[0][2] = M[0][3] = true;
+    assertSameResults(getData(M, F, L), localizer);
+  }
+
+  @Test
+  public void expect_DuplicateStmts_ToBeCountedOnce() {
+    //given
+    boolean[][] M = getRandomBoolMatrix(50L, 0.1, NUM_TESTS, NUM_STMTS);
+    boolean[] F = getRandomBoolArray(51L, 0.2, NUM_TESTS);
+    boolean[] L = getRandomBoolArray(52L, 1.0, NUM_TESTS);
+    IncrementalFaultLocalizer localizer =
+        new IncrementalFaultLocalizer(getData(M, F, L));
+    //when
+    localizer.updateTest(4, new int[] {9, 3, 9, 3}, true);
+    localizer.updateTest(4, new int[] {3, 9}, true);
+    //then
+    M[4] = new boolean[NUM_STMTS];
+    M[4][3] = M[4][9] = true;
+    F[4] = true;
+    assertSameResults(getData(M, F, L), localizer);
+  }
+
+  @Test
+  public void expect_CountsToBeKept_When_StmtIsOutOfRange() {
+    //given
+    boolean[][] M = getRandomBoolMatrix(53L, 0.1, NUM_TESTS, NUM_STMTS);
+    boolean[] F = getRandomBoolArray(54L, 0.2, NUM_TESTS);
+    boolean[] L = getRandomBoolArray(55L, 1.0, NUM_TESTS);
+    IncrementalFaultLocalizer localizer =
+        new IncrementalFaultLocalizer(getData(M, F, L));
+    //when
+    try {
+      localizer.updateTest(4, new int[] {3, NUM_STMTS}, true);
+      fail();
+    } catch (IllegalArgumentException e) {
+      //then
+    }
+    try {
+      localizer.addTest(new int[] {-1}, false);
+      fail();
+    } catch (IllegalArgumentException e) {
+      //then
+    }
+    assertEquals(NUM_TESTS, localizer.getTestCount());
+    assertSameResults(getData(M, F, L), localizer);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void expect_IndexOutOfBoundsException_When_UpdatingMissingTest() {
+    //given
+    boolean[][] M = getRandomBoolMatrix(56L, 0.1, NUM_TESTS, NUM_STMTS);
+    IncrementalFaultLocalizer localizer = new IncrementalFaultLocalizer(
+        getData(M, new boolean[NUM_TESTS], new boolean[NUM_TESTS]));
+    //when
+    localizer.updateTest(NUM_TESTS, new int[] {1}, false);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void expect_IndexOutOfBoundsException_When_JudgingMissingTest() {
+    //given
+    boolean[][] M = getRandomBoolMatrix(57L, 0.1, NUM_TESTS, NUM_STMTS);
+    IncrementalFaultLocalizer localizer = new IncrementalFaultLocalizer(
+        getData(M, new boolean[NUM_TESTS], new boolean[NUM_TESTS]));
+    //when
+    localizer.setFailed(NUM_TESTS, true);
+  }
+
+}
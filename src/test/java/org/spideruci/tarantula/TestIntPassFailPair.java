@@ -0,0 +1,31 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TestIntPassFailPair {
+
+  @Test
+  public void passShouldReturnPassValue() {
+    // given
+    int passValue = 100;
+    IntPassFailPair pair = new IntPassFailPair(passValue, 0);
+    // when
+    int actualPassValue = pair.pass();
+    //then
+    assertEquals(passValue, actualPassValue);
+  }
+
+  @Test
+  public void failShouldReturnFailValue() {
+    // given
+    int failValue = 100;
+    IntPassFailPair pair = new IntPassFailPair(0, failValue);
+    // when
+    int actualFailValue = pair.fail();
+    //then
+    assertEquals(failValue, actualFailValue);
+  }
+
+}
@@ -0,0 +1,179 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestLocalizationServer {
+
+  private static final int NUM_TESTS = 40;
+  private static final int NUM_STMTS = 30;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private LocalizationServer server;
+  private File file;
+
+  private TarantulaData getData() {
+    TarantulaData data = new TarantulaData(
+        getRandomBoolMatrix(51L, 0.2, NUM_TESTS, NUM_STMTS));
+    data.setF(getRandomBoolArray(52L, 0.3, NUM_TESTS));
+    data.setL(getRandomBoolArray(53L, 0.9, NUM_TESTS));
+    data.setC(getRandomBoolArray(54L, 0.9, NUM_STMTS));
+    data.setS(new int[NUM_STMTS]);
+    return data;
+  }
+
+  @Before
+  public void startServer() throws IOException {
+    file = folder.newFile("cov matrix.gz");
+    OutputStream out = new GZIPOutputStream(new FileOutputStream(file));
+    try {
+      new CovMatrixWriter(out).write(getData());
+    } finally {
+      out.close();
+    }
+
+    server = new LocalizationServer(0, 1L << 20);
+    new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          server.serve();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    }).start();
+  }
+
+  @After
+  public void stopServer() throws IOException {
+    server.close();
+  }
+
+  private String[] request(Socket socket, String request) throws IOException {
+    Writer out = new OutputStreamWriter(socket.getOutputStream(), "UTF-8");
+    out.write(request + "\n");
+    out.flush();
+    BufferedReader in = new BufferedReader(
+        new InputStreamReader(socket.getInputStream(), "UTF-8"));
+    String status = in.readLine();
+    if(!status.startsWith("OK ")) {
+      return new String[] {status};
+    }
+    String[] lines = new String[Integer.parseInt(status.substring(3)) + 1];
+    lines[0] = status;
+    for(int n = 1; n < lines.length; n += 1) {
+      lines[n] = in.readLine();
+    }
+    return lines;
+  }
+
+  @Test
+  public void expect_SameScores_AsCompute_WithTheFilesVerdicts()
+      throws IOException {
+    //given
+    double[][] expected = new TarantulaFaultLocalizer().compute(getData(), false);
+    Socket socket = new Socket("localhost", server.getPort());
+    try {
+      //when
+      String[] lines = request(socket, "LOCALIZE 0 - " + file.getPath());
+      //then
+      assertEquals(NUM_STMTS + 1, lines.length);
+      for(int j = 0; j < NUM_STMTS; j += 1) {
+        String[] result = lines[j + 1].split(" ");
+        assertEquals(j, Integer.parseInt(result[0]));
+        assertEquals(expected[0][j], Double.parseDouble(result[1]), 0.0);
+        assertEquals(expected[1][j], Double.parseDouble(result[2]), 0.0);
+      }
+    } finally {
+      socket.close();
+    }
+  }
+
+  @Test
+  public void expect_TopK_WithGivenVerdicts_FromOneCachedLoad()
+      throws IOException {
+    //given
+    TarantulaData data = getData();
+    boolean[] F = new boolean[NUM_TESTS];
+    F[7] = true;
+    F[21] = true;
+    data.setF(F);
+    double[][] expected = new TarantulaFaultLocalizer().compute(data, false);
+    int[] top = new SuspiciousnessRanking(expected).getTopK(3);
+    StringBuilder verdicts = new StringBuilder();
+    for(boolean failed : F) {
+      verdicts.append(failed ? '1' : '0');
+    }
+    Socket socket = new Socket("localhost", server.getPort());
+    try {
+      //when
+      request(socket, "LOCALIZE 0 - " + file.getPath());
+      String[] lines = request(socket, "LOCALIZE 3 " + verdicts + " " + file.getPath());
+      String[] stats = request(socket, "STATS");
+      //then
+      assertEquals(4, lines.length);
+      for(int n = 0; n < top.length; n += 1) {
+        assertEquals(top[n], Integer.parseInt(lines[n + 1].split(" ")[0]));
+      }
+      assertEquals("1", stats[1].split(" ")[0]);
+    } finally {
+      socket.close();
+    }
+  }
+
+  @Test
+  public void expect_Error_When_VerdictsDoNotMatchTests() throws IOException {
+    //given
+    Socket socket = new Socket("localhost", server.getPort());
+    try {
+      //when
+      String[] lines = request(socket, "LOCALIZE 0 0101 " + file.getPath());
+      String[] unknown = request(socket, "SCORE");
+      //then
+      assertTrue(lines[0].startsWith("ERROR "));
+      assertTrue(unknown[0].startsWith("ERROR "));
+    } finally {
+      socket.close();
+    }
+  }
+
+  @Test
+  public void expect_NoLoad_When_ArgumentsAreInvalid() throws IOException {
+    //given
+    Socket socket = new Socket("localhost", server.getPort());
+    try {
+      //when
+      String[] badK = request(socket, "LOCALIZE x - " + file.getPath());
+      String[] negativeK = request(socket, "LOCALIZE -1 - " + file.getPath());
+      String[] badVerdicts = request(socket, "LOCALIZE 0 01x " + file.getPath());
+      //then
+      assertTrue(badK[0].startsWith("ERROR "));
+      assertTrue(negativeK[0].startsWith("ERROR "));
+      assertTrue(badVerdicts[0].startsWith("ERROR "));
+      assertEquals(0, server.getCache().size());
+    } finally {
+      socket.close();
+    }
+  }
+
+}
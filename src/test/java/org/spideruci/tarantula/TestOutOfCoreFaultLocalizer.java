@@ -0,0 +1,129 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestOutOfCoreFaultLocalizer {
+
+  private static final int NUM_TESTS = 120;
+  private static final int NUM_STMTS = 200;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private TarantulaData getData() {
+    boolean[][] M = getRandomBoolMatrix(71L, 0.05, NUM_TESTS, NUM_STMTS);
+    M[3] = new boolean[NUM_STMTS];
+    M[64] = new boolean[NUM_STMTS];
+    TarantulaData data = new TarantulaData(M);
+    data.setF(getRandomBoolArray(72L, 0.2, NUM_TESTS));
+    data.setL(getRandomBoolArray(73L, 0.9, NUM_TESTS));
+    data.setC(getRandomBoolArray(74L, 0.9, NUM_STMTS));
+    data.setS(new int[NUM_STMTS]);
+    return data;
+  }
+
+  private double[][] getExpected() {
+    return new TarantulaFaultLocalizer().compute(getData(), false);
+  }
+
+  private File writeCovMatrix(String name, boolean gzip) throws IOException {
+    File file = folder.newFile(name);
+    OutputStream out = new FileOutputStream(file);
+    if(gzip) {
+      out = new GZIPOutputStream(out);
+    }
+    try {
+      new CovMatrixWriter(out).write(getData());
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  @Test
+  public void expect_SameResults_FromCovMatrix_WhateverTheBudget()
+      throws IOException {
+    //given
+    File file = writeCovMatrix("cov_matrix", false);
+    double[][] expected = getExpected();
+    for(long budget : new long[] {1L, 500L, 5000L, 1L << 20}) {
+      //when
+      double[][] actual = new OutOfCoreFaultLocalizer(budget).compute(file);
+      //then
+      assertArrayEquals(expected[0], actual[0], 0.0);
+      assertArrayEquals(expected[1], actual[1], 0.0);
+    }
+  }
+
+  @Test
+  public void expect_SameResults_FromGzippedCovMatrix() throws IOException {
+    //given
+    File file = writeCovMatrix("cov_matrix.gz", true);
+    //when
+    double[][] actual = new OutOfCoreFaultLocalizer(1000L).compute(file);
+    //then
+    double[][] expected = getExpected();
+    assertArrayEquals(expected[0], actual[0], 0.0);
+    assertArrayEquals(expected[1], actual[1], 0.0);
+  }
+
+  @Test
+  public void expect_SameResults_FromCoverageArchive() throws IOException {
+    //given
+    File file = folder.newFile("cov_matrix.tra");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      CoverageArchive.write(getData(), file, 16, executor);
+    } finally {
+      executor.shutdown();
+    }
+    double[][] expected = getExpected();
+    for(long budget : new long[] {1L, 2000L, 1L << 20}) {
+      //when
+      double[][] actual = new OutOfCoreFaultLocalizer(budget).compute(file);
+      //then
+      assertArrayEquals(expected[0], actual[0], 0.0);
+      assertArrayEquals(expected[1], actual[1], 0.0);
+    }
+  }
+
+  @Test
+  public void expect_ChunkToFitBudget() {
+    //given
+    OutOfCoreFaultLocalizer localizer = new OutOfCoreFaultLocalizer(1000L);
+    //then
+    assertEquals(1000 / (4 * 8 + 19),
+        localizer.getTestsPerChunk(NUM_TESTS, NUM_STMTS));
+    assertEquals(1, localizer.getTestsPerChunk(NUM_TESTS, 1 << 20));
+  }
+
+  @Test(expected = IOException.class)
+  public void expect_IOException_When_VectorsAreOutOfTestOrder()
+      throws IOException {
+    //given
+    File file = folder.newFile("cov_matrix");
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(("1 3 1 0\n2 a.c 2\n3 2 11\n3 0 01\n"
+          + "4 001\n5 111\n7 11\n").getBytes("US-ASCII"));
+    } finally {
+      out.close();
+    }
+    //when
+    new OutOfCoreFaultLocalizer(1L).compute(file);
+  }
+
+}
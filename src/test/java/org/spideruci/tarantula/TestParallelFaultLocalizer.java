@@ -0,0 +1,113 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class TestParallelFaultLocalizer {
+
+  @Parameters
+  public static Collection<Object[]> data() {
+    ArrayList<Object[]> layouts = new ArrayList<Object[]>();
+    for(CoverageLayout layout : CoverageLayout.values()) {
+      layouts.add(new Object[] {layout});
+    }
+    return layouts;
+  }
+
+  private final CoverageLayout layout;
+
+  public TestParallelFaultLocalizer(CoverageLayout layout) {
+    this.layout = layout;
+  }
+
+  private TarantulaData getRandomData(int numTests, int numStmts) {
+    boolean[][] M = getRandomBoolMatrix(11L, 0.05, numTests, numStmts);
+    TarantulaData data = new TarantulaData(layout.fromBooleanMatrix(M));
+    data.setC(getRandomBoolArray(12L, 0.9, numStmts));
+    data.setF(getRandomBoolArray(13L, 0.2, numTests));
+    data.setL(getRandomBoolArray(14L, 0.9, numTests));
+    return data;
+  }
+
+  @Test
+  public void expect_BitIdenticalResults_As_SequentialLocalizer() {
+    //given
+    TarantulaData data = getRandomData(1000, 5000);
+    double[][] expected = new TarantulaFaultLocalizer().compute(data, false);
+    boolean[] expectedB = data.getB();
+    ParallelFaultLocalizer parallel = new ParallelFaultLocalizer(4);
+    //when
+    double[][] actual;
+    try {
+      actual = parallel.compute(data, false);
+    } finally {
+      parallel.close();
+    }
+    //then
+    assertArrayEquals(expectedB, data.getB());
+    assertArrayEquals(expected[SUSPICIOUSNESS], actual[SUSPICIOUSNESS], 0.0);
+    assertArrayEquals(expected[CONFIDENCE], actual[CONFIDENCE], 0.0);
+  }
+
+  @Test
+  public void expect_SamePassAndFailOnStmts_When_TestsDoNotFillLastRange() {
+    //given
+    TarantulaData data = getRandomData(130, 70);
+    TarantulaFaultLocalizer sequential = new TarantulaFaultLocalizer();
+    boolean[] B = sequential.calculateBadTestCoverage(data.getCoverage());
+    ParallelFaultLocalizer parallel = new ParallelFaultLocalizer(3);
+    IntArrayPassFailPair expected = sequential.calculateTestsOnStmtProfiles(
+        70, B, data.getL(), data.getC(), data.getCoverage(), data.getF());
+    //when
+    IntArrayPassFailPair actual;
+    try {
+      actual = parallel.calculateTestsOnStmtProfiles(
+          70, B, data.getL(), data.getC(), data.getCoverage(), data.getF());
+    } finally {
+      parallel.close();
+    }
+    //then
+    assertArrayEquals(expected.pass(), actual.pass());
+    assertArrayEquals(expected.fail(), actual.fail());
+  }
+
+  @Test
+  public void expect_TestRanges_AlignedTo_64Tests() {
+    //given
+    ParallelFaultLocalizer parallel = new ParallelFaultLocalizer(3);
+    //when
+    int perTask = parallel.testsPerTask(1000);
+    parallel.close();
+    //then
+    assertEquals(0, perTask % ParallelFaultLocalizer.TEST_ALIGNMENT);
+    assertTrue(perTask * 3 >= 1000);
+  }
+
+  @Test
+  public void expect_OnlyOwnPool_ToBeShutDown_OnClose() {
+    //given
+    ForkJoinPool pool = new ForkJoinPool(2);
+    ParallelFaultLocalizer given = new ParallelFaultLocalizer(pool);
+    ParallelFaultLocalizer owning = new ParallelFaultLocalizer(2);
+    //when
+    given.close();
+    owning.close();
+    //then
+    assertFalse(pool.isShutdown());
+    assertTrue(owning.getPool().isShutdown());
+    pool.shutdown();
+  }
+
+}
@@ -54,7 +54,7 @@ public class TestPassAndFailRatios_AllTestsCoverAllStmts {
     }
     
     //and, computed total live passing and failing tests
-    PassFailPair<Integer> liveCountPair = 
+    IntPassFailPair liveCountPair = 
         localizer.calculateTotalLiveFailAndPass(numTests, B, L, F);
     final int totalLivePass = liveCountPair.pass();
     final int totalLiveFail = liveCountPair.fail();
@@ -63,13 +63,13 @@ public class TestPassAndFailRatios_AllTestsCoverAllStmts {
     final int numStmts = 7;
     final boolean[] C = getSimpleUniformBoolArray(true, numStmts);
     final boolean[][] M = getSimpleUniformBoolMatrix(true, numTests, numStmts);
-    PassFailPair<int[]> passAndFailOnStmtPair =
+    IntArrayPassFailPair passAndFailOnStmtPair =
         localizer.calculatePassOnStmtAndFailOnStmt(numStmts, numTests, B, L, C, M, F);
     final int[] passOnStmt = passAndFailOnStmtPair.pass();
     final int[] failOnStmt = passAndFailOnStmtPair.fail();
     
     //when
-    PassFailPair<double[]> pair = 
+    DoubleArrayPassFailPair pair = 
         localizer.calculatePassRatioAndFailRatio(
             numStmts, totalLivePass, totalLiveFail, passOnStmt, failOnStmt);
     //then
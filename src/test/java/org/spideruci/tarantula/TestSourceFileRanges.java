@@ -0,0 +1,75 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+
+import org.junit.Test;
+
+public class TestSourceFileRanges {
+
+  private final SourceFileRanges sourceFiles = new SourceFileRanges()
+      .add("a.c", 10).add("empty.c", 0).add("b.c", 5).add("c.c", 20);
+
+  @Test
+  public void expect_ConsecutiveRanges() {
+    //then
+    assertEquals(4, sourceFiles.getFileCount());
+    assertEquals(35, sourceFiles.getStmtCount());
+    assertEquals(10, sourceFiles.getFromStmt(2));
+    assertEquals(15, sourceFiles.getToStmt(2));
+    assertEquals(3, sourceFiles.indexOf("c.c"));
+    assertEquals(-1, sourceFiles.indexOf("d.c"));
+  }
+
+  @Test
+  public void expect_FileOfEveryStmt_SkippingEmptyFiles() {
+    //then
+    assertEquals(0, sourceFiles.getFile(0));
+    assertEquals(0, sourceFiles.getFile(9));
+    assertEquals(2, sourceFiles.getFile(10));
+    assertEquals(3, sourceFiles.getFile(15));
+    assertEquals(3, sourceFiles.getFile(34));
+  }
+
+  @Test
+  public void expect_SelectedFiles_RenumberedFromZero() {
+    //when
+    SourceFileRanges selected = sourceFiles.select(3, 0);
+    //then
+    assertEquals("c.c", selected.getName(0));
+    assertEquals(20, selected.getFromStmt(1));
+    assertEquals(30, selected.getStmtCount());
+  }
+
+  @Test
+  public void expect_SourceFileScores_ToMatch_Compute() {
+    //given
+    boolean[][] M = getRandomBoolMatrix(61L, 0.2, 80, 35);
+    TarantulaData data = new TarantulaData(M);
+    data.setF(getRandomBoolArray(62L, 0.3, 80));
+    data.setL(getRandomBoolArray(63L, 0.9, 80));
+    data.setC(getRandomBoolArray(64L, 0.9, 35));
+    data.setSourceFiles(sourceFiles);
+    double[][] expected = new TarantulaFaultLocalizer().compute(data, false);
+    ParallelFaultLocalizer parallel = new ParallelFaultLocalizer(3);
+    TarantulaFaultLocalizer[] localizers = {
+        new TarantulaFaultLocalizer(), parallel};
+    for(TarantulaFaultLocalizer localizer : localizers) {
+      //when
+      double[][][] scores = localizer.computeSourceFiles(data, true, 3, 1, 0);
+      //then
+      assertEquals(3, scores.length);
+      assertEquals(0, scores[1][0].length);
+      for(int j = 0; j < 20; j += 1) {
+        assertEquals(expected[0][15 + j], scores[0][0][j], 0.0);
+        assertEquals(expected[1][15 + j], scores[0][1][j], 0.0);
+      }
+      for(int j = 0; j < 10; j += 1) {
+        assertEquals(expected[0][j], scores[2][0][j], 0.0);
+        assertEquals(expected[1][j], scores[2][1][j], 0.0);
+      }
+    }
+    parallel.close();
+  }
+
+}
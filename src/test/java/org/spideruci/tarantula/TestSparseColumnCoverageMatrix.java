@@ -0,0 +1,86 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+
+import org.junit.Test;
+
+public class TestSparseColumnCoverageMatrix {
+
+  @Test
+  public void expect_SameCells_As_BooleanMatrix() {
+    //given
+    final int numTests = 130;
+    final int numStmts = 9;
+    boolean[][] M = getRandomBoolMatrix(1L, 0.3, numTests, numStmts);
+    //when
+    SparseColumnCoverageMatrix sparse =
+        SparseColumnCoverageMatrix.fromBooleanMatrix(M);
+    //then
+    boolean[][] actual = sparse.toBooleanMatrix();
+    for(int i = 0; i < numTests; i += 1) {
+      assertArrayEquals(M[i], actual[i]);
+    }
+  }
+
+  @Test
+  public void expect_OnlyCoveredCells_ToBeStored() {
+    //given
+    boolean[][] M = new boolean[][] {
+        {false, true, false, true},
+        {false, false, false, false},
+        {true, true, false, false}};
+    //when
+    SparseColumnCoverageMatrix sparse =
+        SparseColumnCoverageMatrix.fromBooleanMatrix(M);
+    //then
+    assertEquals(4, sparse.getCoveredCount());
+    assertArrayEquals(new int[] {0, 2}, sparse.getCoveringTests(1));
+    assertArrayEquals(new int[0], sparse.getCoveringTests(2));
+    assertTrue(sparse.isCovered(2, 0));
+    assertFalse(sparse.isCovered(1, 0));
+  }
+
+  @Test
+  public void expect_SameBadTests_As_BooleanMatrix_OnEveryRange() {
+    //given
+    final int numTests = 100;
+    final int numStmts = 20;
+    boolean[][] M = getRandomBoolMatrix(2L, 0.02, numTests, numStmts);
+    SparseColumnCoverageMatrix sparse =
+        SparseColumnCoverageMatrix.fromBooleanMatrix(M);
+    boolean[] expected = new TarantulaFaultLocalizer()
+        .calculateBadTestCoverage(numStmts, numTests, M);
+    //when
+    boolean[] B = new boolean[numTests];
+    sparse.findTestsWithoutCoverage(0, 37, B);
+    sparse.findTestsWithoutCoverage(37, numTests, B);
+    //then
+    assertArrayEquals(expected, B);
+  }
+
+  @Test
+  public void expect_SamePassAndFailOnStmts_As_BooleanMatrix_OnEveryRange() {
+    //given
+    final int numTests = 150;
+    final int numStmts = 60;
+    boolean[][] M = getRandomBoolMatrix(3L, 0.2, numTests, numStmts);
+    boolean[] B = getRandomBoolArray(4L, 0.1, numTests);
+    boolean[] L = getRandomBoolArray(5L, 0.8, numTests);
+    boolean[] C = getRandomBoolArray(6L, 0.9, numStmts);
+    boolean[] F = getRandomBoolArray(7L, 0.3, numTests);
+    IntArrayPassFailPair expected = new TarantulaFaultLocalizer()
+        .calculatePassOnStmtAndFailOnStmt(numStmts, numTests, B, L, C, M, F);
+    SparseColumnCoverageMatrix sparse =
+        SparseColumnCoverageMatrix.fromBooleanMatrix(M);
+    //when
+    int[] passOnStmt = new int[numStmts];
+    int[] failOnStmt = new int[numStmts];
+    sparse.countTestsOnStmts(0, 64, B, L, C, F, passOnStmt, failOnStmt);
+    sparse.countTestsOnStmts(64, numTests, B, L, C, F, passOnStmt, failOnStmt);
+    //then
+    assertArrayEquals(expected.pass(), passOnStmt);
+    assertArrayEquals(expected.fail(), failOnStmt);
+  }
+
+}
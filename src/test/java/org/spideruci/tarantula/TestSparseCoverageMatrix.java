@@ -0,0 +1,78 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+
+import org.junit.Test;
+
+public class TestSparseCoverageMatrix {
+
+  @Test
+  public void expect_SameCells_As_BooleanMatrix_AcrossWordBoundaries() {
+    //given
+    final int numTests = 130;
+    final int numStmts = 9;
+    boolean[][] M = getRandomBoolMatrix(1L, 0.3, numTests, numStmts);
+    //when
+    SparseCoverageMatrix sparse = SparseCoverageMatrix.fromBooleanMatrix(M);
+    //then
+    boolean[][] actual = sparse.toBooleanMatrix();
+    for(int i = 0; i < numTests; i += 1) {
+      assertArrayEquals(M[i], actual[i]);
+    }
+  }
+
+  @Test
+  public void expect_OnlyCoveredCells_ToBeStored() {
+    //given
+    boolean[][] M = new boolean[][] {
+        {false, true, false, true},
+        {false, false, false, false},
+        {true, false, false, false}};
+    //when
+    SparseCoverageMatrix sparse = SparseCoverageMatrix.fromBooleanMatrix(M);
+    //then
+    assertEquals(3, sparse.getCoveredCount());
+    assertArrayEquals(new int[] {1, 3}, sparse.getCoveredStmts(0));
+    assertArrayEquals(new int[0], sparse.getCoveredStmts(1));
+    assertTrue(sparse.isCovered(0, 3));
+    assertFalse(sparse.isCovered(0, 2));
+  }
+
+  @Test
+  public void expect_SameBadTests_As_BooleanMatrix() {
+    //given
+    final int numTests = 100;
+    final int numStmts = 20;
+    boolean[][] M = getRandomBoolMatrix(2L, 0.02, numTests, numStmts);
+    TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
+    //when
+    boolean[] B = localizer.calculateBadTestCoverage(
+        SparseCoverageMatrix.fromBooleanMatrix(M));
+    //then
+    assertArrayEquals(localizer.calculateBadTestCoverage(numStmts, numTests, M), B);
+  }
+
+  @Test
+  public void expect_SamePassAndFailOnStmts_As_BooleanMatrix() {
+    //given
+    final int numTests = 150;
+    final int numStmts = 60;
+    boolean[][] M = getRandomBoolMatrix(3L, 0.2, numTests, numStmts);
+    boolean[] B = getRandomBoolArray(4L, 0.1, numTests);
+    boolean[] L = getRandomBoolArray(5L, 0.8, numTests);
+    boolean[] C = getRandomBoolArray(6L, 0.9, numStmts);
+    boolean[] F = getRandomBoolArray(7L, 0.3, numTests);
+    TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
+    IntArrayPassFailPair expected =
+        localizer.calculatePassOnStmtAndFailOnStmt(numStmts, numTests, B, L, C, M, F);
+    //when
+    IntArrayPassFailPair actual =
+        localizer.calculateTestsOnStmtProfiles(numStmts, B, L, C,
+            SparseCoverageMatrix.fromBooleanMatrix(M), F);
+    //then
+    assertArrayEquals(expected.pass(), actual.pass());
+    assertArrayEquals(expected.fail(), actual.fail());
+  }
+
+}
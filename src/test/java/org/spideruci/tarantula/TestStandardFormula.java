@@ -0,0 +1,94 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.StandardFormula.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestStandardFormula {
+
+  // P = 4, F = 2
+  private final int[] pass = {0, 4, 1, 0, 2};
+  private final int[] fail = {0, 0, 2, 2, 1};
+
+  private double[] score(SuspiciousnessFormula formula) {
+    double[] scores = new double[pass.length];
+    formula.calculateScores(0, pass.length, 4, 2, pass, fail, scores);
+    return scores;
+  }
+
+  @Test
+  public void expect_Ochiai() {
+    //when
+    double[] scores = score(OCHIAI);
+    //then
+    assertArrayEquals(new double[] {-1d, 0d, 2d / Math.sqrt(6d), 1d,
+        1d / Math.sqrt(6d)}, scores, 1e-12);
+  }
+
+  @Test
+  public void expect_Jaccard() {
+    //when
+    double[] scores = score(JACCARD);
+    //then
+    assertArrayEquals(new double[] {-1d, 0d, 2d / 3d, 1d, 1d / 4d},
+        scores, 1e-12);
+  }
+
+  @Test
+  public void expect_DStar_InfiniteOnlyForStmtsOfEveryFailingTestAlone() {
+    //when
+    double[] scores = score(DSTAR);
+    //then
+    assertArrayEquals(new double[] {-1d, 0d, 4d, Double.POSITIVE_INFINITY,
+        1d / 3d}, scores, 1e-12);
+  }
+
+  @Test
+  public void expect_Op2_WithNegativeScoresRanked() {
+    //when
+    double[] scores = score(OP2);
+    //then
+    assertArrayEquals(new double[] {-1d, -0.8, 1.8, 2d, 0.6}, scores, 1e-12);
+    SuspiciousnessRanking ranking = new SuspiciousnessRanking(scores, scores);
+    assertEquals(4, ranking.getRankedStmtCount());
+    assertArrayEquals(new int[] {3, 2, 4, 1}, ranking.getTopK(5));
+  }
+
+  @Test
+  public void expect_Tarantula_ToMatch_Compute() {
+    //given
+    Random random = new Random(7L);
+    boolean[][] M = new boolean[40][60];
+    boolean[] F = new boolean[40];
+    boolean[] L = new boolean[40];
+    boolean[] C = new boolean[60];
+    for(int j = 0; j < C.length; j += 1) {
+      C[j] = random.nextInt(10) != 0;
+    }
+    for(int i = 0; i < M.length; i += 1) {
+      F[i] = random.nextInt(4) == 0;
+      L[i] = random.nextInt(10) != 0;
+      for(int j = 0; j < M[i].length; j += 1) {
+        M[i][j] = random.nextInt(3) == 0;
+      }
+    }
+    TarantulaData data = new TarantulaData(M);
+    data.setF(F);
+    data.setL(L);
+    data.setC(C);
+    TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
+    double[][] expected = localizer.compute(data, false);
+    //when
+    double[][] scores = localizer.computeScores(data, true,
+        TARANTULA, OCHIAI, OP2);
+    //then
+    assertEquals(3, scores.length);
+    assertArrayEquals(expected[TarantulaFaultLocalizer.SUSPICIOUSNESS],
+        scores[0], 0.0);
+    assertEquals(60, scores[2].length);
+  }
+
+}
@@ -0,0 +1,61 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+
+import org.junit.Test;
+
+public class TestStmtMajorCoverageMatrix {
+
+  @Test
+  public void expect_SameCells_As_BooleanMatrix_AcrossWordBoundaries() {
+    //given
+    final int numTests = 130;
+    final int numStmts = 9;
+    boolean[][] M = getRandomBoolMatrix(1L, 0.3, numTests, numStmts);
+    //when
+    StmtMajorCoverageMatrix columns = StmtMajorCoverageMatrix.fromBooleanMatrix(M);
+    //then
+    boolean[][] actual = columns.toBooleanMatrix();
+    for(int i = 0; i < numTests; i += 1) {
+      assertArrayEquals(M[i], actual[i]);
+    }
+  }
+
+  @Test
+  public void expect_SameBadTests_As_BooleanMatrix() {
+    //given
+    final int numTests = 100;
+    final int numStmts = 20;
+    boolean[][] M = getRandomBoolMatrix(2L, 0.02, numTests, numStmts);
+    TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
+    //when
+    boolean[] B = localizer.calculateBadTestCoverage(
+        StmtMajorCoverageMatrix.fromBooleanMatrix(M));
+    //then
+    assertArrayEquals(localizer.calculateBadTestCoverage(numStmts, numTests, M), B);
+  }
+
+  @Test
+  public void expect_SamePassAndFailOnStmts_As_BooleanMatrix() {
+    //given
+    final int numTests = 150;
+    final int numStmts = 60;
+    boolean[][] M = getRandomBoolMatrix(3L, 0.2, numTests, numStmts);
+    boolean[] B = getRandomBoolArray(4L, 0.1, numTests);
+    boolean[] L = getRandomBoolArray(5L, 0.8, numTests);
+    boolean[] C = getRandomBoolArray(6L, 0.9, numStmts);
+    boolean[] F = getRandomBoolArray(7L, 0.3, numTests);
+    TarantulaFaultLocalizer localizer = new TarantulaFaultLocalizer();
+    IntArrayPassFailPair expected =
+        localizer.calculatePassOnStmtAndFailOnStmt(numStmts, numTests, B, L, C, M, F);
+    //when
+    IntArrayPassFailPair actual =
+        localizer.calculateTestsOnStmtProfiles(numStmts, B, L, C,
+            StmtMajorCoverageMatrix.fromBooleanMatrix(M), F);
+    //then
+    assertArrayEquals(expected.pass(), actual.pass());
+    assertArrayEquals(expected.fail(), actual.fail());
+  }
+
+}
@@ -0,0 +1,59 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class TestSubsetFaultLocalizer {
+
+  @Parameters
+  public static Collection<Object[]> data() {
+    ArrayList<Object[]> layouts = new ArrayList<Object[]>();
+    for(CoverageLayout layout : CoverageLayout.values()) {
+      layouts.add(new Object[] {layout});
+    }
+    return layouts;
+  }
+
+  private final CoverageLayout layout;
+
+  public TestSubsetFaultLocalizer(CoverageLayout layout) {
+    this.layout = layout;
+  }
+
+  @Test
+  public void expect_SameResults_As_ComputingEverySubsetAlone() {
+    //given
+    final int numTests = 140;
+    final int numStmts = 70;
+    boolean[][] M = getRandomBoolMatrix(51L, 0.05, numTests, numStmts);
+    TarantulaData data = new TarantulaData(layout.fromBooleanMatrix(M));
+    data.setC(getRandomBoolArray(52L, 0.9, numStmts));
+    data.setF(getRandomBoolArray(53L, 0.2, numTests));
+    boolean[][] Ls = new boolean[6][];
+    for(int s = 0; s < Ls.length; s += 1) {
+      Ls[s] = getRandomBoolArray(60L + s, 0.2 * s, numTests);
+    }
+    //when
+    double[][][] actual = new SubsetFaultLocalizer(data).compute(Ls);
+    //then
+    assertEquals(Ls.length, actual.length);
+    for(int s = 0; s < Ls.length; s += 1) {
+      data.setL(Ls[s]);
+      double[][] expected = new TarantulaFaultLocalizer().compute(data, false);
+      assertArrayEquals(expected[SUSPICIOUSNESS], actual[s][SUSPICIOUSNESS], 0.0);
+      assertArrayEquals(expected[CONFIDENCE], actual[s][CONFIDENCE], 0.0);
+    }
+  }
+
+}
@@ -0,0 +1,71 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.SuspiciousnessRanking.TiePolicy.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestSuspiciousnessRanking {
+
+  private final double[] suspiciousness = {0.5, -1d, 0.9, 0.5, 0.5, 0.1};
+  private final double[] confidence = {0.4, -1d, 0.2, 0.8, 0.4, 1.0};
+  private final SuspiciousnessRanking ranking =
+      new SuspiciousnessRanking(suspiciousness, confidence);
+
+  @Test
+  public void expect_TopK_BySuspiciousness_ThenConfidence() {
+    //when
+    int[] top = ranking.getTopK(3);
+    //then
+    assertArrayEquals(new int[] {2, 3, 0}, top);
+  }
+
+  @Test
+  public void expect_OnlyRankedStmts_When_KExceedsThem() {
+    //when
+    int[] top = ranking.getTopK(10);
+    //then
+    assertEquals(5, ranking.getRankedStmtCount());
+    assertArrayEquals(new int[] {2, 3, 0, 4, 5}, top);
+  }
+
+  @Test
+  public void expect_TiedStmts_RankedByPolicy() {
+    //then
+    assertEquals(1d, ranking.getRank(2, AVERAGE), 0.0);
+    assertEquals(2d, ranking.getRank(3, WORST), 0.0);
+    assertEquals(3d, ranking.getRank(0, BEST), 0.0);
+    assertEquals(4d, ranking.getRank(4, WORST), 0.0);
+    assertEquals(3.5, ranking.getRank(4, AVERAGE), 0.0);
+    assertEquals(5d, ranking.getRank(5, BEST), 0.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void expect_IllegalArgumentException_When_StmtIsNotRanked() {
+    ranking.getRank(1, BEST);
+  }
+
+  @Test
+  public void expect_TopK_ToMatch_BestRanks_OnRandomScores() {
+    //given
+    Random random = new Random(101L);
+    double[] s = new double[500];
+    double[] c = new double[500];
+    for(int j = 0; j < s.length; j += 1) {
+      s[j] = random.nextInt(20) / 20d;
+      c[j] = random.nextInt(3) / 3d;
+    }
+    SuspiciousnessRanking randomRanking = new SuspiciousnessRanking(s, c);
+    //when
+    int[] top = randomRanking.getTopK(50);
+    //then
+    for(int n = 1; n < top.length; n += 1) {
+      assertTrue(randomRanking.getRank(top[n - 1], BEST)
+          <= randomRanking.getRank(top[n], BEST));
+    }
+    assertTrue(randomRanking.getRank(top[49], BEST) <= 50d);
+  }
+
+}
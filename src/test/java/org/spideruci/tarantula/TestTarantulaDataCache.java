@@ -0,0 +1,139 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestTarantulaDataCache {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File writeCovMatrix(String name, long seed) throws IOException {
+    TarantulaData data = new TarantulaData(getRandomBoolMatrix(seed, 0.2, 50, 100));
+    data.setF(getRandomBoolArray(seed + 1, 0.3, 50));
+    data.setC(getRandomBoolArray(seed + 2, 0.9, 100));
+    data.setS(new int[100]);
+    File file = new File(folder.getRoot(), name);
+    OutputStream out = new FileOutputStream(file);
+    try {
+      new CovMatrixWriter(out).write(data);
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  @Test
+  public void expect_SameData_OnHit_WithB() throws IOException {
+    //given
+    File file = writeCovMatrix("cov_matrix", 41L);
+    TarantulaDataCache cache = new TarantulaDataCache(1L << 20);
+    //when
+    TarantulaData first = cache.get(file);
+    TarantulaData second = cache.get(file);
+    //then
+    assertSame(first, second);
+    assertNotNull(first.getB());
+    assertEquals(1, cache.size());
+    assertEquals(TarantulaDataCache.estimateBytes(first), cache.getBytes());
+  }
+
+  @Test
+  public void expect_LeastRecentlyUsed_Evicted_When_OverBudget()
+      throws IOException {
+    //given
+    File a = writeCovMatrix("a", 41L);
+    File b = writeCovMatrix("b", 42L);
+    File c = writeCovMatrix("c", 43L);
+    TarantulaDataCache probe = new TarantulaDataCache(1L << 20);
+    long bytes = TarantulaDataCache.estimateBytes(probe.get(a));
+    TarantulaDataCache cache = new TarantulaDataCache(2 * bytes);
+    TarantulaData cachedA = cache.get(a);
+    cache.get(b);
+    //when
+    cache.get(a);
+    cache.get(c);
+    //then
+    assertEquals(2, cache.size());
+    assertSame(cachedA, cache.get(a));
+    assertTrue(cache.evict(c));
+    assertFalse(cache.evict(b));
+  }
+
+  @Test
+  public void expect_Reload_When_FileChanges() throws IOException {
+    //given
+    File file = writeCovMatrix("cov_matrix", 41L);
+    TarantulaDataCache cache = new TarantulaDataCache(1L << 20);
+    TarantulaData first = cache.get(file);
+    //when
+    writeCovMatrix("cov_matrix", 44L);
+    file.setLastModified(file.lastModified() + 2000L);
+    TarantulaData second = cache.get(file);
+    //then
+    assertNotSame(first, second);
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void expect_OneLoad_When_MissesOnSameFileAreConcurrent()
+      throws Exception {
+    //given
+    final File file = writeCovMatrix("cov_matrix", 47L);
+    final AtomicInteger reads = new AtomicInteger();
+    final CountDownLatch isReading = new CountDownLatch(1);
+    final CountDownLatch isWaiting = new CountDownLatch(1);
+    final TarantulaDataCache cache = new TarantulaDataCache(1L << 20) {
+      @Override
+      TarantulaData read(File file) throws IOException {
+        reads.incrementAndGet();
+        isReading.countDown();
+        try {
+          isWaiting.await();
+          Thread.sleep(50L);
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        return super.read(file);
+      }
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Callable<TarantulaData> get = new Callable<TarantulaData>() {
+        @Override
+        public TarantulaData call() throws IOException {
+          return cache.get(file);
+        }
+      };
+      //when
+      Future<TarantulaData> first = executor.submit(get);
+      isReading.await();
+      Future<TarantulaData> second = executor.submit(get);
+      Future<TarantulaData> third = executor.submit(get);
+      isWaiting.countDown();
+      //then
+      assertSame(first.get(), second.get());
+      assertSame(first.get(), third.get());
+      assertEquals(1, reads.get());
+      assertEquals(1, cache.size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
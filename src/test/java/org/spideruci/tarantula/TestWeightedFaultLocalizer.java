@@ -0,0 +1,118 @@
+package org.spideruci.tarantula;
+
+import static org.junit.Assert.*;
+import static org.spideruci.tarantula.MatrixStubs.*;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.CONFIDENCE;
+import static org.spideruci.tarantula.TarantulaFaultLocalizer.SUSPICIOUSNESS;
+
+import org.junit.Test;
+
+public class TestWeightedFaultLocalizer {
+
+  private static final int NUM_TESTS = 300;
+  private static final int NUM_STMTS = 130;
+
+  /**
+   * @return data whose test cases share one of a few coverage vectors, as
+   * parameterized test cases do, and a few that cover nothing.
+   */
+  private TarantulaData getData(long seed) {
+    boolean[][] vectors = getRandomBoolMatrix(seed, 0.2, 12, NUM_STMTS);
+    boolean[][] M = new boolean[NUM_TESTS][];
+    for (int i = 0; i < NUM_TESTS; i += 1) {
+      M[i] = i % 25 == 0 ? new boolean[NUM_STMTS] : vectors[(i * 7) % 12];
+    }
+    TarantulaData data = new TarantulaData(M);
+    data.setF(getRandomBoolArray(seed + 1, 0.2, NUM_TESTS));
+    data.setL(getRandomBoolArray(seed + 2, 0.9, NUM_TESTS));
+    data.setC(getRandomBoolArray(seed + 3, 0.9, NUM_STMTS));
+    return data;
+  }
+
+  private void assertSameResults(double[][] expected, double[][] actual) {
+    assertArrayEquals(expected[SUSPICIOUSNESS], actual[SUSPICIOUSNESS], 0.0);
+    assertArrayEquals(expected[CONFIDENCE], actual[CONFIDENCE], 0.0);
+  }
+
+  @Test
+  public void expect_SameResults_As_UnweightedComputation() {
+    for (long seed = 1L; seed < 40L; seed += 3L) {
+      //given
+      TarantulaData data = getData(seed);
+      WeightedTarantulaData weighted = TarantulaDataBuilder.buildWeighted(data);
+      //when
+      double[][] actual = new TarantulaFaultLocalizer().compute(weighted);
+      //then
+      assertTrue(weighted.getCoverage().getTestCount() <= 12);
+      assertSameResults(
+          new TarantulaFaultLocalizer().compute(getData(seed), false), actual);
+    }
+  }
+
+  @Test
+  public void expect_SameResults_AfterReweighing_ForNewVerdicts() {
+    //given
+    TarantulaData data = getData(5L);
+    WeightedTarantulaData weighted = TarantulaDataBuilder.buildWeighted(data);
+    boolean[] F = getRandomBoolArray(99L, 0.3, NUM_TESTS);
+    boolean[] L = getRandomBoolArray(98L, 0.8, NUM_TESTS);
+    //when
+    weighted.weigh(F, L);
+    ParallelFaultLocalizer parallel = new ParallelFaultLocalizer(3);
+    double[][] actual;
+    try {
+      actual = parallel.compute(weighted);
+    } finally {
+      parallel.close();
+    }
+    //then
+    data.setF(F);
+    data.setL(L);
+    assertSameResults(new TarantulaFaultLocalizer().compute(data, false), actual);
+  }
+
+  @Test
+  public void expect_NoRows_When_NoTestCoversAnything() {
+    //given
+    TarantulaData data = new TarantulaData(new boolean[4][3]);
+    data.setF(new boolean[4]);
+    data.setC(new boolean[] {true, true, true});
+    //when
+    WeightedTarantulaData weighted = TarantulaDataBuilder.buildWeighted(data);
+    double[][] actual = new TarantulaFaultLocalizer().compute(weighted);
+    //then
+    assertEquals(0, weighted.getCoverage().getTestCount());
+    assertSameResults(new TarantulaFaultLocalizer().compute(data, false), actual);
+  }
+
+  @Test
+  public void expect_SameCounts_When_RowsAreCountedInParallelRanges() {
+    //given distinct rows enough for several ranges
+    TarantulaData data = new TarantulaData(
+        getRandomBoolMatrix(61L, 0.3, 1000, NUM_STMTS));
+    data.setF(getRandomBoolArray(62L, 0.2, 1000));
+    data.setL(getRandomBoolArray(63L, 0.9, 1000));
+    data.setC(getRandomBoolArray(64L, 0.9, NUM_STMTS));
+    WeightedTarantulaData weighted = TarantulaDataBuilder.buildWeighted(data);
+    ParallelFaultLocalizer parallel = new ParallelFaultLocalizer(4);
+    IntArrayPassFailPair actual;
+    try {
+      //when
+      actual = parallel.calculateWeightedTestsOnStmtProfiles(NUM_STMTS,
+          weighted.getC(), weighted.getCoverage(),
+          weighted.getPassWeights(), weighted.getFailWeights());
+      //then
+      final int numRows = weighted.getCoverage().getTestCount();
+      assertTrue(numRows > parallel.testsPerTask(numRows));
+    } finally {
+      parallel.close();
+    }
+    IntArrayPassFailPair expected =
+        new TarantulaFaultLocalizer().calculateTestsOnStmtProfiles(NUM_STMTS,
+            new TarantulaFaultLocalizer().calculateBadTestCoverage(data.getCoverage()),
+            data.getL(), data.getC(), data.getCoverage(), data.getF());
+    assertArrayEquals(expected.pass(), actual.pass());
+    assertArrayEquals(expected.fail(), actual.fail());
+  }
+
+}